@@ -0,0 +1,277 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassReader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Input corpus shared by all benchmarks: Java sources, their compiled classes and a JaCoCo execution data file with one session per test.
+ * <p>
+ * Sources are generated with a fixed seed so that two runs measure exactly the same input, unless the
+ * {@value #CORPUS_PROPERTY} system property points to a directory of real sources (e.g. an unpacked sources jar).
+ */
+public final class BenchmarkCorpus {
+
+  public static final String CORPUS_PROPERTY = "sonar.java.benchmark.corpus";
+
+  private static final String PACKAGE = "org.sonar.benchmark.generated";
+  private static final long SEED = 42L;
+
+  private final File baseDir;
+  private final File sourceDir;
+  private final File classesDir;
+  private final List<File> sourceFiles;
+
+  private BenchmarkCorpus(File baseDir, File sourceDir, List<File> sourceFiles) {
+    this.baseDir = baseDir;
+    this.sourceDir = sourceDir;
+    this.classesDir = new File(baseDir, "classes");
+    this.sourceFiles = sourceFiles;
+  }
+
+  /**
+   * Creates a corpus from the directory given by {@value #CORPUS_PROPERTY}, or generates {@code fileCount} classes
+   * of {@code methodsPerClass} methods each when the property is not set.
+   */
+  public static BenchmarkCorpus create(int fileCount, int methodsPerClass) throws IOException {
+    File baseDir = Files.createTempDir();
+    String bundled = System.getProperty(CORPUS_PROPERTY);
+    if (bundled != null) {
+      File sourceDir = new File(bundled);
+      Preconditions.checkArgument(sourceDir.isDirectory(), "Benchmark corpus directory not found: " + sourceDir);
+      return new BenchmarkCorpus(baseDir, sourceDir, ImmutableList.copyOf(FileUtils.listFiles(sourceDir, new String[] {"java"}, true)));
+    }
+    File sourceDir = new File(baseDir, "src");
+    File packageDir = new File(sourceDir, PACKAGE.replace('.', '/'));
+    FileUtils.forceMkdir(packageDir);
+    Random random = new Random(SEED);
+    ImmutableList.Builder<File> files = ImmutableList.builder();
+    for (int i = 0; i < fileCount; i++) {
+      File file = new File(packageDir, className(i) + ".java");
+      Files.write(generateClass(i, fileCount, methodsPerClass, random), file, Charsets.UTF_8);
+      files.add(file);
+    }
+    return new BenchmarkCorpus(baseDir, sourceDir, files.build());
+  }
+
+  public List<File> sourceFiles() {
+    return sourceFiles;
+  }
+
+  public File sourceDir() {
+    return sourceDir;
+  }
+
+  public File classesDir() {
+    return classesDir;
+  }
+
+  /**
+   * Compiles the sources with debug information into {@link #classesDir()}. Requires a JDK.
+   */
+  public BenchmarkCorpus compile() throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    Preconditions.checkState(compiler != null, "Bytecode benchmarks must run on a JDK");
+    FileUtils.forceMkdir(classesDir);
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8)) {
+      List<String> options = ImmutableList.of("-g", "-nowarn", "-proc:none", "-d", classesDir.getAbsolutePath());
+      Boolean success = compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+      Preconditions.checkState(Boolean.TRUE.equals(success), "Unable to compile benchmark corpus in " + sourceDir);
+    }
+    return this;
+  }
+
+  /**
+   * Compiled class files by internal name, e.g. {@code org/sonar/benchmark/generated/Generated0}.
+   */
+  public Map<String, File> classFilesByKey() {
+    Map<String, File> result = Maps.newTreeMap();
+    String root = classesDir.getAbsolutePath();
+    for (File classFile : classFiles()) {
+      String path = classFile.getAbsolutePath().substring(root.length() + 1);
+      result.put(path.substring(0, path.length() - ".class".length()).replace(File.separatorChar, '/'), classFile);
+    }
+    return result;
+  }
+
+  public Collection<File> classFiles() {
+    return FileUtils.listFiles(classesDir, new String[] {"class"}, true);
+  }
+
+  /**
+   * Writes a JaCoCo execution data file with {@code testCount} sessions named {@code "TestClass testName"}, as written by the
+   * JaCoCo listeners. Each session covers a random subset of the probes of a random subset of the compiled classes.
+   */
+  public File writeJacocoExecutionData(int testCount) throws IOException {
+    File execFile = new File(baseDir, "jacoco.exec");
+    Random random = new Random(SEED);
+    List<File> classFiles = ImmutableList.copyOf(classFiles());
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(execFile))) {
+      ExecutionDataWriter writer = new ExecutionDataWriter(outputStream);
+      for (int test = 0; test < testCount; test++) {
+        writer.visitSessionInfo(new SessionInfo("org.sonar.benchmark.GeneratedTest test" + test, test, test + 1L));
+        for (File classFile : classFiles) {
+          if (random.nextInt(4) == 0) {
+            writer.visitClassExecution(executionData(classFile, random));
+          }
+        }
+      }
+    }
+    return execFile;
+  }
+
+  public void delete() {
+    FileUtils.deleteQuietly(baseDir);
+  }
+
+  private ExecutionData executionData(File classFile, Random random) throws IOException {
+    byte[] bytes = Files.toByteArray(classFile);
+    ProbeCounter counter = new ProbeCounter();
+    new ClassReader(bytes).accept(new ClassProbesAdapter(counter, false), 0);
+    boolean[] probes = new boolean[counter.count];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = random.nextBoolean();
+    }
+    String name = new ClassReader(bytes).getClassName();
+    return new ExecutionData(CRC64.checksum(bytes), name, probes);
+  }
+
+  private static class ProbeCounter extends ClassProbesVisitor {
+    private int count;
+
+    @Override
+    public MethodProbesVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+      return null;
+    }
+
+    @Override
+    public void visitTotalProbeCount(int count) {
+      this.count = count;
+    }
+  }
+
+  private static String className(int index) {
+    return "Generated" + index;
+  }
+
+  private static String generateClass(int index, int fileCount, int methodsPerClass, Random random) {
+    String name = className(index);
+    String next = className((index + 1) % fileCount);
+    StringBuilder sb = new StringBuilder();
+    sb.append("package ").append(PACKAGE).append(";\n\n");
+    sb.append("import java.io.IOException;\n");
+    sb.append("import java.util.ArrayList;\n");
+    sb.append("import java.util.HashMap;\n");
+    sb.append("import java.util.List;\n");
+    sb.append("import java.util.Map;\n\n");
+    sb.append("/**\n * Generated benchmark class ").append(index).append(".\n */\n");
+    sb.append("@SuppressWarnings(\"unchecked\")\n");
+    sb.append("public class ").append(name).append(" implements Comparable<").append(name).append("> {\n\n");
+    sb.append("  private static final int LIMIT = ").append(random.nextInt(1000)).append(";\n");
+    sb.append("  private final Map<String, List<Integer>> values = new HashMap<>();\n");
+    sb.append("  private ").append(next).append(" next;\n");
+    sb.append("  private int counter;\n\n");
+    for (int m = 0; m < methodsPerClass; m++) {
+      generateMethod(sb, m, next, random);
+    }
+    sb.append("  @Override\n");
+    sb.append("  public int compareTo(").append(name).append(" other) {\n");
+    sb.append("    return Integer.compare(counter, other.counter);\n");
+    sb.append("  }\n\n");
+    sb.append("  static class Inner").append(index).append(" extends ArrayList<String> {\n");
+    sb.append("    String first() {\n");
+    sb.append("      return isEmpty() ? null : get(0);\n");
+    sb.append("    }\n");
+    sb.append("  }\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void generateMethod(StringBuilder sb, int m, String next, Random random) {
+    int bound = 1 + random.nextInt(50);
+    sb.append("  // method ").append(m).append(" TODO review\n");
+    sb.append("  public int method").append(m).append("(String key, int param) throws IOException {\n");
+    sb.append("    int result = param;\n");
+    sb.append("    List<Integer> list = values.get(key);\n");
+    sb.append("    if (list == null) {\n");
+    sb.append("      list = new ArrayList<>();\n");
+    sb.append("      values.put(key, list);\n");
+    sb.append("    }\n");
+    sb.append("    for (int i = 0; i < ").append(bound).append("; i++) {\n");
+    sb.append("      if (i % 3 == 0 && result > LIMIT || key.isEmpty()) {\n");
+    sb.append("        result += i * ").append(random.nextInt(10)).append(";\n");
+    sb.append("      } else {\n");
+    sb.append("        list.add(i);\n");
+    sb.append("      }\n");
+    sb.append("    }\n");
+    sb.append("    switch (result % 4) {\n");
+    sb.append("      case 0:\n");
+    sb.append("        counter++;\n");
+    sb.append("        break;\n");
+    sb.append("      case 1:\n");
+    sb.append("        counter--;\n");
+    sb.append("        break;\n");
+    sb.append("      default:\n");
+    sb.append("        counter = result;\n");
+    sb.append("    }\n");
+    sb.append("    String message = \"value \" + key + \" is \" + result + \" for \" + counter;\n");
+    sb.append("    try {\n");
+    sb.append("      while (result > ").append(bound).append(") {\n");
+    sb.append("        result /= 2;\n");
+    sb.append("      }\n");
+    sb.append("      if (next != null && message.length() > ").append(bound).append(") {\n");
+    sb.append("        result += next.method").append(m).append("(message.substring(1), result - 1);\n");
+    sb.append("      }\n");
+    sb.append("    } catch (IllegalStateException e) {\n");
+    sb.append("      throw new IOException(message, e);\n");
+    sb.append("    } finally {\n");
+    sb.append("      list.clear();\n");
+    sb.append("    }\n");
+    sb.append("    return result;\n");
+    sb.append("  }\n\n");
+  }
+}
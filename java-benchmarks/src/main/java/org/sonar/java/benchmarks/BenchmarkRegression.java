@@ -0,0 +1,150 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Entry point of the benchmarks jar. Runs the JMH benchmarks (all JMH command line options are accepted) and compares their scores
+ * with a stored baseline:
+ * <pre>
+ *   java -jar benchmarks.jar -Dsonar.java.benchmark.record=true     # store the scores as new baseline
+ *   java -jar benchmarks.jar                                        # fail if a benchmark is slower than the baseline
+ * </pre>
+ * System properties must be given to the launching JVM, i.e. before {@code -jar}.
+ * <ul>
+ *   <li>{@value #BASELINE_PROPERTY}: baseline file, defaults to {@value #DEFAULT_BASELINE}</li>
+ *   <li>{@value #RECORD_PROPERTY}: when true, write the scores to the baseline file instead of comparing them</li>
+ *   <li>{@value #THRESHOLD_PROPERTY}: accepted slowdown in percent, defaults to {@value #DEFAULT_THRESHOLD}</li>
+ * </ul>
+ * Scores are average times, so a higher score than the baseline is a slowdown. Benchmarks missing from the baseline are reported but
+ * never fail the run.
+ */
+public final class BenchmarkRegression {
+
+  static final String BASELINE_PROPERTY = "sonar.java.benchmark.baseline";
+  static final String RECORD_PROPERTY = "sonar.java.benchmark.record";
+  static final String THRESHOLD_PROPERTY = "sonar.java.benchmark.threshold";
+  static final String DEFAULT_BASELINE = "benchmarks-baseline.properties";
+  static final int DEFAULT_THRESHOLD = 10;
+
+  private BenchmarkRegression() {
+  }
+
+  public static void main(String[] args) throws RunnerException, IOException {
+    CommandLineOptions commandLineOptions;
+    try {
+      commandLineOptions = new CommandLineOptions(args);
+    } catch (CommandLineOptionException e) {
+      System.err.println("Error parsing command line: " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+    Collection<RunResult> results = new Runner(new OptionsBuilder().parent(commandLineOptions).build()).run();
+
+    File baselineFile = new File(System.getProperty(BASELINE_PROPERTY, DEFAULT_BASELINE));
+    if (Boolean.getBoolean(RECORD_PROPERTY)) {
+      record(results, baselineFile);
+      System.out.println("Baseline written to " + baselineFile.getAbsolutePath());
+      return;
+    }
+    if (!baselineFile.isFile()) {
+      System.out.println("No baseline found at " + baselineFile.getAbsolutePath() + ", run with -D" + RECORD_PROPERTY + "=true to create it.");
+      return;
+    }
+    List<String> regressions = compare(results, load(baselineFile), Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+    if (!regressions.isEmpty()) {
+      System.err.println("Performance regressions compared to " + baselineFile.getAbsolutePath() + ":");
+      for (String regression : regressions) {
+        System.err.println("  " + regression);
+      }
+      System.exit(1);
+    }
+    System.out.println("No performance regression compared to " + baselineFile.getAbsolutePath());
+  }
+
+  static List<String> compare(Collection<RunResult> results, Properties baseline, int thresholdPercent) {
+    List<String> regressions = Lists.newArrayList();
+    for (RunResult runResult : results) {
+      String key = key(runResult.getParams());
+      Result<?> result = runResult.getPrimaryResult();
+      String expected = baseline.getProperty(key);
+      if (expected == null) {
+        System.out.println("No baseline for " + key);
+        continue;
+      }
+      double baselineScore = Double.parseDouble(expected);
+      double slowdown = (result.getScore() - baselineScore) * 100 / baselineScore;
+      String line = String.format(Locale.ENGLISH, "%s: %.3f %s (baseline %.3f, %+.1f%%)", key, result.getScore(), result.getScoreUnit(), baselineScore, slowdown);
+      System.out.println(line);
+      if (slowdown > thresholdPercent) {
+        regressions.add(line);
+      }
+    }
+    return regressions;
+  }
+
+  private static void record(Collection<RunResult> results, File baselineFile) throws IOException {
+    Properties baseline = baselineFile.isFile() ? load(baselineFile) : new Properties();
+    for (RunResult runResult : results) {
+      baseline.setProperty(key(runResult.getParams()), Double.toString(runResult.getPrimaryResult().getScore()));
+    }
+    try (OutputStream outputStream = new FileOutputStream(baselineFile)) {
+      baseline.store(outputStream, "Average time of the analyzer benchmarks, see " + BenchmarkRegression.class.getName());
+    }
+  }
+
+  private static Properties load(File baselineFile) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream inputStream = new FileInputStream(baselineFile)) {
+      properties.load(inputStream);
+    }
+    return properties;
+  }
+
+  private static String key(BenchmarkParams params) {
+    StringBuilder sb = new StringBuilder(params.getBenchmark());
+    for (String param : new TreeSet<>(params.getParamsKeys())) {
+      sb.append(':').append(param).append('=').append(params.getParam(param));
+    }
+    return sb.toString();
+  }
+
+}
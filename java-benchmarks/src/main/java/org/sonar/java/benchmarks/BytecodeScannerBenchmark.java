@@ -0,0 +1,163 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.resources.Resource;
+import org.sonar.java.bytecode.BytecodeScanner;
+import org.sonar.java.bytecode.asm.AsmClass;
+import org.sonar.java.bytecode.asm.AsmEdge;
+import org.sonar.java.bytecode.asm.AsmMethod;
+import org.sonar.java.bytecode.visitor.BytecodeVisitor;
+import org.sonar.java.bytecode.visitor.ResourceMapping;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.JavaResourceLocator;
+import org.sonar.squidbridge.indexer.SquidIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load, link and visit the compiled classes of the corpus with {@link BytecodeScanner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BytecodeScannerBenchmark {
+
+  @Param({"200"})
+  public int files;
+
+  @Param({"20"})
+  public int methodsPerClass;
+
+  private BenchmarkCorpus corpus;
+  private CorpusResourceLocator resourceLocator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    corpus = BenchmarkCorpus.create(files, methodsPerClass).compile();
+    resourceLocator = new CorpusResourceLocator(corpus);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    corpus.delete();
+  }
+
+  @Benchmark
+  public int scan() {
+    BytecodeScanner bytecodeScanner = new BytecodeScanner(new SquidIndex(), resourceLocator);
+    EdgeCounter edgeCounter = new EdgeCounter();
+    bytecodeScanner.accept(edgeCounter);
+    bytecodeScanner.scan(ImmutableList.of(corpus.classesDir()));
+    return edgeCounter.count;
+  }
+
+  private static class EdgeCounter extends BytecodeVisitor {
+    private int count;
+
+    @Override
+    public void visitMethod(AsmMethod asmMethod) {
+      count++;
+    }
+
+    @Override
+    public void visitEdge(AsmEdge edge) {
+      count++;
+    }
+
+    @Override
+    public void leaveClass(AsmClass asmClass) {
+      count++;
+    }
+  }
+
+  private static class CorpusResourceLocator implements JavaResourceLocator {
+
+    private final BenchmarkCorpus corpus;
+    private final List<String> classKeys;
+
+    CorpusResourceLocator(BenchmarkCorpus corpus) {
+      this.corpus = corpus;
+      this.classKeys = ImmutableList.copyOf(corpus.classFilesByKey().keySet());
+    }
+
+    @Override
+    public Resource findResourceByClassName(String className) {
+      return null;
+    }
+
+    @Override
+    public String findSourceFileKeyByClassName(String className) {
+      return null;
+    }
+
+    @Override
+    public Collection<String> classKeys() {
+      return classKeys;
+    }
+
+    @Override
+    public Collection<File> classFilesToAnalyze() {
+      return corpus.classFiles();
+    }
+
+    @Override
+    public Collection<File> classpath() {
+      return ImmutableList.of(corpus.classesDir());
+    }
+
+    @Override
+    public Integer getMethodStartLine(String fullyQualifiedMethodName) {
+      return null;
+    }
+
+    @Override
+    public ResourceMapping getResourceMapping() {
+      return new ResourceMapping();
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      // no source files in this benchmark
+    }
+  }
+
+}
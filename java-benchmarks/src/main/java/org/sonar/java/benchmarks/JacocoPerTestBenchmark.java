@@ -0,0 +1,106 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.collect.Lists;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.plugins.jacoco.ExecutionDataVisitor;
+import org.sonar.plugins.jacoco.JacocoReportReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading of a JaCoCo execution data file and coverage analysis of every test session against the class files, as done by the
+ * JaCoCo sensors when coverage per test is collected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JacocoPerTestBenchmark {
+
+  @Param({"200"})
+  public int files;
+
+  @Param({"100"})
+  public int tests;
+
+  private BenchmarkCorpus corpus;
+  private File executionData;
+  private Map<String, File> classFilesCache;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    corpus = BenchmarkCorpus.create(files, 10).compile();
+    executionData = corpus.writeJacocoExecutionData(tests);
+    classFilesCache = corpus.classFilesByKey();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    corpus.delete();
+  }
+
+  @Benchmark
+  public void analyzeCoveragePerTest(Blackhole blackhole) {
+    ExecutionDataVisitor executionDataVisitor = new ExecutionDataVisitor();
+    JacocoReportReader reader = new JacocoReportReader(executionData).readJacocoReport(executionDataVisitor, executionDataVisitor);
+    for (ExecutionDataStore store : executionDataVisitor.getSessions().values()) {
+      CoverageBuilder coverageBuilder = reader.analyzeFiles(store, classFilesOfStore(store));
+      blackhole.consume(coverageBuilder.getSourceFiles());
+    }
+    blackhole.consume(reader.analyzeFiles(executionDataVisitor.getMerged(), classFilesCache.values()).getSourceFiles());
+  }
+
+  private Collection<File> classFilesOfStore(ExecutionDataStore executionDataStore) {
+    List<File> result = Lists.newArrayList();
+    for (ExecutionData data : executionDataStore.getContents()) {
+      File classFile = classFilesCache.get(data.getName());
+      if (classFile != null) {
+        result.add(classFile);
+      }
+    }
+    return result;
+  }
+
+}
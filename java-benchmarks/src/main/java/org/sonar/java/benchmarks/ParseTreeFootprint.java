@@ -0,0 +1,87 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.typed.ActionParser;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Heap retained by the syntax tree of a large generated file (more than 10k lines), compared to the size of its source.
+ * Trees are only reachable from this class, so the growth of the used heap after a full GC is their footprint:
+ * <pre>
+ *   java -cp benchmarks.jar org.sonar.java.benchmarks.ParseTreeFootprint [methodsPerClass]
+ * </pre>
+ */
+public final class ParseTreeFootprint {
+
+  private static final int DEFAULT_METHODS_PER_CLASS = 300;
+  private static final int RETAINED_TREES = 5;
+
+  private ParseTreeFootprint() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    int methodsPerClass = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_METHODS_PER_CLASS;
+    BenchmarkCorpus corpus = BenchmarkCorpus.create(1, methodsPerClass);
+    try {
+      File file = corpus.sourceFiles().get(0);
+      ActionParser<Tree> parser = JavaParser.createParser(Charsets.UTF_8);
+      // warm up the parser and the token text cache before measuring
+      parser.parse(file);
+
+      List<Tree> trees = Lists.newArrayList();
+      long before = usedHeapAfterGc();
+      for (int i = 0; i < RETAINED_TREES; i++) {
+        trees.add(parser.parse(file));
+      }
+      long after = usedHeapAfterGc();
+
+      long bytesPerTree = (after - before) / trees.size();
+      long sourceBytes = file.length();
+      System.out.println(String.format(Locale.ENGLISH, "%s: %d lines, %d bytes of source", file.getName(), lineCount(file), sourceBytes));
+      System.out.println(String.format(Locale.ENGLISH, "retained tree: %d bytes, %.1f x source size", bytesPerTree, (double) bytesPerTree / sourceBytes));
+    } finally {
+      corpus.delete();
+    }
+  }
+
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+
+  private static int lineCount(File file) throws IOException {
+    return com.google.common.io.Files.readLines(file, Charsets.UTF_8).size();
+  }
+
+}
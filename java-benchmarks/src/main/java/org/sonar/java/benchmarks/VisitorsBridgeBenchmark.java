@@ -0,0 +1,108 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.typed.ActionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.ast.visitors.VisitorContext;
+import org.sonar.java.checks.CheckList;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.JavaCheck;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.squidbridge.api.SourceProject;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in {@link VisitorsBridge#visitFile(Tree)} for the whole corpus with every rule of {@link CheckList#getJavaChecks()} enabled:
+ * semantic model, symbol table and all the checks, but not parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorsBridgeBenchmark {
+
+  @Param({"50"})
+  public int files;
+
+  @Param({"20"})
+  public int methodsPerClass;
+
+  private BenchmarkCorpus corpus;
+  private ActionParser<Tree> parser;
+  private VisitorsBridge visitorsBridge;
+  private List<Tree> trees;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    corpus = BenchmarkCorpus.create(files, methodsPerClass);
+    parser = JavaParser.createParser(Charsets.UTF_8);
+    List<JavaCheck> checks = Lists.newArrayList();
+    for (Class<? extends JavaCheck> check : CheckList.getJavaChecks()) {
+      checks.add(check.newInstance());
+    }
+    visitorsBridge = new VisitorsBridge(checks, Lists.<File>newArrayList(), null);
+    visitorsBridge.setCharset(Charsets.UTF_8);
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() {
+    trees = Lists.newArrayList();
+    for (File file : corpus.sourceFiles()) {
+      trees.add(parser.parse(file));
+    }
+    visitorsBridge.setContext(new VisitorContext(new SourceProject("Java Project")));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    corpus.delete();
+  }
+
+  @Benchmark
+  public void visitFiles() {
+    List<File> sourceFiles = corpus.sourceFiles();
+    for (int i = 0; i < sourceFiles.size(); i++) {
+      visitorsBridge.getContext().setFile(sourceFiles.get(i));
+      visitorsBridge.visitFile(trees.get(i));
+    }
+  }
+
+}
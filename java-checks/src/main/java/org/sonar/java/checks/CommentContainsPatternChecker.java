@@ -19,8 +19,8 @@
  */
 package org.sonar.java.checks;
 
-import org.apache.commons.lang.StringUtils;
-import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.java.checks.helpers.CommentAndLiteralIndex;
+import org.sonar.plugins.java.api.tree.Tree;
 
 public class CommentContainsPatternChecker {
 
@@ -34,25 +34,9 @@ public class CommentContainsPatternChecker {
     this.message = message;
   }
 
-  private static boolean isLetterAround(String line, String pattern) {
-    int start = StringUtils.indexOfIgnoreCase(line, pattern);
-    int end = start + pattern.length();
-
-    boolean pre = start > 0 && Character.isLetter(line.charAt(start - 1));
-    boolean post = end < line.length() - 1 && Character.isLetter(line.charAt(end));
-
-    return pre || post;
-  }
-
-  public void checkTrivia(SyntaxTrivia syntaxTrivia) {
-    String comment = syntaxTrivia.comment();
-    if (StringUtils.containsIgnoreCase(comment, pattern)) {
-      String[] lines = comment.split("\r\n?|\n");
-      for (int i = 0; i < lines.length; i++) {
-        if (StringUtils.containsIgnoreCase(lines[i], pattern) && !isLetterAround(lines[i], pattern)) {
-          newCheck.addIssue(syntaxTrivia.startLine() + i, message);
-        }
-      }
+  public void checkComments(Tree tree) {
+    for (int line : CommentAndLiteralIndex.of(tree).linesWithTag(pattern)) {
+      newCheck.addIssue(line, message);
     }
   }
 }
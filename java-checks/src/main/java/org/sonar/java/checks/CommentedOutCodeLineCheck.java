@@ -25,6 +25,7 @@ import org.apache.commons.lang.StringUtils;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.checks.helpers.CommentAndLiteralIndex;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
@@ -50,29 +51,25 @@ public class CommentedOutCodeLineCheck extends SubscriptionBaseVisitor {
 
   private final CodeRecognizer codeRecognizer;
 
-  private List<SyntaxTrivia> comments;
-
   public CommentedOutCodeLineCheck() {
     codeRecognizer = new CodeRecognizer(THRESHOLD, new JavaFootprint());
   }
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
-    return ImmutableList.of(Tree.Kind.TRIVIA);
+    return ImmutableList.of();
   }
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
-    comments = Lists.newArrayList();
     super.scanFile(context);
-    leaveFile();
-  }
-
-  @Override
-  public void visitTrivia(SyntaxTrivia syntaxTrivia) {
-    if (!isHeader(syntaxTrivia) && !isJavadoc(syntaxTrivia.comment()) && !isJSNI(syntaxTrivia.comment())) {
-      comments.add(syntaxTrivia);
+    List<SyntaxTrivia> comments = Lists.newArrayList();
+    for (SyntaxTrivia syntaxTrivia : CommentAndLiteralIndex.of(context.getTree()).comments()) {
+      if (!isHeader(syntaxTrivia) && !isJavadoc(syntaxTrivia.comment()) && !isJSNI(syntaxTrivia.comment())) {
+        comments.add(syntaxTrivia);
+      }
     }
+    leaveFile(comments);
   }
 
   /**
@@ -87,14 +84,14 @@ public class CommentedOutCodeLineCheck extends SubscriptionBaseVisitor {
   /**
    * Detects commented-out code in remaining candidates.
    */
-  private void leaveFile() {
+  private void leaveFile(List<SyntaxTrivia> comments) {
     List<Integer> commentedOutCodeLines = Lists.newArrayList();
     for (SyntaxTrivia syntaxTrivia : comments) {
-      String[] lines = syntaxTrivia.comment().split("\r\n?|\n");
-      for (int i = 0; i < lines.length; i++) {
-        if (codeRecognizer.isLineOfCode(lines[i])) {
+      List<String> lines = CommentAndLiteralIndex.lines(syntaxTrivia.comment());
+      for (int i = 0; i < lines.size(); i++) {
+        if (codeRecognizer.isLineOfCode(lines.get(i))) {
           // Mark all remaining lines from this comment as a commented out lines of code
-          for (int j = i; j < lines.length; j++) {
+          for (int j = i; j < lines.size(); j++) {
             commentedOutCodeLines.add(syntaxTrivia.startLine() + j);
           }
           break;
@@ -112,8 +109,6 @@ public class CommentedOutCodeLineCheck extends SubscriptionBaseVisitor {
       }
       prev = current;
     }
-
-    comments = null;
   }
 
   /**
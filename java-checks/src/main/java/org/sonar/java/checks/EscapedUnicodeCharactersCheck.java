@@ -25,9 +25,10 @@ import com.google.common.collect.Iterables;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.checks.helpers.CommentAndLiteralIndex;
 import org.sonar.java.model.LiteralUtils;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.LiteralTree;
-import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.Tree.Kind;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
@@ -56,13 +57,20 @@ public class EscapedUnicodeCharactersCheck extends SubscriptionBaseVisitor {
 
   @Override
   public List<Kind> nodesToVisit() {
-    return ImmutableList.of(Kind.STRING_LITERAL);
+    return ImmutableList.of();
   }
 
   @Override
-  public void visitNode(Tree node) {
-    String value = LiteralUtils.trimQuotes(((LiteralTree) node).value());
-    if (value.isEmpty()) {
+  public void scanFile(JavaFileScannerContext context) {
+    super.scanFile(context);
+    for (LiteralTree stringLiteral : CommentAndLiteralIndex.of(context.getTree()).stringLiterals()) {
+      checkLiteral(stringLiteral);
+    }
+  }
+
+  private void checkLiteral(LiteralTree node) {
+    String value = LiteralUtils.trimQuotes(node.value());
+    if (!value.contains("\\u")) {
       return;
     }
     // replace \\u with \\z just to differentiate \u0000 and \\u0000
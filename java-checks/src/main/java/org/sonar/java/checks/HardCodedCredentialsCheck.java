@@ -62,7 +62,7 @@ public class HardCodedCredentialsCheck extends SubscriptionBaseVisitor {
   public void visitNode(Tree tree) {
     if (tree.is(Tree.Kind.STRING_LITERAL)) {
       String literalValue = ((LiteralTree) tree).value();
-      if (PASSWORD_LITERAL_PATTERN.matcher(literalValue).find()) {
+      if (literalValue.indexOf('=') >= 0 && PASSWORD_LITERAL_PATTERN.matcher(literalValue).find()) {
         addIssue(tree);
       }
     } else if (tree.is(Tree.Kind.VARIABLE)) {
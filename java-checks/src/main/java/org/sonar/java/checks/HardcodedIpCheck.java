@@ -23,11 +23,10 @@ import com.google.common.base.Splitter;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.checks.helpers.CommentAndLiteralIndex;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.LiteralTree;
-import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
@@ -43,7 +42,7 @@ import java.util.regex.Pattern;
 @ActivatedByDefault
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.ARCHITECTURE_CHANGEABILITY)
 @SqaleConstantRemediation("30min")
-public class HardcodedIpCheck extends BaseTreeVisitor implements JavaFileScanner {
+public class HardcodedIpCheck implements JavaFileScanner {
 
   private static final Matcher IP = Pattern.compile("[^\\d.]*?((?:\\d{1,3}\\.){3}\\d{1,3}(?!\\d|\\.)).*?").matcher("");
 
@@ -52,20 +51,38 @@ public class HardcodedIpCheck extends BaseTreeVisitor implements JavaFileScanner
   @Override
   public void scanFile(final JavaFileScannerContext context) {
     this.context = context;
-    scan(context.getTree());
+    for (LiteralTree stringLiteral : CommentAndLiteralIndex.of(context.getTree()).stringLiterals()) {
+      checkLiteral(stringLiteral);
+    }
   }
 
-  @Override
-  public void visitLiteral(LiteralTree tree) {
-    if (tree.is(Tree.Kind.STRING_LITERAL)) {
-      IP.reset(tree.value());
-      if (IP.matches()) {
-        String ip = IP.group(1);
-        if (areAllBelow256(Splitter.on('.').split(ip))) {
-          context.addIssue(tree, this, "Make this IP \"" + ip + "\" address configurable.");
-        }
+  private void checkLiteral(LiteralTree tree) {
+    String value = tree.value();
+    if (!startsWithDigitBeforeAnyDot(value)) {
+      return;
+    }
+    IP.reset(value);
+    if (IP.matches()) {
+      String ip = IP.group(1);
+      if (areAllBelow256(Splitter.on('.').split(ip))) {
+        context.addIssue(tree, this, "Make this IP \"" + ip + "\" address configurable.");
+      }
+    }
+  }
+
+  /**
+   * The IP pattern can only match when the first digit or dot of the value is a digit: most literals are rejected without matching it.
+   */
+  private static boolean startsWithDigitBeforeAnyDot(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '.') {
+        return false;
+      } else if ('0' <= c && c <= '9') {
+        return true;
       }
     }
+    return false;
   }
 
   private static boolean areAllBelow256(Iterable<String> numbersAsStrings) {
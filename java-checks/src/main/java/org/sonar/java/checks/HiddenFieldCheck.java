@@ -41,7 +41,6 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
 import javax.annotation.Nullable;
 import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
 
 @Rule(
@@ -174,12 +173,11 @@ public class HiddenFieldCheck extends SubscriptionBaseVisitor {
 
     private void visitChildren(Tree tree) {
       JavaTree javaTree = (JavaTree) tree;
-      if (!javaTree.isLeaf()) {
-        for (Iterator<Tree> iter = javaTree.childrenIterator(); iter.hasNext(); ) {
-          Tree next = iter.next();
-          if (next != null && !isExcluded(next)) {
-            visit(next);
-          }
+      int childCount = javaTree.childCount();
+      for (int i = 0; i < childCount; i++) {
+        Tree child = javaTree.child(i);
+        if (child != null && !isExcluded(child)) {
+          visit(child);
         }
       }
     }
@@ -23,7 +23,7 @@ import com.google.common.collect.ImmutableList;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
-import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
@@ -46,12 +46,13 @@ public class NoPmdTagPresenceCheck extends SubscriptionBaseVisitor {
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
-    return ImmutableList.of(Tree.Kind.TRIVIA);
+    return ImmutableList.of();
   }
 
   @Override
-  public void visitTrivia(SyntaxTrivia syntaxTrivia) {
-    checker.checkTrivia(syntaxTrivia);
+  public void scanFile(JavaFileScannerContext context) {
+    super.scanFile(context);
+    checker.checkComments(context.getTree());
   }
 
 }
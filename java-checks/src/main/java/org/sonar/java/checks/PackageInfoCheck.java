@@ -23,6 +23,7 @@ import com.google.common.collect.Sets;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.ThreadConfined;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -38,6 +39,7 @@ import java.util.Set;
   tags = {"convention"})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.UNDERSTANDABILITY)
 @SqaleConstantRemediation("20min")
+@ThreadConfined
 public class PackageInfoCheck implements JavaFileScanner {
 
   Set<File> directoriesWithoutPackageFile = Sets.newHashSet();
@@ -22,7 +22,7 @@ package org.sonar.java.checks;
 import com.google.common.collect.ImmutableList;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
-import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.NoSqale;
@@ -44,11 +44,12 @@ public class TodoTagPresenceCheck extends SubscriptionBaseVisitor {
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
-    return ImmutableList.of(Tree.Kind.TRIVIA);
+    return ImmutableList.of();
   }
 
   @Override
-  public void visitTrivia(SyntaxTrivia syntaxTrivia) {
-    checker.checkTrivia(syntaxTrivia);
+  public void scanFile(JavaFileScannerContext context) {
+    super.scanFile(context);
+    checker.checkComments(context.getTree());
   }
 }
@@ -19,12 +19,14 @@
  */
 package org.sonar.java.checks;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.checks.helpers.CommentAndLiteralIndex;
+import org.sonar.java.checks.helpers.MultiPatternMatcher;
 import org.sonar.java.syntaxtoken.FirstSyntaxTokenFinder;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
@@ -106,7 +108,7 @@ public class UselessImportCheck extends BaseTreeVisitor implements JavaFileScann
     //check references
     scan(cut);
     //check references from comments.
-    new CommentVisitor().checkImportsFromComments(cut, pendingImports);
+    updatePendingImportsForComments(cut, pendingImports);
     leaveFile();
   }
 
@@ -221,38 +223,28 @@ public class UselessImportCheck extends BaseTreeVisitor implements JavaFileScann
     return sb.toString();
   }
 
-  private static class CommentVisitor extends SubscriptionBaseVisitor {
-    private Set<String> pendingImports;
-
-    @Override
-    public List<Tree.Kind> nodesToVisit() {
-      return ImmutableList.of(Tree.Kind.TRIVIA);
-    }
-
-    public void checkImportsFromComments(CompilationUnitTree cut, Set<String> pendingImports) {
-      this.pendingImports = pendingImports;
-      scanTree(cut);
-    }
-
-    @Override
-    public void visitTrivia(SyntaxTrivia syntaxTrivia) {
-      updatePendingImportsForComments(syntaxTrivia.comment());
-    }
-
-    private void updatePendingImportsForComments(String comment) {
-      Iterator<String> it = pendingImports.iterator();
-      while (it.hasNext()) {
-        String pendingImport = it.next();
-        if (comment.contains(extractLastClassName(pendingImport))) {
-          it.remove();
+  private static void updatePendingImportsForComments(CompilationUnitTree cut, Set<String> pendingImports) {
+    if (pendingImports.isEmpty()) {
+      return;
+    }
+    List<String> pendingImportList = Lists.newArrayList(pendingImports);
+    List<String> classNames = Lists.newArrayListWithCapacity(pendingImportList.size());
+    for (String pendingImport : pendingImportList) {
+      classNames.add(extractLastClassName(pendingImport));
+    }
+    MultiPatternMatcher matcher = MultiPatternMatcher.caseSensitive(classNames);
+    for (SyntaxTrivia syntaxTrivia : CommentAndLiteralIndex.of(cut).comments()) {
+      int[] occurrences = matcher.firstOccurrences(syntaxTrivia.comment());
+      for (int i = 0; i < occurrences.length; i++) {
+        if (occurrences[i] >= 0) {
+          pendingImports.remove(pendingImportList.get(i));
         }
       }
     }
+  }
 
-    private static String extractLastClassName(String reference) {
-      int lastIndexOfDot = reference.lastIndexOf('.');
-      return lastIndexOfDot == -1 ? reference : reference.substring(lastIndexOfDot + 1);
-    }
-
+  private static String extractLastClassName(String reference) {
+    int lastIndexOfDot = reference.lastIndexOf('.');
+    return lastIndexOfDot == -1 ? reference : reference.substring(lastIndexOfDot + 1);
   }
 }
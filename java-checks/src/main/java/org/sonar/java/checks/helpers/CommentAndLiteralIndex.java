@@ -0,0 +1,188 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.helpers;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.model.JavaTree;
+import org.sonar.plugins.java.api.tree.LiteralTree;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comments and string literals of a file, collected in a single walk of its tree and shared by the checks working on raw text:
+ * the index is attached to the compilation unit and dropped with the other file data once the file is analyzed.
+ */
+public final class CommentAndLiteralIndex {
+
+  /**
+   * Tags looked for by the comment checks, searched all at once by {@link #linesWithTag(String)}.
+   */
+  private static final List<String> COMMENT_TAGS = ImmutableList.of("TODO", "FIXME", "NOSONAR", "NOPMD", "CHECKSTYLE:OFF");
+  private static final MultiPatternMatcher COMMENT_TAGS_MATCHER = MultiPatternMatcher.ignoringCase(COMMENT_TAGS);
+
+  private final List<SyntaxTrivia> comments;
+  private final List<LiteralTree> stringLiterals;
+  private final Map<String, List<Integer>> linesByTag = Maps.newConcurrentMap();
+
+  private CommentAndLiteralIndex(List<SyntaxTrivia> comments, List<LiteralTree> stringLiterals) {
+    this.comments = comments;
+    this.stringLiterals = stringLiterals;
+  }
+
+  /**
+   * @return index of the given tree, shared by all the checks of the file when the tree is its compilation unit
+   */
+  public static CommentAndLiteralIndex of(Tree tree) {
+    if (!(tree instanceof JavaTree.CompilationUnitTreeImpl)) {
+      return create(tree);
+    }
+    JavaTree.CompilationUnitTreeImpl compilationUnit = (JavaTree.CompilationUnitTreeImpl) tree;
+    CommentAndLiteralIndex index = compilationUnit.fileData(CommentAndLiteralIndex.class);
+    if (index == null) {
+      index = compilationUnit.putFileDataIfAbsent(CommentAndLiteralIndex.class, create(tree));
+    }
+    return index;
+  }
+
+  private static CommentAndLiteralIndex create(Tree tree) {
+    Collector collector = new Collector();
+    collector.collect(tree);
+    return new CommentAndLiteralIndex(collector.comments, collector.stringLiterals);
+  }
+
+  public List<SyntaxTrivia> comments() {
+    return comments;
+  }
+
+  public List<LiteralTree> stringLiterals() {
+    return stringLiterals;
+  }
+
+  /**
+   * Lines of comments containing the given tag, ignoring case, when the first occurrence of the tag on the line is not part of a word.
+   */
+  public List<Integer> linesWithTag(String tag) {
+    List<Integer> lines = linesByTag.get(tag);
+    if (lines == null) {
+      if (COMMENT_TAGS.contains(tag)) {
+        indexTags(COMMENT_TAGS_MATCHER);
+      } else {
+        indexTags(MultiPatternMatcher.ignoringCase(ImmutableList.of(tag)));
+      }
+      lines = linesByTag.get(tag);
+    }
+    return lines;
+  }
+
+  private void indexTags(MultiPatternMatcher matcher) {
+    List<String> tags = matcher.patterns();
+    List<List<Integer>> tagLines = Lists.newArrayListWithCapacity(tags.size());
+    for (int t = 0; t < tags.size(); t++) {
+      tagLines.add(Lists.<Integer>newArrayList());
+    }
+    for (SyntaxTrivia syntaxTrivia : comments) {
+      String comment = syntaxTrivia.comment();
+      if (!matcher.containsAny(comment)) {
+        continue;
+      }
+      List<String> commentLines = lines(comment);
+      for (int i = 0; i < commentLines.size(); i++) {
+        String line = commentLines.get(i);
+        int[] occurrences = matcher.firstOccurrences(line);
+        for (int t = 0; t < occurrences.length; t++) {
+          if (occurrences[t] >= 0 && !isLetterAround(line, occurrences[t], tags.get(t).length())) {
+            tagLines.get(t).add(syntaxTrivia.startLine() + i);
+          }
+        }
+      }
+    }
+    for (int t = 0; t < tags.size(); t++) {
+      linesByTag.put(tags.get(t), Collections.unmodifiableList(tagLines.get(t)));
+    }
+  }
+
+  private static boolean isLetterAround(String line, int start, int length) {
+    int end = start + length;
+    boolean pre = start > 0 && Character.isLetter(line.charAt(start - 1));
+    boolean post = end < line.length() - 1 && Character.isLetter(line.charAt(end));
+    return pre || post;
+  }
+
+  /**
+   * Splits a comment on line terminators (<code>\r\n</code>, <code>\r</code> or <code>\n</code>) the same way
+   * <code>comment.split("\r\n?|\n")</code> does, trailing empty lines being dropped.
+   */
+  public static List<String> lines(String comment) {
+    List<String> lines = Lists.newArrayList();
+    int lineStart = 0;
+    int length = comment.length();
+    for (int i = 0; i < length; i++) {
+      char c = comment.charAt(i);
+      if (c == '\n' || c == '\r') {
+        lines.add(comment.substring(lineStart, i));
+        if (c == '\r' && i + 1 < length && comment.charAt(i + 1) == '\n') {
+          i++;
+        }
+        lineStart = i + 1;
+      }
+    }
+    if (lines.isEmpty()) {
+      return ImmutableList.of(comment);
+    }
+    lines.add(comment.substring(lineStart));
+    int size = lines.size();
+    while (size > 0 && lines.get(size - 1).isEmpty()) {
+      size--;
+    }
+    return lines.subList(0, size);
+  }
+
+  private static class Collector extends SubscriptionVisitor {
+
+    private final List<SyntaxTrivia> comments = Lists.newArrayList();
+    private final List<LiteralTree> stringLiterals = Lists.newArrayList();
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return ImmutableList.of(Tree.Kind.TRIVIA, Tree.Kind.STRING_LITERAL);
+    }
+
+    void collect(Tree tree) {
+      scanTree(tree);
+    }
+
+    @Override
+    public void visitTrivia(SyntaxTrivia syntaxTrivia) {
+      comments.add(syntaxTrivia);
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      stringLiterals.add((LiteralTree) tree);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.helpers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton finding occurrences of several fixed strings in a single pass over a text.
+ * When ignoring case, characters are compared as {@link String#regionMatches(boolean, int, String, int, int)} does.
+ */
+public final class MultiPatternMatcher {
+
+  private static final int ROOT = 0;
+  private static final int NOT_FOUND = -1;
+
+  private final List<String> patterns;
+  private final int[] patternLengths;
+  private final boolean ignoreCase;
+
+  private final char[][] labels;
+  private final int[][] targets;
+  private final int[] fail;
+  private final int[][] outputs;
+
+  private MultiPatternMatcher(Collection<String> patterns, boolean ignoreCase) {
+    this.patterns = ImmutableList.copyOf(patterns);
+    this.ignoreCase = ignoreCase;
+    this.patternLengths = new int[this.patterns.size()];
+
+    List<StringBuilder> stateLabels = Lists.newArrayList(new StringBuilder());
+    List<List<Integer>> stateTargets = Lists.<List<Integer>>newArrayList(Lists.<Integer>newArrayList());
+    List<List<Integer>> stateOutputs = Lists.<List<Integer>>newArrayList(Lists.<Integer>newArrayList());
+    for (int p = 0; p < this.patterns.size(); p++) {
+      String pattern = this.patterns.get(p);
+      Preconditions.checkArgument(!pattern.isEmpty(), "Patterns can not be empty");
+      patternLengths[p] = pattern.length();
+      int state = ROOT;
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = fold(pattern.charAt(i));
+        int index = stateLabels.get(state).indexOf(String.valueOf(c));
+        if (index == NOT_FOUND) {
+          stateLabels.get(state).append(c);
+          stateTargets.get(state).add(stateLabels.size());
+          stateLabels.add(new StringBuilder());
+          stateTargets.add(Lists.<Integer>newArrayList());
+          stateOutputs.add(Lists.<Integer>newArrayList());
+          state = stateLabels.size() - 1;
+        } else {
+          state = stateTargets.get(state).get(index);
+        }
+      }
+      stateOutputs.get(state).add(p);
+    }
+
+    int size = stateLabels.size();
+    labels = new char[size][];
+    targets = new int[size][];
+    for (int s = 0; s < size; s++) {
+      labels[s] = stateLabels.get(s).toString().toCharArray();
+      targets[s] = Ints.toArray(stateTargets.get(s));
+    }
+    fail = new int[size];
+    outputs = new int[size][];
+    outputs[ROOT] = Ints.toArray(stateOutputs.get(ROOT));
+    // breadth first, so that the failure state of a state is always complete before the state itself
+    LinkedList<Integer> queue = Lists.newLinkedList();
+    for (int target : targets[ROOT]) {
+      fail[target] = ROOT;
+      outputs[target] = Ints.toArray(stateOutputs.get(target));
+      queue.add(target);
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.removeFirst();
+      for (int i = 0; i < labels[state].length; i++) {
+        int target = targets[state][i];
+        int failure = next(fail[state], labels[state][i]);
+        fail[target] = failure;
+        outputs[target] = Ints.concat(Ints.toArray(stateOutputs.get(target)), outputs[failure]);
+        queue.add(target);
+      }
+    }
+  }
+
+  public static MultiPatternMatcher caseSensitive(Collection<String> patterns) {
+    return new MultiPatternMatcher(patterns, false);
+  }
+
+  public static MultiPatternMatcher ignoringCase(Collection<String> patterns) {
+    return new MultiPatternMatcher(patterns, true);
+  }
+
+  public List<String> patterns() {
+    return patterns;
+  }
+
+  /**
+   * @return for each pattern, in the order they were given, the index of its first occurrence in the text, or -1 if it does not occur
+   */
+  public int[] firstOccurrences(CharSequence text) {
+    int[] result = new int[patterns.size()];
+    Arrays.fill(result, NOT_FOUND);
+    int found = 0;
+    int state = ROOT;
+    for (int i = 0; i < text.length() && found < result.length; i++) {
+      state = next(state, fold(text.charAt(i)));
+      for (int pattern : outputs[state]) {
+        if (result[pattern] == NOT_FOUND) {
+          result[pattern] = i + 1 - patternLengths[pattern];
+          found++;
+        }
+      }
+    }
+    return result;
+  }
+
+  public boolean containsAny(CharSequence text) {
+    int state = ROOT;
+    for (int i = 0; i < text.length(); i++) {
+      state = next(state, fold(text.charAt(i)));
+      if (outputs[state].length > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int next(int fromState, char c) {
+    int state = fromState;
+    while (true) {
+      char[] stateLabels = labels[state];
+      for (int i = 0; i < stateLabels.length; i++) {
+        if (stateLabels[i] == c) {
+          return targets[state][i];
+        }
+      }
+      if (state == ROOT) {
+        return ROOT;
+      }
+      state = fail[state];
+    }
+  }
+
+  private char fold(char c) {
+    if (!ignoreCase) {
+      return c;
+    }
+    if (c < 128) {
+      return 'A' <= c && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.collections;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable hash array mapped trie. {@link #put} copies only the path to the modified entry, so that maps derived from each other
+ * share all their untouched entries. Values are compared by identity.
+ */
+public final class PersistentMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int MAX_SHIFT = 32;
+
+  private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<>(new Node(0, new Object[0]), 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @CheckForNull
+  @SuppressWarnings("unchecked")
+  public V get(K key) {
+    return (V) get(root, 0, hash(key), key);
+  }
+
+  /**
+   * Returns this map when the key is already mapped to the same value.
+   */
+  public PersistentMap<K, V> put(K key, V value) {
+    boolean[] added = new boolean[1];
+    Node newRoot = put(root, 0, hash(key), key, value, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, added[0] ? (size + 1) : size);
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<Map.Entry<K, V>> entries() {
+    List<Map.Entry<K, V>> result = new ArrayList<>(size);
+    collect(root, (List) result);
+    return result;
+  }
+
+  /**
+   * Entries of this map that are absent from {@code base} or mapped there to another value. Subtrees shared by both maps are
+   * skipped, so comparing a map with the one it was derived from costs in proportion to the changes.
+   */
+  @SuppressWarnings("unchecked")
+  public List<Map.Entry<K, V>> entriesChangedFrom(PersistentMap<K, V> base) {
+    List<Map.Entry<K, V>> result = new ArrayList<>();
+    diff(root, base.root, 0, (List) result);
+    return result;
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  @CheckForNull
+  private static Object get(Node root, int startShift, int hash, Object key) {
+    Node node = root;
+    for (int shift = startShift; shift < MAX_SHIFT; shift += BITS) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+      Object nodeKey = node.array[index];
+      if (nodeKey == null) {
+        node = (Node) node.array[index + 1];
+      } else {
+        return key.equals(nodeKey) ? node.array[index + 1] : null;
+      }
+    }
+    return collisionGet(node, key);
+  }
+
+  private static Node put(Node node, int shift, int hash, Object key, @Nullable Object value, boolean[] added) {
+    if (shift >= MAX_SHIFT) {
+      return collisionPut(node, key, value, added);
+    }
+    int bit = 1 << ((hash >>> shift) & MASK);
+    int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+    if ((node.bitmap & bit) == 0) {
+      Object[] array = new Object[node.array.length + 2];
+      System.arraycopy(node.array, 0, array, 0, index);
+      array[index] = key;
+      array[index + 1] = value;
+      System.arraycopy(node.array, index, array, index + 2, node.array.length - index);
+      added[0] = true;
+      return new Node(node.bitmap | bit, array);
+    }
+    Object nodeKey = node.array[index];
+    Object nodeValue = node.array[index + 1];
+    if (nodeKey == null) {
+      Node child = (Node) nodeValue;
+      Node newChild = put(child, shift + BITS, hash, key, value, added);
+      return newChild == child ? node : node.with(index, null, newChild);
+    }
+    if (key.equals(nodeKey)) {
+      return nodeValue == value ? node : node.with(index, nodeKey, value);
+    }
+    added[0] = true;
+    return node.with(index, null, pair(shift + BITS, hash(nodeKey), nodeKey, nodeValue, hash, key, value));
+  }
+
+  private static Node pair(int shift, int hash1, Object key1, @Nullable Object value1, int hash2, Object key2, @Nullable Object value2) {
+    if (shift >= MAX_SHIFT) {
+      return new Node(0, new Object[] {key1, value1, key2, value2});
+    }
+    int index1 = (hash1 >>> shift) & MASK;
+    int index2 = (hash2 >>> shift) & MASK;
+    if (index1 == index2) {
+      return new Node(1 << index1, new Object[] {null, pair(shift + BITS, hash1, key1, value1, hash2, key2, value2)});
+    }
+    int bitmap = (1 << index1) | (1 << index2);
+    if (index1 < index2) {
+      return new Node(bitmap, new Object[] {key1, value1, key2, value2});
+    }
+    return new Node(bitmap, new Object[] {key2, value2, key1, value1});
+  }
+
+  @CheckForNull
+  private static Object collisionGet(Node node, Object key) {
+    for (int i = 0; i < node.array.length; i += 2) {
+      if (key.equals(node.array[i])) {
+        return node.array[i + 1];
+      }
+    }
+    return null;
+  }
+
+  private static Node collisionPut(Node node, Object key, @Nullable Object value, boolean[] added) {
+    for (int i = 0; i < node.array.length; i += 2) {
+      if (key.equals(node.array[i])) {
+        return node.array[i + 1] == value ? node : node.with(i, key, value);
+      }
+    }
+    Object[] array = new Object[node.array.length + 2];
+    System.arraycopy(node.array, 0, array, 0, node.array.length);
+    array[node.array.length] = key;
+    array[node.array.length + 1] = value;
+    added[0] = true;
+    return new Node(0, array);
+  }
+
+  private static void diff(Node node, Node base, int shift, List<Map.Entry<Object, Object>> result) {
+    if (node == base) {
+      return;
+    }
+    if (shift >= MAX_SHIFT) {
+      for (int i = 0; i < node.array.length; i += 2) {
+        if (collisionGet(base, node.array[i]) != node.array[i + 1]) {
+          result.add(Maps.immutableEntry(node.array[i], node.array[i + 1]));
+        }
+      }
+      return;
+    }
+    int index = 0;
+    for (int bits = node.bitmap; bits != 0; bits &= bits - 1, index += 2) {
+      int bit = Integer.lowestOneBit(bits);
+      Object key = node.array[index];
+      Object value = node.array[index + 1];
+      if ((base.bitmap & bit) == 0) {
+        collectSlot(key, value, result);
+        continue;
+      }
+      int baseIndex = 2 * Integer.bitCount(base.bitmap & (bit - 1));
+      Object baseKey = base.array[baseIndex];
+      Object baseValue = base.array[baseIndex + 1];
+      if (key == null && baseKey == null) {
+        diff((Node) value, (Node) baseValue, shift + BITS, result);
+      } else if (key == null) {
+        List<Map.Entry<Object, Object>> entries = new ArrayList<>();
+        collect((Node) value, entries);
+        for (Map.Entry<Object, Object> entry : entries) {
+          if (!entry.getKey().equals(baseKey) || entry.getValue() != baseValue) {
+            result.add(entry);
+          }
+        }
+      } else if (baseKey == null) {
+        if (get((Node) baseValue, shift + BITS, hash(key), key) != value) {
+          result.add(Maps.immutableEntry(key, value));
+        }
+      } else if (!key.equals(baseKey) || value != baseValue) {
+        result.add(Maps.immutableEntry(key, value));
+      }
+    }
+  }
+
+  private static void collectSlot(@Nullable Object key, Object value, List<Map.Entry<Object, Object>> result) {
+    if (key == null) {
+      collect((Node) value, result);
+    } else {
+      result.add(Maps.immutableEntry(key, value));
+    }
+  }
+
+  private static void collect(Node node, List<Map.Entry<Object, Object>> result) {
+    for (int i = 0; i < node.array.length; i += 2) {
+      Object key = node.array[i];
+      if (key == null) {
+        collect((Node) node.array[i + 1], result);
+      } else {
+        result.add(Maps.immutableEntry(key, node.array[i + 1]));
+      }
+    }
+  }
+
+  private static final class Node {
+    private final int bitmap;
+    private final Object[] array;
+
+    Node(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    Node with(int index, @Nullable Object key, @Nullable Object value) {
+      Object[] copy = array.clone();
+      copy[index] = key;
+      copy[index + 1] = value;
+      return new Node(bitmap, copy);
+    }
+  }
+
+}
@@ -22,14 +22,13 @@ package org.sonar.java.symexec;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
+import org.sonar.java.collections.PersistentMap;
 
 import javax.annotation.Nullable;
 
 import java.util.Map;
-import java.util.Set;
 
 import static org.sonar.java.symexec.SymbolicBooleanConstraint.FALSE;
 import static org.sonar.java.symexec.SymbolicBooleanConstraint.TRUE;
@@ -105,43 +104,64 @@ public class ExecutionState {
     RELATION_RELATION_MAP.put(UNKNOWN, UNKNOWN, SymbolicBooleanConstraint.UNKNOWN);
   }
 
+  private static final SymbolicBooleanConstraint[][] EVALUATIONS = new SymbolicBooleanConstraint[SymbolicRelation.values().length][];
+
+  static {
+    for (SymbolicRelation known : SymbolicRelation.values()) {
+      EVALUATIONS[known.ordinal()] = new SymbolicBooleanConstraint[SymbolicRelation.values().length];
+      for (SymbolicRelation evaluated : SymbolicRelation.values()) {
+        EVALUATIONS[known.ordinal()][evaluated.ordinal()] = RELATION_RELATION_MAP.get(known, evaluated);
+      }
+    }
+  }
+
   @Nullable
   @VisibleForTesting
   final ExecutionState parentState;
+  /**
+   * Relations set in this state.
+   */
   @VisibleForTesting
-  final Table<SymbolicValue, SymbolicValue, SymbolicRelation> relations;
+  RelationTable relations = RelationTable.EMPTY;
+  /**
+   * Relations visible from this state: the view of {@link #parentState} when this state was created, overridden by
+   * {@link #relations}. Tables are immutable, so sharing the parent view costs nothing and later updates of the parent are not seen.
+   */
+  private RelationTable view;
 
   public ExecutionState() {
     this.parentState = null;
-    this.relations = HashBasedTable.create();
+    this.view = RelationTable.EMPTY;
   }
 
   ExecutionState(ExecutionState parentState) {
     this.parentState = parentState;
-    this.relations = HashBasedTable.create();
+    this.view = parentState.view;
   }
 
   @VisibleForTesting
   SymbolicRelation getRelation(SymbolicValue leftValue, SymbolicValue rightValue) {
-    SymbolicRelation result = relations.get(leftValue, rightValue);
-    if(result != null) {
-      return result;
-    }
-    return parentState != null ? parentState.getRelation(leftValue, rightValue) : UNKNOWN;
+    SymbolicRelation result = view.get(leftValue, rightValue);
+    return result != null ? result : UNKNOWN;
   }
 
   SymbolicBooleanConstraint evaluateRelation(SymbolicValue leftValue, SymbolicRelation relation, SymbolicValue rightValue) {
-    return RELATION_RELATION_MAP.get(getRelation(leftValue, rightValue), relation);
+    return EVALUATIONS[getRelation(leftValue, rightValue).ordinal()][relation.ordinal()];
   }
 
   ExecutionState setRelation(SymbolicValue leftValue, SymbolicRelation relation, SymbolicValue rightValue) {
     if (!leftValue.equals(rightValue)) {
-      relations.put(leftValue, rightValue, relation);
-      relations.put(rightValue, leftValue, relation.swap());
+      putRelation(leftValue, relation, rightValue);
     }
     return this;
   }
 
+  private void putRelation(SymbolicValue leftValue, SymbolicRelation relation, SymbolicValue rightValue) {
+    SymbolicRelation swapped = relation.swap();
+    relations = relations.put(leftValue, rightValue, relation).put(rightValue, leftValue, swapped);
+    view = view.put(leftValue, rightValue, relation).put(rightValue, leftValue, swapped);
+  }
+
   void mergeRelations(Iterable<ExecutionState> states) {
     for (Map.Entry<SymbolicValue, SymbolicValue> entry : findRelatedValues(states).entries()) {
       SymbolicRelation relation = null;
@@ -152,8 +172,7 @@ public class ExecutionState {
         relation = SymbolicRelation.UNKNOWN;
       }
       if (getRelation(entry.getKey(), entry.getValue()) != relation) {
-        relations.put(entry.getKey(), entry.getValue(), relation);
-        relations.put(entry.getValue(), entry.getKey(), relation.swap());
+        putRelation(entry.getKey(), relation, entry.getValue());
       }
     }
   }
@@ -162,8 +181,10 @@ public class ExecutionState {
     Multimap<SymbolicValue, SymbolicValue> result = HashMultimap.create();
     for (ExecutionState state : states) {
       for (ExecutionState current = state; !current.equals(this); current = current.parentState) {
-        for (Map.Entry<SymbolicValue, Map<SymbolicValue, SymbolicRelation>> leftEntry : current.relations.rowMap().entrySet()) {
-          result.putAll(leftEntry.getKey(), leftEntry.getValue().keySet());
+        for (Map.Entry<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>> row : current.relations.rows()) {
+          for (Map.Entry<SymbolicValue, SymbolicRelation> entry : row.getValue().entries()) {
+            result.put(row.getKey(), entry.getKey());
+          }
         }
       }
     }
@@ -197,27 +218,16 @@ public class ExecutionState {
   }
 
   void invalidateRelationsOnValue(SymbolicValue value) {
-    Multimap<SymbolicValue, SymbolicValue> pairs = HashMultimap.create();
-    for (ExecutionState current = this; current != null; current = current.parentState) {
-      pairs.putAll(value, current.findRelatedValues(value));
-    }
-    for (Map.Entry<SymbolicValue, SymbolicValue> entry : pairs.entries()) {
-      setRelation(entry.getKey(), SymbolicRelation.UNKNOWN, entry.getValue());
+    for (Map.Entry<SymbolicValue, SymbolicRelation> entry : view.row(value)) {
+      setRelation(value, SymbolicRelation.UNKNOWN, entry.getKey());
     }
   }
 
-  private Set<SymbolicValue> findRelatedValues(SymbolicValue value) {
-    Map<SymbolicValue, SymbolicRelation> map = relations.rowMap().get(value);
-    return map != null ? map.keySet() : ImmutableSet.<SymbolicValue>of();
-  }
-
   void invalidateFields() {
-    for (ExecutionState state = this; state != null; state = state.parentState) {
-      for (Map.Entry<SymbolicValue, Map<SymbolicValue, SymbolicRelation>> entry : state.relations.rowMap().entrySet()) {
-        if (isField(entry.getKey())) {
-          for (SymbolicValue other : entry.getValue().keySet()) {
-            setRelation(entry.getKey(), SymbolicRelation.UNKNOWN, other);
-          }
+    for (Map.Entry<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>> row : view.rows()) {
+      if (isField(row.getKey())) {
+        for (Map.Entry<SymbolicValue, SymbolicRelation> entry : row.getValue().entries()) {
+          setRelation(row.getKey(), SymbolicRelation.UNKNOWN, entry.getKey());
         }
       }
     }
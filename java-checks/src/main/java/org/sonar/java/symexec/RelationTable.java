@@ -0,0 +1,79 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.symexec;
+
+import org.sonar.java.collections.PersistentMap;
+
+import javax.annotation.CheckForNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of relations between symbolic values, indexed by left value then right value.
+ */
+final class RelationTable {
+
+  static final RelationTable EMPTY = new RelationTable(PersistentMap.<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>>empty(), 0);
+
+  private final PersistentMap<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>> rows;
+  private final int size;
+
+  private RelationTable(PersistentMap<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>> rows, int size) {
+    this.rows = rows;
+    this.size = size;
+  }
+
+  @CheckForNull
+  SymbolicRelation get(SymbolicValue leftValue, SymbolicValue rightValue) {
+    PersistentMap<SymbolicValue, SymbolicRelation> row = rows.get(leftValue);
+    return row != null ? row.get(rightValue) : null;
+  }
+
+  RelationTable put(SymbolicValue leftValue, SymbolicValue rightValue, SymbolicRelation relation) {
+    PersistentMap<SymbolicValue, SymbolicRelation> row = rows.get(leftValue);
+    if (row == null) {
+      row = PersistentMap.empty();
+    }
+    PersistentMap<SymbolicValue, SymbolicRelation> newRow = row.put(rightValue, relation);
+    if (newRow == row) {
+      return this;
+    }
+    return new RelationTable(rows.put(leftValue, newRow), size + newRow.size() - row.size());
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  List<Map.Entry<SymbolicValue, PersistentMap<SymbolicValue, SymbolicRelation>>> rows() {
+    return rows.entries();
+  }
+
+  List<Map.Entry<SymbolicValue, SymbolicRelation>> row(SymbolicValue leftValue) {
+    PersistentMap<SymbolicValue, SymbolicRelation> row = rows.get(leftValue);
+    return row != null ? row.entries() : PersistentMap.<SymbolicValue, SymbolicRelation>empty().entries();
+  }
+
+}
@@ -22,6 +22,7 @@ package org.sonar.java.symexec;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import org.apache.log4j.Logger;
+import org.sonar.java.TimeBudget;
 import org.sonar.java.model.JavaTree;
 import org.sonar.java.model.LiteralUtils;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
@@ -118,6 +119,7 @@ public class SymbolicEvaluator {
   }
 
   ExecutionState instantiateExecutionState(ExecutionState parentState) {
+    TimeBudget.checkpoint();
     if (currentExecutionStateCount >= MAXIMAL_EXECUTION_STATE_COUNT) {
       throw new SymbolicExecutionException("maximal number of execution states reached");
     }
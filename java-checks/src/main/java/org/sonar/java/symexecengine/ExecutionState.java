@@ -19,16 +19,17 @@
  */
 package org.sonar.java.symexecengine;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import org.sonar.java.collections.PersistentMap;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import java.util.List;
 import java.util.Map;
@@ -37,18 +38,21 @@ import java.util.Set;
 public class ExecutionState {
 
   final ExecutionState parent;
-  private SetMultimap<Symbol, SymbolicValue> reachableValues = HashMultimap.create();
-  private SetMultimap<Symbol, SymbolicValue> unreachableValues = HashMultimap.create();
   /**
-   * List of symbol that were declared within this execution state.
+   * Values of each symbol. Maps are persistent: a nested state starts from the maps of its parent and only pays for what it changes.
    */
-  private List<Symbol> definedInState = Lists.newArrayList();
+  private PersistentMap<Symbol, Set<SymbolicValue>> reachableValues = PersistentMap.empty();
+  private PersistentMap<Symbol, Set<SymbolicValue>> unreachableValues = PersistentMap.empty();
+  /**
+   * Symbols that were declared within this execution state.
+   */
+  private Set<Symbol> definedInState = Sets.newHashSet();
   private Map<SymbolicValue, State> stateOfValue = Maps.newHashMap();
 
   public ExecutionState(ExecutionState executionState) {
     this.parent = executionState;
-    this.reachableValues = HashMultimap.create(executionState.reachableValues);
-    this.unreachableValues = HashMultimap.create(executionState.unreachableValues);
+    this.reachableValues = executionState.reachableValues;
+    this.unreachableValues = executionState.unreachableValues;
   }
 
   /**
@@ -63,21 +67,26 @@ public class ExecutionState {
   }
 
   public ExecutionState merge(ExecutionState executionState) {
-    for (Symbol symbol : executionState.reachableValues.keys()) {
-      if (!executionState.definedInState.contains(symbol)) {
-        this.reachableValues.putAll(symbol, executionState.reachableValues.get(symbol));
+    Set<Symbol> mergedSymbols = Sets.newHashSet();
+    for (Map.Entry<Symbol, Set<SymbolicValue>> entry : executionState.reachableValues.entriesChangedFrom(reachableValues)) {
+      if (!executionState.definedInState.contains(entry.getKey())) {
+        reachableValues = reachableValues.put(entry.getKey(), union(reachableValues.get(entry.getKey()), entry.getValue()));
+        mergedSymbols.add(entry.getKey());
       }
     }
-    for (Symbol symbol : executionState.unreachableValues.keys()) {
-      if (!executionState.definedInState.contains(symbol)) {
-        this.unreachableValues.putAll(symbol, executionState.unreachableValues.get(symbol));
+    for (Map.Entry<Symbol, Set<SymbolicValue>> entry : executionState.unreachableValues.entriesChangedFrom(unreachableValues)) {
+      if (!executionState.definedInState.contains(entry.getKey())) {
+        unreachableValues = unreachableValues.put(entry.getKey(), union(unreachableValues.get(entry.getKey()), entry.getValue()));
+        mergedSymbols.add(entry.getKey());
       }
     }
 
-    for (Symbol symbol : unreachableValues.keys()) {
+    for (Symbol symbol : mergedSymbols) {
       // cleanup after merge of reachable/unreachable values
-      for (SymbolicValue value : unreachableValues.get(symbol)) {
-        reachableValues.remove(symbol, value);
+      Set<SymbolicValue> reachable = reachableValues.get(symbol);
+      Set<SymbolicValue> unreachable = unreachableValues.get(symbol);
+      if (reachable != null && unreachable != null && !Sets.intersection(reachable, unreachable).isEmpty()) {
+        reachableValues = reachableValues.put(symbol, ImmutableSet.copyOf(Sets.difference(reachable, unreachable)));
       }
     }
     // Merge states of values
@@ -95,8 +104,17 @@ public class ExecutionState {
     return this;
   }
 
+  private static Set<SymbolicValue> union(@Nullable Set<SymbolicValue> values, Set<SymbolicValue> others) {
+    if (values == null || values.containsAll(others)) {
+      return values == null ? others : values;
+    }
+    return ImmutableSet.<SymbolicValue>builder().addAll(values).addAll(others).build();
+  }
+
   public ExecutionState overrideBy(ExecutionState executionState) {
-    this.unreachableValues.putAll(executionState.unreachableValues);
+    for (Map.Entry<Symbol, Set<SymbolicValue>> entry : executionState.unreachableValues.entriesChangedFrom(unreachableValues)) {
+      unreachableValues = unreachableValues.put(entry.getKey(), union(unreachableValues.get(entry.getKey()), entry.getValue()));
+    }
     this.reachableValues = executionState.reachableValues;
     this.stateOfValue.putAll(executionState.stateOfValue);
     return this;
@@ -109,7 +127,7 @@ public class ExecutionState {
   Set<State> getStatesOfCurrentExecutionState() {
     Set<State> results = Sets.newHashSet();
     for (Symbol symbol : definedInState) {
-      for (SymbolicValue value : Iterables.concat(reachableValues.get(symbol), unreachableValues.get(symbol))) {
+      for (SymbolicValue value : Iterables.concat(getValues(symbol), valuesOf(unreachableValues, symbol))) {
         State state = stateOfValue.get(value);
         if (state != null) {
           results.add(state);
@@ -122,7 +140,7 @@ public class ExecutionState {
   // FIXME : Hideous hack for closeable to get "Ignored" variables
   public List<State> getStatesOf(Symbol symbol) {
     List<State> states = Lists.newArrayList();
-    for (SymbolicValue value : Iterables.concat(reachableValues.get(symbol), unreachableValues.get(symbol))) {
+    for (SymbolicValue value : Iterables.concat(getValues(symbol), valuesOf(unreachableValues, symbol))) {
       State state = stateOfValue.get(value);
       if (state != null) {
         states.add(state);
@@ -145,16 +163,22 @@ public class ExecutionState {
   }
 
   Iterable<SymbolicValue> getValues(Symbol symbol) {
-    return reachableValues.get(symbol);
+    return valuesOf(reachableValues, symbol);
+  }
+
+  private static Set<SymbolicValue> valuesOf(PersistentMap<Symbol, Set<SymbolicValue>> values, Symbol symbol) {
+    Set<SymbolicValue> result = values.get(symbol);
+    return result != null ? result : ImmutableSet.<SymbolicValue>of();
   }
 
   public SymbolicValue createValueForSymbol(Symbol symbol, Tree tree) {
     // When creating a new value, all reachable values are now unreachable.
-    Set<SymbolicValue> values = this.reachableValues.get(symbol);
-    unreachableValues.putAll(symbol, values);
-    values.clear();
+    Set<SymbolicValue> values = reachableValues.get(symbol);
+    if (values != null && !values.isEmpty()) {
+      unreachableValues = unreachableValues.put(symbol, union(unreachableValues.get(symbol), values));
+    }
     SymbolicValue value = new SymbolicValue(tree);
-    reachableValues.put(symbol, value);
+    reachableValues = reachableValues.put(symbol, ImmutableSet.of(value));
     stateOfValue.put(value, State.UNSET);
     return value;
   }
@@ -0,0 +1,125 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.helpers;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.sonar.sslr.api.typed.ActionParser;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.model.JavaTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CommentAndLiteralIndexTest {
+
+  private final ActionParser<Tree> p = JavaParser.createParser(Charsets.UTF_8);
+
+  @Test
+  public void comments_and_string_literals_in_file_order() {
+    Tree tree = p.parse("/* header */ class A {\n"
+      + "  // first\n"
+      + "  String s = \"a\" + 'b' + \"c\"; /* second */\n"
+      + "  int i = 1; // third\n"
+      + "}\n");
+    CommentAndLiteralIndex index = CommentAndLiteralIndex.of(tree);
+
+    assertThat(index.comments()).hasSize(4);
+    assertThat(comment(index, 0)).isEqualTo("/* header */");
+    assertThat(comment(index, 3)).isEqualTo("// third");
+    assertThat(index.stringLiterals()).hasSize(2);
+    assertThat(index.stringLiterals().get(0).value()).isEqualTo("\"a\"");
+    assertThat(index.stringLiterals().get(1).value()).isEqualTo("\"c\"");
+  }
+
+  @Test
+  public void index_is_shared_for_the_same_tree() {
+    Tree tree = p.parse("class A {}");
+    CommentAndLiteralIndex index = CommentAndLiteralIndex.of(tree);
+    assertThat(CommentAndLiteralIndex.of(tree)).isSameAs(index);
+    assertThat(CommentAndLiteralIndex.of(p.parse("class A {}"))).isNotSameAs(index);
+  }
+
+  @Test
+  public void index_is_dropped_once_the_file_is_analyzed() {
+    JavaTree.CompilationUnitTreeImpl tree = (JavaTree.CompilationUnitTreeImpl) p.parse("class A {}");
+    CommentAndLiteralIndex index = CommentAndLiteralIndex.of(tree);
+    assertThat(tree.fileData(CommentAndLiteralIndex.class)).isSameAs(index);
+    tree.clearFileData();
+    assertThat(tree.fileData(CommentAndLiteralIndex.class)).isNull();
+    assertThat(CommentAndLiteralIndex.of(tree)).isNotSameAs(index);
+  }
+
+  @Test
+  public void index_of_other_trees_is_not_shared() {
+    Tree classTree = ((CompilationUnitTree) p.parse("class A {}")).types().get(0);
+    assertThat(CommentAndLiteralIndex.of(classTree)).isNotSameAs(CommentAndLiteralIndex.of(classTree));
+  }
+
+  @Test
+  public void index_does_not_retain_its_tree() {
+    Tree tree = p.parse("class A {\n  // comment\n  String s = \"a\";\n}\n");
+    assertThat(CommentAndLiteralIndex.of(tree).comments()).hasSize(1);
+    WeakReference<Tree> reference = new WeakReference<>(tree);
+    tree = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+    }
+    assertThat(reference.get()).isNull();
+  }
+
+  @Test
+  public void lines_with_tag() {
+    Tree tree = p.parse("class A {\n"
+      + "  // TODO first\n"
+      + "  /* todo\n"
+      + "   * FIXME and TODO again, mastodon\n"
+      + "   * mastodon then TODO\n"
+      + "   */\n"
+      + "  // TODO: FIXME\n"
+      + "  // custom tag\n"
+      + "}\n");
+    CommentAndLiteralIndex index = CommentAndLiteralIndex.of(tree);
+
+    assertThat(index.linesWithTag("TODO")).containsExactly(2, 3, 4, 7);
+    assertThat(index.linesWithTag("FIXME")).containsExactly(4, 7);
+    assertThat(index.linesWithTag("NOSONAR")).isEmpty();
+    assertThat(index.linesWithTag("custom")).containsExactly(8);
+  }
+
+  @Test
+  public void lines_as_split_on_line_terminators() {
+    for (String comment : ImmutableList.of("", "a", "a\nb", "a\r\nb\rc", "\na", "a\n\n", "\n", "\r\n\r\n", "a\r\rb\n\r", "a\n\r\nb")) {
+      assertThat(CommentAndLiteralIndex.lines(comment)).as(comment).isEqualTo(Arrays.asList(comment.split("\r\n?|\n")));
+    }
+  }
+
+  private static String comment(CommentAndLiteralIndex index, int i) {
+    SyntaxTrivia syntaxTrivia = index.comments().get(i);
+    return syntaxTrivia.comment();
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.helpers;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MultiPatternMatcherTest {
+
+  @Test
+  public void first_occurrences_of_each_pattern() {
+    MultiPatternMatcher matcher = MultiPatternMatcher.caseSensitive(ImmutableList.of("he", "she", "his", "hers"));
+    assertThat(matcher.firstOccurrences("ushers")).isEqualTo(new int[] {2, 1, -1, 2});
+    assertThat(matcher.firstOccurrences("this is his")).isEqualTo(new int[] {-1, -1, 1, -1});
+    assertThat(matcher.firstOccurrences("")).isEqualTo(new int[] {-1, -1, -1, -1});
+    assertThat(matcher.containsAny("ushers")).isTrue();
+    assertThat(matcher.containsAny("HERS")).isFalse();
+  }
+
+  @Test
+  public void pattern_contained_in_another_one() {
+    MultiPatternMatcher matcher = MultiPatternMatcher.caseSensitive(ImmutableList.of("List", "ArrayList", "st"));
+    assertThat(matcher.firstOccurrences("new ArrayList<>()")).isEqualTo(new int[] {9, 4, 11});
+    assertThat(matcher.firstOccurrences("aaArrayLisArrayList")).isEqualTo(new int[] {15, 10, 17});
+  }
+
+  @Test
+  public void ignoring_case() {
+    MultiPatternMatcher matcher = MultiPatternMatcher.ignoringCase(ImmutableList.of("TODO", "FIXME", "CHECKSTYLE:OFF"));
+    assertThat(matcher.firstOccurrences("// todo: Fixme, checkstyle:off")).isEqualTo(new int[] {3, 9, 16});
+    // same matches as String.regionMatches: dotless i and the Kelvin sign have ASCII case variants
+    String text = "f\u0131xme chec\u212Astyle:off";
+    assertThat(text.regionMatches(true, 0, "FIXME", 0, 5)).isTrue();
+    assertThat(matcher.firstOccurrences(text)).isEqualTo(new int[] {-1, 0, 6});
+    assertThat(MultiPatternMatcher.caseSensitive(ImmutableList.of("TODO")).containsAny("todo")).isFalse();
+  }
+
+  @Test
+  public void same_results_as_index_of() {
+    Random random = new Random(42);
+    ImmutableList<String> patterns = ImmutableList.of("ab", "abc", "bca", "c", "aab", "cab");
+    MultiPatternMatcher matcher = MultiPatternMatcher.caseSensitive(patterns);
+    for (int n = 0; n < 1000; n++) {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int i = 0; i < length; i++) {
+        text.append((char) ('a' + random.nextInt(4)));
+      }
+      int[] occurrences = matcher.firstOccurrences(text);
+      boolean any = false;
+      for (int p = 0; p < patterns.size(); p++) {
+        int expected = text.indexOf(patterns.get(p));
+        assertThat(occurrences[p]).as(text + " / " + patterns.get(p)).isEqualTo(expected);
+        any |= expected >= 0;
+      }
+      assertThat(matcher.containsAny(text)).isEqualTo(any);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void empty_pattern_is_rejected() {
+    MultiPatternMatcher.caseSensitive(ImmutableList.of("a", ""));
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.collections;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PersistentMapTest {
+
+  @Test
+  public void put_and_get() {
+    PersistentMap<Integer, String> empty = PersistentMap.empty();
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(empty.get(1)).isNull();
+
+    PersistentMap<Integer, String> map = empty;
+    for (int i = 0; i < 5000; i++) {
+      map = map.put(i * 31, "v" + i);
+    }
+    assertThat(map.size()).isEqualTo(5000);
+    assertThat(map.entries()).hasSize(5000);
+    for (int i = 0; i < 5000; i++) {
+      assertThat(map.get(i * 31)).isEqualTo("v" + i);
+    }
+    assertThat(map.get(-1)).isNull();
+    assertThat(empty.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void put_is_persistent() {
+    PersistentMap<String, String> map = PersistentMap.<String, String>empty().put("a", "1").put("b", "2");
+    PersistentMap<String, String> updated = map.put("a", "3");
+    assertThat(map.get("a")).isEqualTo("1");
+    assertThat(updated.get("a")).isEqualTo("3");
+    assertThat(updated.get("b")).isEqualTo("2");
+    assertThat(updated.size()).isEqualTo(2);
+
+    String value = "2";
+    assertThat(map.put("b", value)).isSameAs(map);
+  }
+
+  @Test
+  public void colliding_hashes() {
+    PersistentMap<Key, Integer> map = PersistentMap.empty();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      Key key = new Key(i, i % 3);
+      map = map.put(key, i);
+      expected.put(key, i);
+    }
+    Key first = new Key(0, 0);
+    PersistentMap<Key, Integer> updated = map.put(first, -1);
+    assertThat(map.size()).isEqualTo(100);
+    assertThat(updated.size()).isEqualTo(100);
+    assertThat(updated.get(first)).isEqualTo(-1);
+    assertThat(map.get(first)).isEqualTo(0);
+    for (Map.Entry<Key, Integer> entry : map.entries()) {
+      assertThat(entry.getValue()).isEqualTo(expected.get(entry.getKey()));
+    }
+    assertThat(map.get(new Key(100, 1))).isNull();
+  }
+
+  @Test
+  public void entries_changed_from_base() {
+    PersistentMap<Key, String> base = PersistentMap.empty();
+    for (int i = 0; i < 200; i++) {
+      base = base.put(new Key(i, i % 50), "v" + i);
+    }
+    assertThat(base.entriesChangedFrom(base)).isEmpty();
+
+    PersistentMap<Key, String> derived = base.put(new Key(3, 3), "changed").put(new Key(500, 7), "added").put(new Key(1000, 1000), "other");
+    Map<Key, String> changes = new HashMap<>();
+    for (Map.Entry<Key, String> entry : derived.entriesChangedFrom(base)) {
+      changes.put(entry.getKey(), entry.getValue());
+    }
+    assertThat(changes).hasSize(3);
+    assertThat(changes.get(new Key(3, 3))).isEqualTo("changed");
+    assertThat(changes.get(new Key(500, 7))).isEqualTo("added");
+    assertThat(changes.get(new Key(1000, 1000))).isEqualTo("other");
+
+    assertThat(base.entriesChangedFrom(PersistentMap.<Key, String>empty())).hasSize(200);
+    assertThat(PersistentMap.<Key, String>empty().entriesChangedFrom(base)).isEmpty();
+    // only the entry overwritten in derived differs when looking the other way round
+    assertThat(base.entriesChangedFrom(derived)).hasSize(1);
+
+    // an entry of the base pushed down into a sub node of the derived map
+    PersistentMap<Key, String> single = PersistentMap.<Key, String>empty().put(new Key(1, 1), "one");
+    PersistentMap<Key, String> split = single.put(new Key(2, 33), "two");
+    assertThat(split.entriesChangedFrom(single)).hasSize(1);
+    assertThat(split.entriesChangedFrom(single).get(0).getValue()).isEqualTo("two");
+    assertThat(single.entriesChangedFrom(split)).isEmpty();
+  }
+
+  private static final class Key {
+    private final int id;
+    private final int hash;
+
+    Key(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && ((Key) obj).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+}
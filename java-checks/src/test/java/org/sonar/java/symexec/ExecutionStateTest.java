@@ -179,17 +179,17 @@ public class ExecutionStateTest {
     SymbolicValue symbol11 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
     SymbolicValue symbol12 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
 
+    // relations of the ancestors are set before the states are created, see test_relations_of_ancestors_are_seen_as_at_creation.
     ExecutionState parentState = new ExecutionState();
+    parentState.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
     ExecutionState state = new ExecutionState(parentState);
     ExecutionState childState1 = new ExecutionState(state);
+    childState1.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
     ExecutionState childState21 = new ExecutionState(state);
+    childState21.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
     ExecutionState childState22 = new ExecutionState(new ExecutionState(childState21));
     ExecutionState childState31 = new ExecutionState(state);
     ExecutionState childState32 = new ExecutionState(new ExecutionState(childState31));
-
-    parentState.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
-    childState1.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
-    childState21.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
     childState32.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
     state.mergeRelations(ImmutableList.of(childState1, childState22, childState32));
     assertThat(state.relations.get(symbol11, symbol12)).isNull();
@@ -198,14 +198,45 @@ public class ExecutionStateTest {
     assertThat(state.getRelation(symbol12, symbol11)).isEqualTo(SymbolicRelation.LESS_THAN);
 
     parentState.setRelation(symbol11, SymbolicRelation.UNKNOWN, symbol12);
+    state = new ExecutionState(parentState);
+    childState1 = new ExecutionState(state);
     childState1.setRelation(symbol11, SymbolicRelation.LESS_THAN, symbol12);
+    childState21 = new ExecutionState(state);
     childState21.setRelation(symbol11, SymbolicRelation.LESS_EQUAL, symbol12);
+    childState22 = new ExecutionState(new ExecutionState(childState21));
+    childState31 = new ExecutionState(state);
+    childState32 = new ExecutionState(new ExecutionState(childState31));
     childState32.setRelation(symbol11, SymbolicRelation.LESS_EQUAL, symbol12);
     state.mergeRelations(ImmutableList.of(childState1, childState22, childState32));
     assertThat(state.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.LESS_EQUAL);
     assertThat(state.getRelation(symbol12, symbol11)).isEqualTo(SymbolicRelation.GREATER_EQUAL);
   }
 
+  @Test
+  public void test_relations_of_ancestors_are_seen_as_at_creation() {
+    SymbolicValue symbol11 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
+    SymbolicValue symbol12 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
+
+    ExecutionState parentState = new ExecutionState();
+    parentState.setRelation(symbol11, SymbolicRelation.GREATER_THAN, symbol12);
+    ExecutionState state = new ExecutionState(parentState);
+    ExecutionState childState = new ExecutionState(state);
+    assertThat(childState.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.GREATER_THAN);
+
+    parentState.setRelation(symbol11, SymbolicRelation.LESS_THAN, symbol12);
+    assertThat(state.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.GREATER_THAN);
+    assertThat(childState.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.GREATER_THAN);
+    assertThat(new ExecutionState(parentState).getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.LESS_THAN);
+
+    childState.setRelation(symbol11, SymbolicRelation.EQUAL_TO, symbol12);
+    assertThat(state.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.GREATER_THAN);
+    assertThat(parentState.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.LESS_THAN);
+
+    state.mergeRelations(ImmutableList.of(childState));
+    assertThat(state.getRelation(symbol11, symbol12)).isEqualTo(SymbolicRelation.EQUAL_TO);
+    assertThat(state.getRelation(symbol12, symbol11)).isEqualTo(SymbolicRelation.EQUAL_TO);
+  }
+
   private Symbol.VariableSymbol mockLocalVariable() {
     Symbol.TypeSymbol methodSymbol = mock(Symbol.TypeSymbol.class);
     when(methodSymbol.isMethodSymbol()).thenReturn(true);
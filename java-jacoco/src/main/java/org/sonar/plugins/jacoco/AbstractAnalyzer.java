@@ -42,6 +42,7 @@ import org.sonar.api.test.MutableTestPlan;
 import org.sonar.api.test.MutableTestable;
 import org.sonar.api.test.Testable;
 import org.sonar.java.JavaClasspath;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 
 import java.io.File;
@@ -100,8 +101,12 @@ public abstract class AbstractAnalyzer {
 
   public final void analyse(Project project, SensorContext context) {
     classFilesCache = Maps.newHashMap();
+    ClassFileInventory inventory = javaClasspath.getClassFileInventory();
     for (File classesDir : javaClasspath.getBinaryDirs()) {
-      populateClassFilesCache(classesDir, "");
+      // a class file of a later directory replaces the one of an earlier directory
+      for (Map.Entry<String, ClassFileInventory.ClassFile> entry : inventory.classFiles(classesDir).entrySet()) {
+        classFilesCache.put(entry.getKey(), entry.getValue().file());
+      }
     }
 
     if (classFilesCache.isEmpty()) {
@@ -116,21 +121,6 @@ public abstract class AbstractAnalyzer {
     classFilesCache = null;
   }
 
-  private void populateClassFilesCache(File dir, String path) {
-    File[] files = dir.listFiles();
-    if (files == null) {
-      return;
-    }
-    for (File file : files) {
-      if (file.isDirectory()) {
-        populateClassFilesCache(file, path + file.getName() + "/");
-      } else if (file.getName().endsWith(".class")) {
-        String className = path + StringUtils.removeEnd(file.getName(), ".class");
-        classFilesCache.put(className, file);
-      }
-    }
-  }
-
   private void readExecutionData(File jacocoExecutionData, SensorContext context) {
     if (jacocoExecutionData == null || !jacocoExecutionData.isFile()) {
       JaCoCoExtensions.LOG.info("Project coverage is set to 0% as no JaCoCo execution data has been dumped: {}", jacocoExecutionData);
@@ -34,6 +34,7 @@ import org.sonar.api.scan.filesystem.ModuleFileSystem;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.test.IsMeasure;
 import org.sonar.java.JavaClasspath;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 import org.sonar.test.TestUtils;
 
@@ -104,6 +105,7 @@ public class JaCoCoItSensorTest {
     Project project = mock(Project.class);
     when(context.getResource(any(Resource.class))).thenReturn(resource);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
     when(pathResolver.relativeFile(any(File.class), any(String.class))).thenReturn(jacocoExecutionData);
 
     sensor.analyse(project, context);
@@ -125,6 +127,7 @@ public class JaCoCoItSensorTest {
     Project project = mock(Project.class);
     when(context.getResource(any(Resource.class))).thenReturn(null);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
 
     sensor.analyse(project, context);
 
@@ -41,6 +41,7 @@ import org.sonar.api.test.MutableTestCase;
 import org.sonar.api.test.MutableTestPlan;
 import org.sonar.api.test.MutableTestable;
 import org.sonar.java.JavaClasspath;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 import org.sonar.test.TestUtils;
 
@@ -122,6 +123,8 @@ public class JaCoCoSensorTest {
     when(context.getResource(any(Resource.class))).thenReturn(resource);
 
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
     when(pathResolver.relativeFile(any(File.class), any(String.class))).thenReturn(jacocoExecutionData);
 
     sensor.analyse(project, context);
@@ -147,6 +150,7 @@ public class JaCoCoSensorTest {
     org.sonar.api.resources.File resource = mock(org.sonar.api.resources.File.class);
     when(context.getResource(any(Resource.class))).thenReturn(resource);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
     when(pathResolver.relativeFile(any(File.class), any(String.class))).thenReturn(jacocoExecutionData);
 
     MutableTestable testAbleFile = mock(MutableTestable.class);
@@ -191,6 +195,7 @@ public class JaCoCoSensorTest {
     org.sonar.api.resources.File resource = mock(org.sonar.api.resources.File.class);
     when(context.getResource(any(Resource.class))).thenReturn(resource);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
     when(pathResolver.relativeFile(any(File.class), any(String.class))).thenReturn(jacocoExecutionData);
 
     MutableTestable testAbleFile = mock(MutableTestable.class);
@@ -220,6 +225,7 @@ public class JaCoCoSensorTest {
     org.sonar.api.resources.File resource = mock(org.sonar.api.resources.File.class);
     when(context.getResource(any(Resource.class))).thenReturn(resource);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
     when(pathResolver.relativeFile(any(File.class), any(String.class))).thenReturn(new File("foo"));
     assertThat(sensor_force_coverage.shouldExecuteOnProject(project)).isTrue();
     sensor_force_coverage.analyse(project, context);
@@ -255,6 +261,7 @@ public class JaCoCoSensorTest {
   public void do_not_save_measure_on_resource_which_doesnt_exist_in_the_context() {
     when(context.getResource(any(Resource.class))).thenReturn(null);
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(outputDir));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(outputDir)));
 
     sensor.analyse(project, context);
 
@@ -264,6 +271,7 @@ public class JaCoCoSensorTest {
   @Test
   public void should_do_nothing_if_output_dir_does_not_exists() {
     when(javaClasspath.getBinaryDirs()).thenReturn(ImmutableList.of(new File("nowhere")));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(ImmutableList.of(new File("nowhere"))));
 
     sensor.analyse(project, context);
 
@@ -39,6 +39,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.WildcardPattern;
+import org.sonar.java.bytecode.ClassFileInventory;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -61,6 +62,7 @@ public abstract class AbstractJavaClasspath implements BatchExtension {
   protected List<File> elements;
   protected boolean validateLibraries;
   protected boolean initialized;
+  private ClassFileInventory classFileInventory;
 
   public AbstractJavaClasspath(Project project, Settings settings, FileSystem fs, InputFile.Type fileType) {
     this.project = project;
@@ -176,6 +178,16 @@ public abstract class AbstractJavaClasspath implements BatchExtension {
     return binaries;
   }
 
+  /**
+   * @return class files of the binary directories, listed on first call and then shared by all the analyzers of the module
+   */
+  public ClassFileInventory getClassFileInventory() {
+    if (classFileInventory == null) {
+      classFileInventory = ClassFileInventory.create(getBinaryDirs());
+    }
+    return classFileInventory;
+  }
+
   private static class WilcardPatternFileFilter implements IOFileFilter {
     private File baseDir;
     private WildcardPattern wildcardPattern;
@@ -0,0 +1,346 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, per analysis phase (parsing, semantic model, symbol table) and per {@link org.sonar.plugins.java.api.JavaFileScanner},
+ * the cumulative wall time, the number of invocations, the slowest file and optionally the allocated bytes.
+ * <p>
+ * A phase is measured between {@link #begin()} and {@link #end(String)} of the same thread: phases are not expected to be nested on
+ * a thread. Scanners run in parallel are measured on their own thread and recorded with {@link #add(String, long)}; the counters are
+ * guarded by the profiler, which can be shared by all the threads of an analysis. When the profiler is disabled, these methods return
+ * immediately.
+ */
+public class AnalysisProfiler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisProfiler.class);
+
+  public static final String PARSE = "parse";
+  public static final String SEMANTIC = "semantic";
+  public static final String SYMBOL_TABLE = "symbol table";
+  public static final String HIGHLIGHTING = "highlighting";
+
+  private static final int PHASES_IN_SLOW_FILE_LOG = 5;
+
+  private final boolean enabled;
+  private final long slowFileThresholdNanos;
+  @Nullable
+  private final ThreadMXBean threadMXBean;
+  @Nullable
+  private final Method threadAllocatedBytes;
+
+  private final Map<String, PhaseStatistics> statistics = Maps.newHashMap();
+  private final Map<String, Long> currentFileNanos = Maps.newHashMap();
+  private File currentFile;
+  private long fileStart;
+  /**
+   * Start time and allocated bytes of the phase being measured by each thread.
+   */
+  private final ThreadLocal<long[]> phaseStart = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      return new long[2];
+    }
+  };
+
+  private AnalysisProfiler(boolean enabled, boolean measureAllocations, long slowFileThresholdMillis) {
+    this.enabled = enabled;
+    this.slowFileThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowFileThresholdMillis);
+    Method allocatedBytesMethod = null;
+    if (measureAllocations) {
+      allocatedBytesMethod = threadAllocatedBytesMethod();
+    }
+    this.threadAllocatedBytes = allocatedBytesMethod;
+    this.threadMXBean = allocatedBytesMethod == null ? null : ManagementFactory.getThreadMXBean();
+  }
+
+  public static AnalysisProfiler disabled() {
+    return new AnalysisProfiler(false, false, 0);
+  }
+
+  /**
+   * @param slowFileThresholdMillis files taking longer than this are logged with their slowest phases, 0 to disable the log
+   */
+  public static AnalysisProfiler create(boolean measureAllocations, long slowFileThresholdMillis) {
+    return new AnalysisProfiler(true, measureAllocations, slowFileThresholdMillis);
+  }
+
+  public static AnalysisProfiler create(JavaConfiguration conf) {
+    if (!conf.isProfilingEnabled()) {
+      return disabled();
+    }
+    return create(conf.profilesAllocations(), conf.getSlowFileThreshold());
+  }
+
+  /**
+   * {@code com.sun.management.ThreadMXBean} is not part of the Java API, so it is only accessed by reflection.
+   */
+  @CheckForNull
+  private static Method threadAllocatedBytesMethod() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    try {
+      Class<?> extendedBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+      if (extendedBeanClass.isInstance(threadMXBean)
+        && (Boolean) extendedBeanClass.getMethod("isThreadAllocatedMemorySupported").invoke(threadMXBean)) {
+        extendedBeanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threadMXBean, true);
+        return extendedBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    } catch (ReflectiveOperationException e) {
+      LOG.debug("Allocated memory per thread is not available", e);
+    }
+    LOG.warn("Allocated memory per thread can not be measured on this JVM, only time will be profiled.");
+    return null;
+  }
+
+  private long allocatedBytes() {
+    if (threadAllocatedBytes == null) {
+      return 0;
+    }
+    try {
+      return (Long) threadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized void startFile(File file) {
+    if (enabled) {
+      currentFile = file;
+      currentFileNanos.clear();
+      fileStart = System.nanoTime();
+    }
+  }
+
+  public synchronized void endFile() {
+    if (enabled && currentFile != null) {
+      long elapsed = System.nanoTime() - fileStart;
+      if (slowFileThresholdNanos > 0 && elapsed > slowFileThresholdNanos) {
+        LOG.warn("Slow analysis of {}: {} ms ({})",
+          new Object[] {currentFile.getAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(elapsed), slowestPhasesOfCurrentFile()});
+      }
+      currentFile = null;
+    }
+  }
+
+  public void begin() {
+    if (enabled) {
+      long[] start = phaseStart.get();
+      start[0] = System.nanoTime();
+      start[1] = allocatedBytes();
+    }
+  }
+
+  public void end(String phase) {
+    if (!enabled) {
+      return;
+    }
+    long[] start = phaseStart.get();
+    record(phase, System.nanoTime() - start[0], allocatedBytes() - start[1]);
+  }
+
+  /**
+   * Records a phase which has been measured on another thread, without its allocations.
+   */
+  public void add(String phase, long elapsedNanos) {
+    if (enabled) {
+      record(phase, elapsedNanos, 0);
+    }
+  }
+
+  private synchronized void record(String phase, long elapsed, long allocated) {
+    PhaseStatistics phaseStatistics = statistics.get(phase);
+    if (phaseStatistics == null) {
+      phaseStatistics = new PhaseStatistics(phase);
+      statistics.put(phase, phaseStatistics);
+    }
+    phaseStatistics.add(elapsed, allocated, currentFile);
+    if (currentFile != null) {
+      Long fileNanos = currentFileNanos.get(phase);
+      currentFileNanos.put(phase, fileNanos == null ? elapsed : (fileNanos + elapsed));
+    }
+  }
+
+  private String slowestPhasesOfCurrentFile() {
+    List<Map.Entry<String, Long>> entries = Lists.newArrayList(currentFileNanos.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+      @Override
+      public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2) {
+        return e2.getValue().compareTo(e1.getValue());
+      }
+    });
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(PHASES_IN_SLOW_FILE_LOG, entries.size()))) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(entry.getKey()).append(": ").append(TimeUnit.NANOSECONDS.toMillis(entry.getValue())).append(" ms");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return statistics of every measured phase, slowest first
+   */
+  public synchronized List<PhaseStatistics> statistics() {
+    List<PhaseStatistics> result = Lists.newArrayList(statistics.values());
+    Collections.sort(result, new Comparator<PhaseStatistics>() {
+      @Override
+      public int compare(PhaseStatistics s1, PhaseStatistics s2) {
+        return Long.compare(s2.totalNanos, s1.totalNanos);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Logs the statistics and, when a report file is given, writes them to it as JSON.
+   */
+  public void report(@Nullable File jsonReport) {
+    if (!enabled) {
+      return;
+    }
+    List<PhaseStatistics> sortedStatistics = statistics();
+    StringBuilder sb = new StringBuilder("Java analysis profiling (total ms, invocations, max ms, allocated MB, slowest file):");
+    for (PhaseStatistics phaseStatistics : sortedStatistics) {
+      sb.append(String.format(Locale.ENGLISH, "%n  %-80s %10d %8d %8d %10d  %s",
+        phaseStatistics.name,
+        TimeUnit.NANOSECONDS.toMillis(phaseStatistics.totalNanos),
+        phaseStatistics.invocations,
+        TimeUnit.NANOSECONDS.toMillis(phaseStatistics.maxNanos),
+        phaseStatistics.allocatedBytes / (1024 * 1024),
+        phaseStatistics.maxFile == null ? "" : phaseStatistics.maxFile.getPath()));
+    }
+    LOG.info(sb.toString());
+    if (jsonReport != null) {
+      try {
+        Files.write(toJson(sortedStatistics), jsonReport, Charsets.UTF_8);
+        LOG.info("Java analysis profiling report written to {}", jsonReport.getAbsolutePath());
+      } catch (IOException e) {
+        LOG.warn("Unable to write Java analysis profiling report to " + jsonReport.getAbsolutePath(), e);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static String toJson(List<PhaseStatistics> sortedStatistics) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < sortedStatistics.size(); i++) {
+      PhaseStatistics phaseStatistics = sortedStatistics.get(i);
+      sb.append(i == 0 ? "\n" : ",\n");
+      sb.append("  {\"name\": ").append(jsonString(phaseStatistics.name))
+        .append(", \"totalMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(phaseStatistics.totalNanos))
+        .append(", \"invocations\": ").append(phaseStatistics.invocations)
+        .append(", \"maxMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(phaseStatistics.maxNanos))
+        .append(", \"allocatedBytes\": ").append(phaseStatistics.allocatedBytes)
+        .append(", \"maxFile\": ").append(phaseStatistics.maxFile == null ? "null" : jsonString(phaseStatistics.maxFile.getPath()))
+        .append('}');
+    }
+    return sb.append("\n]\n").toString();
+  }
+
+  private static String jsonString(String value) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < ' ') {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  public static class PhaseStatistics {
+    private final String name;
+    private long totalNanos;
+    private long invocations;
+    private long maxNanos;
+    private long allocatedBytes;
+    private File maxFile;
+
+    PhaseStatistics(String name) {
+      this.name = name;
+    }
+
+    void add(long nanos, long allocated, @Nullable File file) {
+      totalNanos += nanos;
+      invocations++;
+      allocatedBytes += allocated;
+      if (nanos > maxNanos) {
+        maxNanos = nanos;
+        maxFile = file;
+      }
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public long totalNanos() {
+      return totalNanos;
+    }
+
+    public long invocations() {
+      return invocations;
+    }
+
+    public long maxNanos() {
+      return maxNanos;
+    }
+
+    public long allocatedBytes() {
+      return allocatedBytes;
+    }
+
+    @CheckForNull
+    public File maxFile() {
+      return maxFile;
+    }
+  }
+}
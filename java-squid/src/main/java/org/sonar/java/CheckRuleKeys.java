@@ -0,0 +1,74 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.java.api.JavaCheck;
+
+import javax.annotation.CheckForNull;
+import java.util.Map;
+
+/**
+ * Rule keys of the check instances of the analysis. They are resolved once for all the instances of the repositories, on first
+ * use, instead of looking up every repository for every issue.
+ */
+public class CheckRuleKeys {
+
+  private final Iterable<Checks<JavaCheck>> checks;
+  private Map<JavaCheck, RuleKey> ruleKeys;
+
+  public CheckRuleKeys(Iterable<Checks<JavaCheck>> checks) {
+    this.checks = checks;
+  }
+
+  @CheckForNull
+  public RuleKey ruleKey(JavaCheck check) {
+    RuleKey ruleKey = ruleKeys().get(check);
+    if (ruleKey == null) {
+      // instance not created by the repositories
+      for (Checks<JavaCheck> sonarChecks : checks) {
+        ruleKey = sonarChecks.ruleKey(check);
+        if (ruleKey != null) {
+          return ruleKey;
+        }
+      }
+    }
+    return ruleKey;
+  }
+
+  private synchronized Map<JavaCheck, RuleKey> ruleKeys() {
+    if (ruleKeys == null) {
+      Map<JavaCheck, RuleKey> map = Maps.newIdentityHashMap();
+      for (Checks<JavaCheck> sonarChecks : checks) {
+        for (JavaCheck check : sonarChecks.all()) {
+          RuleKey ruleKey = sonarChecks.ruleKey(check);
+          if (ruleKey != null && !map.containsKey(check)) {
+            map.put(check, ruleKey);
+          }
+        }
+      }
+      ruleKeys = map;
+    }
+    return ruleKeys;
+  }
+
+}
@@ -30,6 +30,7 @@ import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.resources.Resource;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.java.bytecode.visitor.ResourceMapping;
 import org.sonar.java.filters.SuppressWarningsFilter;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
@@ -39,6 +40,7 @@ import java.io.File;
 import java.util.Collection;
 import java.util.Map;
 
+@ThreadConfined
 public class DefaultJavaResourceLocator implements JavaResourceLocator {
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaResourceLocator.class);
@@ -57,9 +59,9 @@ public class DefaultJavaResourceLocator implements JavaResourceLocator {
     this.fs = fs;
     this.javaClasspath = javaClasspath;
     this.suppressWarningsFilter = suppressWarningsFilter;
-    resourcesByClass = Maps.newHashMap();
-    sourceFileByClass = Maps.newHashMap();
-    methodStartLines = Maps.newHashMap();
+    resourcesByClass = Maps.newConcurrentMap();
+    sourceFileByClass = Maps.newConcurrentMap();
+    methodStartLines = Maps.newConcurrentMap();
     resourceMapping = new ResourceMapping();
   }
 
@@ -91,14 +93,11 @@ public class DefaultJavaResourceLocator implements JavaResourceLocator {
   @Override
   public Collection<File> classFilesToAnalyze() {
     ImmutableList.Builder<File> result = ImmutableList.builder();
+    ClassFileInventory inventory = javaClasspath.getClassFileInventory();
     for (String key : classKeys()) {
-      String filePath = key + ".class";
-      for (File binaryDir : javaClasspath.getBinaryDirs()) {
-        File classFile = new File(binaryDir, filePath);
-        if (classFile.isFile()) {
-          result.add(classFile);
-          break;
-        }
+      ClassFileInventory.ClassFile classFile = inventory.classFile(key);
+      if (classFile != null) {
+        result.add(classFile.file());
       }
     }
     return result.build();
@@ -137,8 +136,8 @@ public class DefaultJavaResourceLocator implements JavaResourceLocator {
       }
     }
     methodStartLines.putAll(javaFilesCache.getMethodStartLines());
-    if (javaFilesCache.hasSuppressWarningLines()) {
-      suppressWarningsFilter.addComponent(currentResource.getEffectiveKey(), javaFilesCache.getSuppressWarningLines());
+    if (javaFilesCache.hasSuppressWarningRanges()) {
+      suppressWarningsFilter.addComponent(currentResource.getEffectiveKey(), javaFilesCache.getSuppressWarningRanges());
     }
   }
 }
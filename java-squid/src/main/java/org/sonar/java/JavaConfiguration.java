@@ -19,12 +19,34 @@
  */
 package org.sonar.java;
 
+import com.sonar.sslr.api.typed.ActionParser;
+import org.sonar.java.bytecode.ClassFileInventory;
+import org.sonar.java.bytecode.loader.JarCache;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
 import java.nio.charset.Charset;
 
 public class JavaConfiguration {
 
   private final Charset charset;
   private boolean separateAccessorsFromMethods = true;
+  private boolean profilingEnabled = false;
+  private boolean profileAllocations = false;
+  private long slowFileThreshold = 0;
+  private File profilingReport;
+  private long fileTimeBudget = 0;
+  private long ruleTimeBudget = 0;
+  private File classFileStoreDirectory;
+  private JarCache jarCache;
+  private ActionParser<Tree> parser;
+  private boolean pipelined = false;
+  private int parallelRulesThreshold = 0;
+  private int parallelRulesThreads = 0;
+  private ClassFileInventory classFileInventory;
 
   public JavaConfiguration(Charset charset) {
     this.charset = charset;
@@ -42,4 +64,143 @@ public class JavaConfiguration {
     this.separateAccessorsFromMethods = separateAccessorsFromMethods;
   }
 
+  public boolean isProfilingEnabled() {
+    return profilingEnabled;
+  }
+
+  public void setProfilingEnabled(boolean profilingEnabled) {
+    this.profilingEnabled = profilingEnabled;
+  }
+
+  public boolean profilesAllocations() {
+    return profileAllocations;
+  }
+
+  public void setProfileAllocations(boolean profileAllocations) {
+    this.profileAllocations = profileAllocations;
+  }
+
+  /**
+   * @return duration in milliseconds above which the analysis of a file is logged when profiling, 0 when disabled
+   */
+  public long getSlowFileThreshold() {
+    return slowFileThreshold;
+  }
+
+  public void setSlowFileThreshold(long slowFileThreshold) {
+    this.slowFileThreshold = slowFileThreshold;
+  }
+
+  @CheckForNull
+  public File getProfilingReport() {
+    return profilingReport;
+  }
+
+  public void setProfilingReport(@Nullable File profilingReport) {
+    this.profilingReport = profilingReport;
+  }
+
+  /**
+   * @return maximal duration in milliseconds of the semantic analysis and rules on one file, 0 for no limit
+   */
+  public long getFileTimeBudget() {
+    return fileTimeBudget;
+  }
+
+  public void setFileTimeBudget(long fileTimeBudget) {
+    this.fileTimeBudget = fileTimeBudget;
+  }
+
+  /**
+   * @return maximal duration in milliseconds of one rule on one file, 0 for no limit
+   */
+  public long getRuleTimeBudget() {
+    return ruleTimeBudget;
+  }
+
+  public void setRuleTimeBudget(long ruleTimeBudget) {
+    this.ruleTimeBudget = ruleTimeBudget;
+  }
+
+  /**
+   * @return directory where the class files of the classpath JARs are stored for memory-mapped reads, null to read the JARs directly
+   */
+  @CheckForNull
+  public File getClassFileStoreDirectory() {
+    return classFileStoreDirectory;
+  }
+
+  public void setClassFileStoreDirectory(@Nullable File classFileStoreDirectory) {
+    this.classFileStoreDirectory = classFileStoreDirectory;
+  }
+
+  /**
+   * @return cache of the opened classpath JARs shared with the analyses of other modules, null to open the JARs for each analysis
+   */
+  @CheckForNull
+  public JarCache getJarCache() {
+    return jarCache;
+  }
+
+  public void setJarCache(@Nullable JarCache jarCache) {
+    this.jarCache = jarCache;
+  }
+
+  /**
+   * @return parser reused from previous analyses, null to create a new one
+   */
+  @CheckForNull
+  public ActionParser<Tree> getParser() {
+    return parser;
+  }
+
+  public void setParser(@Nullable ActionParser<Tree> parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * @return whether the bytecode is scanned while the test files are, instead of one after the other
+   */
+  public boolean isPipelined() {
+    return pipelined;
+  }
+
+  public void setPipelined(boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * @return minimal number of lines of a file for its rules to be run in parallel, 0 when rules are always run one after the other
+   */
+  public int getParallelRulesThreshold() {
+    return parallelRulesThreshold;
+  }
+
+  public void setParallelRulesThreshold(int parallelRulesThreshold) {
+    this.parallelRulesThreshold = parallelRulesThreshold;
+  }
+
+  /**
+   * @return number of threads running the rules of large files, 0 for the number of available processors
+   */
+  public int getParallelRulesThreads() {
+    return parallelRulesThreads;
+  }
+
+  public void setParallelRulesThreads(int parallelRulesThreads) {
+    this.parallelRulesThreads = parallelRulesThreads;
+  }
+
+  /**
+   * @return class files of the binary directories when already listed for the module, null to look for them on disk
+   */
+  @CheckForNull
+  public ClassFileInventory getClassFileInventory() {
+    return classFileInventory;
+  }
+
+  public void setClassFileInventory(@Nullable ClassFileInventory classFileInventory) {
+    this.classFileInventory = classFileInventory;
+  }
+
 }
@@ -20,11 +20,10 @@
 package org.sonar.java;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.java.filters.SuppressWarningsRange;
 import org.sonar.java.model.JavaTree;
 import org.sonar.java.model.JavaTree.PackageDeclarationTreeImpl;
 import org.sonar.java.model.LiteralUtils;
@@ -59,7 +58,7 @@ public class JavaFilesCache extends BaseTreeVisitor implements JavaFileScanner {
   Map<String, Integer> methodStartLines = Maps.newHashMap();
 
   @VisibleForTesting
-  Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
+  List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
 
   private File currentFile;
   private Deque<String> currentClassKey = new LinkedList<>();
@@ -75,12 +74,12 @@ public class JavaFilesCache extends BaseTreeVisitor implements JavaFileScanner {
     return methodStartLines;
   }
 
-  public Multimap<Integer, String> getSuppressWarningLines() {
-    return suppressWarningLines;
+  public List<SuppressWarningsRange> getSuppressWarningRanges() {
+    return suppressWarningRanges;
   }
 
-  public boolean hasSuppressWarningLines() {
-    return !suppressWarningLines.isEmpty();
+  public boolean hasSuppressWarningRanges() {
+    return !suppressWarningRanges.isEmpty();
   }
 
   @Override
@@ -91,7 +90,7 @@ public class JavaFilesCache extends BaseTreeVisitor implements JavaFileScanner {
     currentClassKey.clear();
     parent.clear();
     anonymousInnerClassCounter.clear();
-    suppressWarningLines.clear();
+    suppressWarningRanges.clear();
     scan(tree);
   }
 
@@ -169,18 +168,15 @@ public class JavaFilesCache extends BaseTreeVisitor implements JavaFileScanner {
   }
 
   private void handleSuppressWarning(List<AnnotationTree> annotationTrees, int endLine) {
-    int startLine = 0;
-    List<String> warnings = Lists.newArrayList();
     for (AnnotationTree annotationTree : annotationTrees) {
       if (isSuppressWarningsAnnotation(annotationTree)) {
-        startLine = ((JavaTree) annotationTree).getLine();
-        warnings.addAll(getSuppressWarningArgs(annotationTree));
+        List<String> warnings = getSuppressWarningArgs(annotationTree);
+        if (!warnings.isEmpty()) {
+          suppressWarningRanges.add(new SuppressWarningsRange(((JavaTree) annotationTree).getLine(), endLine, warnings));
+        }
         break;
       }
     }
-    for (int i = startLine; i <= endLine; i++) {
-      suppressWarningLines.putAll(i, warnings);
-    }
   }
 
   private static boolean isSuppressWarningsAnnotation(AnnotationTree annotationTree) {
@@ -21,8 +21,12 @@ package org.sonar.java;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sonar.sslr.api.typed.ActionParser;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,9 +39,11 @@ import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.java.ast.visitors.FileLinesVisitor;
 import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
 import org.sonar.java.bytecode.BytecodeScanner;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.java.bytecode.visitor.DependenciesVisitor;
 import org.sonar.java.model.VisitorsBridge;
 import org.sonar.plugins.java.api.JavaResourceLocator;
+import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.api.CodeVisitor;
 import org.sonar.squidbridge.api.Query;
 import org.sonar.squidbridge.api.SourceCode;
@@ -49,15 +55,28 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class JavaSquid implements SourceCodeSearchEngine {
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaSquid.class);
+  private static final String PROJECT_KEY = "Java Project";
 
   private final SquidIndex squidIndex;
   private final JavaAstScanner astScanner;
+  private final VisitorsBridge visitorsBridge;
   private final JavaAstScanner astScannerForTests;
   private final BytecodeScanner bytecodeScanner;
+  private final JavaResourceLocator javaResourceLocator;
+  private final AnalysisProfiler profiler;
+  private final File profilingReport;
+  private final TimeBudget timeBudget;
+  private final TimeBudget testTimeBudget;
+  private final boolean pipelined;
+  private final ClassFileInventory classFileInventory;
   private final DirectedGraph<Resource, Dependency> graph = new DirectedGraph<>();
 
   private boolean bytecodeScanned = false;
@@ -72,6 +91,7 @@ public class JavaSquid implements SourceCodeSearchEngine {
                    JavaResourceLocator javaResourceLocator, CodeVisitor... visitors) {
 
 
+    this.javaResourceLocator = javaResourceLocator;
     Iterable<CodeVisitor> codeVisitors = Iterables.concat(Arrays.asList(javaResourceLocator), Arrays.asList(visitors));
     if (measurer != null) {
       Iterable<CodeVisitor> measurers = Arrays.asList((CodeVisitor) measurer);
@@ -94,17 +114,34 @@ public class JavaSquid implements SourceCodeSearchEngine {
       testCodeVisitors.addAll(sonarComponents.testCheckClasses());
     }
 
+    profiler = AnalysisProfiler.create(conf);
+    profilingReport = conf.getProfilingReport();
+    timeBudget = new TimeBudget(conf.getFileTimeBudget(), conf.getRuleTimeBudget());
+    pipelined = conf.isPipelined();
+
     //AstScanner for main files
-    astScanner = new JavaAstScanner(JavaParser.createParser(conf.getCharset()));
-    astScanner.setVisitorBridge(createVisitorBridge(codeVisitors, classpath, conf, sonarComponents));
+    ActionParser<Tree> parser = conf.getParser();
+    astScanner = new JavaAstScanner(parser != null ? parser : JavaParser.createParser(conf.getCharset()));
+    visitorsBridge = createVisitorBridge(codeVisitors, classpath, conf, sonarComponents, profiler, timeBudget);
+    astScanner.setVisitorBridge(visitorsBridge);
 
     //AstScanner for test files
-    astScannerForTests = new JavaAstScanner(astScanner);
-    astScannerForTests.setVisitorBridge(createVisitorBridge(testCodeVisitors, testClasspath, conf, sonarComponents));
+    if (pipelined) {
+      // Test files are scanned while the bytecode is: they get their own parser, index and time budget
+      astScannerForTests = new JavaAstScanner(JavaParser.createParser(conf.getCharset()));
+      testTimeBudget = new TimeBudget(conf.getFileTimeBudget(), conf.getRuleTimeBudget());
+    } else {
+      astScannerForTests = new JavaAstScanner(astScanner);
+      testTimeBudget = timeBudget;
+    }
+    astScannerForTests.setVisitorBridge(createVisitorBridge(testCodeVisitors, testClasspath, conf, sonarComponents, profiler, testTimeBudget));
 
     //Bytecode scanner
     squidIndex = (SquidIndex) astScanner.getIndex();
     bytecodeScanner = new BytecodeScanner(squidIndex, javaResourceLocator);
+    bytecodeScanner.setJarCache(conf.getJarCache());
+    classFileInventory = conf.getClassFileInventory();
+    bytecodeScanner.setClassFileInventory(classFileInventory);
     bytecodeScanner.accept(new DependenciesVisitor(graph));
     for (CodeVisitor visitor : visitors) {
       bytecodeScanner.accept(visitor);
@@ -112,18 +149,99 @@ public class JavaSquid implements SourceCodeSearchEngine {
 
   }
 
-  private static VisitorsBridge createVisitorBridge(Iterable<CodeVisitor> codeVisitors, List<File> classpath, JavaConfiguration conf, @Nullable SonarComponents sonarComponents) {
+  private static VisitorsBridge createVisitorBridge(Iterable<CodeVisitor> codeVisitors, List<File> classpath, JavaConfiguration conf,
+    @Nullable SonarComponents sonarComponents, AnalysisProfiler profiler, TimeBudget timeBudget) {
     VisitorsBridge visitorsBridge = new VisitorsBridge(codeVisitors, classpath, sonarComponents);
     visitorsBridge.setCharset(conf.getCharset());
     visitorsBridge.setAnalyseAccessors(conf.separatesAccessorsFromMethods());
+    visitorsBridge.setProfiler(profiler);
+    visitorsBridge.setTimeBudget(timeBudget);
+    visitorsBridge.setClassFileStoreDirectory(conf.getClassFileStoreDirectory());
+    visitorsBridge.setJarCache(conf.getJarCache());
+    visitorsBridge.setParallelRulesThreshold(conf.getParallelRulesThreshold());
+    visitorsBridge.setParallelRulesThreads(conf.getParallelRulesThreads());
     return visitorsBridge;
   }
 
 
+  /**
+   * Listener notified after each main file is analyzed, before the bytecode and the test files are scanned.
+   */
+  public void setFileAnalysisListener(FileAnalysisListener fileAnalysisListener) {
+    visitorsBridge.setFileAnalysisListener(fileAnalysisListener);
+  }
+
   public void scan(Iterable<File> sourceFiles, Iterable<File> testFiles, Collection<File> bytecodeFilesOrDirectories) {
     scanSources(sourceFiles);
-    scanBytecode(bytecodeFilesOrDirectories);
-    scanTests(testFiles);
+    if (pipelined) {
+      scanBytecodeWhileScanningTests(bytecodeFilesOrDirectories, testFiles);
+    } else {
+      scanBytecode(bytecodeFilesOrDirectories);
+      scanTests(testFiles);
+    }
+    profiler.report(profilingReport);
+    timeBudget.report();
+    if (testTimeBudget != timeBudget) {
+      testTimeBudget.report();
+    }
+  }
+
+  /**
+   * The bytecode scan only reads what the scan of main files collected, and the test files are scanned into their own index,
+   * so both run at the same time. The classes of the main files are listed before the test files start adding theirs to the resource
+   * locator. Test files are then moved into the index of the main files, as when scanned one after the other.
+   */
+  private void scanBytecodeWhileScanningTests(final Collection<File> bytecodeFilesOrDirectories, Iterable<File> testFiles) {
+    final Collection<String> classKeys = javaResourceLocator.classKeys();
+    ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("java-bytecode-scan").setDaemon(true).build());
+    try {
+      Future<?> bytecodeScan = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          scanBytecode(bytecodeFilesOrDirectories, classKeys);
+        }
+      });
+      TimeProfiler timeProfiler = new TimeProfiler(getClass()).start("Java Test Files AST scan");
+      astScannerForTests.scan(testFiles);
+      timeProfiler.stop();
+      waitFor(bytecodeScan);
+    } finally {
+      executor.shutdownNow();
+    }
+    SourceCode testProject = astScannerForTests.getIndex().search(PROJECT_KEY);
+    SourceCode project = squidIndex.search(PROJECT_KEY);
+    if (testProject.hasChildren()) {
+      for (SourceCode testFile : ImmutableList.copyOf(testProject.getChildren())) {
+        project.addChild(testFile);
+        indexChildren(testFile, squidIndex);
+      }
+    }
+  }
+
+  /**
+   * Adding a source code to a parent only indexes the source code itself: its classes and methods are indexed one by one.
+   */
+  @VisibleForTesting
+  static void indexChildren(SourceCode sourceCode, SquidIndex index) {
+    sourceCode.setSourceCodeIndexer(index);
+    if (sourceCode.hasChildren()) {
+      for (SourceCode child : sourceCode.getChildren()) {
+        index.index(child);
+        indexChildren(child, index);
+      }
+    }
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while scanning bytecode", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
   }
 
   private void scanSources(Iterable<File> sourceFiles) {
@@ -139,10 +257,21 @@ public class JavaSquid implements SourceCodeSearchEngine {
   }
 
   private void scanBytecode(Collection<File> bytecodeFilesOrDirectories) {
-    if (hasBytecode(bytecodeFilesOrDirectories)) {
+    scanBytecode(bytecodeFilesOrDirectories, null);
+  }
+
+  /**
+   * @param classKeys classes to scan, all those of the resource locator when <tt>null</tt>
+   */
+  private void scanBytecode(Collection<File> bytecodeFilesOrDirectories, @Nullable Collection<String> classKeys) {
+    if (hasBytecode(bytecodeFilesOrDirectories, classFileInventory)) {
       TimeProfiler profiler = new TimeProfiler(getClass()).start("Java bytecode scan");
 
-      bytecodeScanner.scan(bytecodeFilesOrDirectories);
+      if (classKeys == null) {
+        bytecodeScanner.scan(bytecodeFilesOrDirectories);
+      } else {
+        bytecodeScanner.scan(bytecodeFilesOrDirectories, classKeys);
+      }
       bytecodeScanned = true;
       profiler.stop();
     } else {
@@ -152,11 +281,19 @@ public class JavaSquid implements SourceCodeSearchEngine {
   }
 
   static boolean hasBytecode(Collection<File> bytecodeFilesOrDirectories) {
+    return hasBytecode(bytecodeFilesOrDirectories, null);
+  }
+
+  static boolean hasBytecode(Collection<File> bytecodeFilesOrDirectories, @Nullable ClassFileInventory classFileInventory) {
     if (bytecodeFilesOrDirectories == null) {
       return false;
     }
     for (File bytecodeFilesOrDirectory : bytecodeFilesOrDirectories) {
-      if (bytecodeFilesOrDirectory.exists() &&
+      if (classFileInventory != null && classFileInventory.covers(bytecodeFilesOrDirectory)) {
+        if (classFileInventory.hasClassFiles(bytecodeFilesOrDirectory)) {
+          return true;
+        }
+      } else if (bytecodeFilesOrDirectory.exists() &&
           (bytecodeFilesOrDirectory.isFile() ||
               !FileUtils.listFiles(bytecodeFilesOrDirectory, new String[]{"class"}, true).isEmpty())) {
         return true;
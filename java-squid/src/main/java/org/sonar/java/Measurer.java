@@ -48,6 +48,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 
+@ThreadConfined
 public class Measurer extends SubscriptionVisitor implements CharsetAwareVisitor {
 
   private static final Number[] LIMITS_COMPLEXITY_METHODS = {1, 2, 4, 6, 8, 10, 12};
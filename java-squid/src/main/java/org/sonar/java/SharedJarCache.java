@@ -0,0 +1,64 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.config.Settings;
+import org.sonar.java.bytecode.loader.JarCache;
+
+/**
+ * {@link JarCache} living as long as the whole batch, so that the modules of a multi-module project share their opened classpath JARs.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class SharedJarCache extends JarCache implements BatchExtension {
+
+  public static final String SIZE_PROPERTY = "sonar.java.jarCache.size";
+  /**
+   * Disabled by default: the class files read for a module would otherwise stay on the heap until the end of the batch.
+   */
+  public static final int DEFAULT_SIZE = 0;
+
+  private final boolean enabled;
+
+  public SharedJarCache(Settings settings) {
+    this(settings.hasKey(SIZE_PROPERTY) ? settings.getLong(SIZE_PROPERTY) : DEFAULT_SIZE);
+  }
+
+  private SharedJarCache(long sizeInMegabytes) {
+    super(sizeInMegabytes * 1024 * 1024);
+    this.enabled = sizeInMegabytes > 0;
+  }
+
+  /**
+   * @return false when the size of the cache is 0, in which case each analysis opens the JARs itself
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Called by the container at the end of the batch.
+   */
+  public void stop() {
+    close();
+  }
+
+}
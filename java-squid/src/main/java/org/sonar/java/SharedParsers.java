@@ -0,0 +1,62 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.sonar.sslr.api.typed.ActionParser;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.java.ast.parser.JavaNodeBuilder;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Java parsers living as long as the whole batch, so that the grammar is built once per charset instead of once per module,
+ * and later modules run on an already warmed up parser.
+ * Parsers are only reused within one batch: nothing outlives the batch JVM, there is no long-lived analysis daemon.
+ * Modules are analyzed one after the other, so a parser is never used by two analyses at the same time. The token texts shared
+ * by a parser are cleared each time a module gets it, so that no module keeps the texts of the previous ones.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class SharedParsers implements BatchExtension {
+
+  private final Map<Charset, ActionParser<Tree>> parsers = new HashMap<>();
+  private final Map<Charset, JavaNodeBuilder> nodeBuilders = new HashMap<>();
+
+  /**
+   * Called once per module, when its analysis starts.
+   */
+  public synchronized ActionParser<Tree> get(Charset charset) {
+    ActionParser<Tree> parser = parsers.get(charset);
+    if (parser == null) {
+      JavaNodeBuilder nodeBuilder = new JavaNodeBuilder();
+      parser = JavaParser.createParser(charset, nodeBuilder);
+      parsers.put(charset, parser);
+      nodeBuilders.put(charset, nodeBuilder);
+    } else {
+      nodeBuilders.get(charset).clearTokenTexts();
+    }
+    return parser;
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-file and per-rule time budgets of the analysis.
+ * <p>
+ * Budgets are checked before each rule, and enforced cooperatively by {@link #checkpoint()}, which throws
+ * {@link TimeBudgetExceededException} once the deadline of the current thread is over. Checkpoints are in the resolution of the semantic
+ * analysis, after which the rules of the file are skipped, and in the long running loops of the rules (symbolic execution, dataflow
+ * analysis). Tree walks of the other rules are not interrupted, as they go through the visitors of the API: they are bounded by the
+ * rules being skipped once the file budget is over. The deadline is only read from the clock every {@value #CHECK_INTERVAL}
+ * checkpoints, and checkpoints of a thread without deadline only look it up.
+ */
+public class TimeBudget {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeBudget.class);
+
+  @VisibleForTesting
+  static final int CHECK_INTERVAL = 1024;
+
+  private static final ThreadLocal<Deadline> DEADLINE = new ThreadLocal<Deadline>() {
+    @Override
+    protected Deadline initialValue() {
+      return new Deadline();
+    }
+  };
+
+  private final boolean enabled;
+  private final long fileBudgetNanos;
+  private final long ruleBudgetNanos;
+  private final Multiset<String> interruptedRules = HashMultiset.create();
+  private final Set<File> interruptedFiles = Sets.newLinkedHashSet();
+  private long fileDeadline;
+  private File currentFile;
+
+  /**
+   * @param fileBudgetMillis maximal time spent on semantic analysis and rules for one file, 0 for no limit
+   * @param ruleBudgetMillis maximal time spent by one rule on one file, 0 for no limit
+   */
+  public TimeBudget(long fileBudgetMillis, long ruleBudgetMillis) {
+    this.fileBudgetNanos = TimeUnit.MILLISECONDS.toNanos(fileBudgetMillis);
+    this.ruleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(ruleBudgetMillis);
+    this.enabled = fileBudgetNanos > 0 || ruleBudgetNanos > 0;
+  }
+
+  public static TimeBudget unlimited() {
+    return new TimeBudget(0, 0);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Cancellation point: throws {@link TimeBudgetExceededException} when the budget of the current thread is exhausted.
+   */
+  public static void checkpoint() {
+    DEADLINE.get().check();
+  }
+
+  public void startFile(File file) {
+    if (isEnabled()) {
+      currentFile = file;
+      fileDeadline = fileBudgetNanos > 0 ? (System.nanoTime() + fileBudgetNanos) : Long.MAX_VALUE;
+      DEADLINE.get().set(fileDeadline);
+    }
+  }
+
+  public void endFile() {
+    if (isEnabled()) {
+      currentFile = null;
+      DEADLINE.get().clear();
+    }
+  }
+
+  /**
+   * @return false when the file budget is already exhausted and the rule should not be started
+   */
+  public boolean startRule() {
+    if (!isEnabled()) {
+      return true;
+    }
+    long now = System.nanoTime();
+    if (fileBudgetNanos > 0 && now - fileDeadline > 0) {
+      return false;
+    }
+    long deadline = fileDeadline;
+    if (ruleBudgetNanos > 0) {
+      long ruleDeadline = now + ruleBudgetNanos;
+      if (fileBudgetNanos <= 0 || ruleDeadline - fileDeadline < 0) {
+        deadline = ruleDeadline;
+      }
+    }
+    DEADLINE.get().set(deadline);
+    return true;
+  }
+
+  /**
+   * Rules of large files run on the threads of a pool: their deadline must not outlive the rule.
+   */
+  public void endRule() {
+    if (isEnabled()) {
+      DEADLINE.get().clear();
+    }
+  }
+
+  /**
+   * Records work which has been skipped or interrupted because of the budget.
+   */
+  public void interrupted(String phase) {
+    interruptedRules.add(phase);
+    if (currentFile != null && interruptedFiles.add(currentFile)) {
+      LOG.warn("Time budget exceeded during analysis of {}, {} has been interrupted", currentFile.getAbsolutePath(), phase);
+    } else {
+      LOG.debug("Time budget exceeded, {} has been interrupted", phase);
+    }
+  }
+
+  public int interruptedFilesCount() {
+    return interruptedFiles.size();
+  }
+
+  public Multiset<String> interruptedRules() {
+    return interruptedRules;
+  }
+
+  public void report() {
+    if (!interruptedFiles.isEmpty()) {
+      StringBuilder sb = new StringBuilder();
+      for (Multiset.Entry<String> entry : interruptedRules.entrySet()) {
+        sb.append(String.format("%n  %s: %d", entry.getElement(), entry.getCount()));
+      }
+      LOG.warn("Analysis of {} files has been cut short by the time budget, interrupted or skipped work:{}", interruptedFiles.size(), sb.toString());
+    }
+  }
+
+  private static class Deadline {
+    private boolean active;
+    private long nanos;
+    private int countdown = CHECK_INTERVAL;
+
+    void set(long deadlineNanos) {
+      active = deadlineNanos != Long.MAX_VALUE;
+      nanos = deadlineNanos;
+      countdown = 1;
+    }
+
+    void clear() {
+      active = false;
+    }
+
+    void check() {
+      if (active && --countdown <= 0) {
+        countdown = CHECK_INTERVAL;
+        if (System.nanoTime() - nanos > 0) {
+          throw new TimeBudgetExceededException();
+        }
+      }
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.Lists;
 import com.sonar.sslr.api.RecognitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.java.AnalysisProfiler;
 import org.sonar.java.JavaConfiguration;
 import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.java.ast.visitors.VisitorContext;
@@ -87,10 +88,14 @@ public class JavaAstScanner {
 
     ProgressReport progressReport = new ProgressReport("Report about progress of Java AST analyzer", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(Lists.newArrayList(files));
+    AnalysisProfiler profiler = visitor.getProfiler();
     for (File file : files) {
       context.setFile(file);
+      profiler.startFile(file);
       try {
+        profiler.begin();
         Tree ast = parser.parse(file);
+        profiler.end(AnalysisProfiler.PARSE);
         visitor.visitFile(ast);
         progressReport.nextFile();
       } catch (RecognitionException e) {
@@ -100,6 +105,8 @@ public class JavaAstScanner {
         parseErrorWalkAndVisit(e, file);
       } catch (Exception e) {
         throw new AnalysisException(getAnalyisExceptionMessage(file), e);
+      } finally {
+        profiler.endFile();
       }
     }
     progressReport.stop();
@@ -86,4 +86,18 @@ public class ArgumentListTreeImpl extends ListTreeImpl<ExpressionTree> implement
       super.childrenIterator(),
       closeParenToken != null ? Iterators.singletonIterator(closeParenToken) : Iterators.<Tree>emptyIterator());
   }
+
+  @Override
+  public int childCount() {
+    return super.childCount() + (openParenToken != null ? 1 : 0) + (closeParenToken != null ? 1 : 0);
+  }
+
+  @Override
+  public Tree child(int i) {
+    int index = openParenToken != null ? (i - 1) : i;
+    if (index < 0) {
+      return openParenToken;
+    }
+    return index < super.childCount() ? super.child(index) : closeParenToken;
+  }
 }
@@ -344,7 +344,7 @@ public enum JavaLexer implements GrammarRuleKey {
   }
 
   private static void keywords(LexerlessGrammarBuilder b) {
-    b.rule(LETTER_OR_DIGIT).is(javaIdentifierPart(b));
+    b.rule(LETTER_OR_DIGIT).is(javaIdentifierPart());
     for (JavaKeyword tokenType : JavaKeyword.values()) {
       b.rule(tokenType).is(tokenType.getValue(), b.nextNot(LETTER_OR_DIGIT), SPACING);
     }
@@ -367,82 +367,61 @@ public enum JavaLexer implements GrammarRuleKey {
     b.rule(ruleKey).is(value, element, SPACING);
   }
 
-  private static final String EXP_REGEXP = "(?:[Ee][+-]?+[0-9_]++)";
-  private static final String BINARY_EXP_REGEXP = "(?:[Pp][+-]?+[0-9_]++)";
-  private static final String FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP = "(?:" +
-    // Decimal
-    "[0-9][0-9_]*+\\.([0-9_]++)?+" + EXP_REGEXP + "?+" +
-    "|" + "\\.[0-9][0-9_]*+" + EXP_REGEXP + "?+" +
-    "|" + "[0-9][0-9_]*+" + EXP_REGEXP +
-    // Hexadecimal
-    "|" + "0[xX][0-9_a-fA-F]++\\.[0-9_a-fA-F]*+" + BINARY_EXP_REGEXP +
-    "|" + "0[xX][0-9_a-fA-F]++" + BINARY_EXP_REGEXP +
-    ")";
-
-  private static final String INTEGER_LITERAL_REGEXP = "(?:" +
-    // Hexadecimal
-    "0[xX][0-9_a-fA-F]++" +
-    // Binary (Java 7)
-    "|" + "0[bB][01_]++" +
-    // Decimal and Octal
-    "|" + "[0-9][0-9_]*+" +
-    ")";
-
   /**
    * 3.10. Literals
    */
   private static void literals(LexerlessGrammarBuilder b) {
     b.rule(SPACING).is(
-      b.skippedTrivia(whitespace(b)),
+      b.skippedTrivia(whitespace()),
       b.zeroOrMore(
-        b.commentTrivia(b.firstOf(inlineComment(b), multilineComment(b))),
-        b.skippedTrivia(whitespace(b))));
+        b.commentTrivia(b.firstOf(inlineComment(), multilineComment())),
+        b.skippedTrivia(whitespace())));
 
     b.rule(EOF).is(b.token(GenericTokenType.EOF, b.endOfInput()));
 
     b.rule(CHARACTER_LITERAL).is(characterLiteral(b), SPACING);
     b.rule(JavaTokenType.LITERAL).is(stringLiteral(b), SPACING);
 
-    b.rule(FLOAT_LITERAL).is(b.regexp(FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP + "[fF]|[0-9][0-9_]*+[fF]"), SPACING);
-    b.rule(DOUBLE_LITERAL).is(b.regexp(FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP + "[dD]?+|[0-9][0-9_]*+[dD]"), SPACING);
+    b.rule(FLOAT_LITERAL).is(JavaLexicalExpression.floatLiteral(), SPACING);
+    b.rule(DOUBLE_LITERAL).is(JavaLexicalExpression.doubleLiteral(), SPACING);
 
-    b.rule(LONG_LITERAL).is(b.regexp(INTEGER_LITERAL_REGEXP + "[lL]"), SPACING);
-    b.rule(INTEGER_LITERAL).is(b.regexp(INTEGER_LITERAL_REGEXP), SPACING);
+    b.rule(LONG_LITERAL).is(JavaLexicalExpression.longLiteral(), SPACING);
+    b.rule(INTEGER_LITERAL).is(JavaLexicalExpression.integerLiteral(), SPACING);
 
     b.rule(JavaTokenType.IDENTIFIER).is(
       b.firstOf(
         b.next(ENUM),
         b.nextNot(KEYWORD)),
-      javaIdentifier(b),
+      javaIdentifier(),
       SPACING);
   }
 
   private static Object characterLiteral(LexerlessGrammarBuilder b) {
-    return b.sequence(b.next("'"), b.regexp("'([^'\\\\]*+(\\\\[\\s\\S])?+)*+'"));
+    return b.sequence(b.next("'"), JavaLexicalExpression.quoted('\''));
   }
 
   private static Object stringLiteral(LexerlessGrammarBuilder b) {
-    return b.sequence(b.next("\""), b.regexp("\"([^\"\\\\]*+(\\\\[\\s\\S])?+)*+\""));
+    return b.sequence(b.next("\""), JavaLexicalExpression.quoted('"'));
   }
 
-  private static Object whitespace(LexerlessGrammarBuilder b) {
-    return b.regexp("\\s*+");
+  private static Object whitespace() {
+    return JavaLexicalExpression.whitespace();
   }
 
-  private static Object inlineComment(LexerlessGrammarBuilder b) {
-    return b.regexp("//[^\\n\\r]*+");
+  private static Object inlineComment() {
+    return JavaLexicalExpression.inlineComment();
   }
 
-  private static Object multilineComment(LexerlessGrammarBuilder b) {
-    return b.regexp("/\\*[\\s\\S]*?\\*\\/");
+  private static Object multilineComment() {
+    return JavaLexicalExpression.multilineComment();
   }
 
-  private static Object javaIdentifier(LexerlessGrammarBuilder b) {
-    return b.regexp("\\p{javaJavaIdentifierStart}++\\p{javaJavaIdentifierPart}*+");
+  private static Object javaIdentifier() {
+    return JavaLexicalExpression.identifier();
   }
 
-  private static Object javaIdentifierPart(LexerlessGrammarBuilder b) {
-    return b.regexp("\\p{javaJavaIdentifierPart}");
+  private static Object javaIdentifierPart() {
+    return JavaLexicalExpression.identifierPart();
   }
 
   private final String internalName;
@@ -0,0 +1,446 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.parser;
+
+import org.sonar.sslr.internal.matchers.Matcher;
+import org.sonar.sslr.internal.vm.Machine;
+import org.sonar.sslr.internal.vm.NativeExpression;
+
+/**
+ * Hand-written scanners for the lexical rules of {@link JavaLexer} (whitespace, comments, identifiers and literals).
+ * <p>
+ * Each expression accepts exactly the same input as the regular expression it replaces (kept in the javadoc of each factory
+ * method), but scans the characters of the input directly instead of resetting and running a {@link java.util.regex.Matcher}
+ * every time the parser tries the rule.
+ */
+abstract class JavaLexicalExpression extends NativeExpression implements Matcher {
+
+  static final int NO_MATCH = -1;
+
+  private final String name;
+
+  private JavaLexicalExpression(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return number of characters matched at the beginning of the input, or {@link #NO_MATCH}
+   */
+  abstract int match(CharSequence input);
+
+  @Override
+  public void execute(Machine machine) {
+    int length = match(machine);
+    if (length == NO_MATCH) {
+      machine.backtrack();
+    } else {
+      machine.createLeafNode(this, length);
+      machine.jump(1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * {@code \s*+}
+   */
+  static JavaLexicalExpression whitespace() {
+    return new JavaLexicalExpression("whitespace") {
+      @Override
+      int match(CharSequence input) {
+        int length = input.length();
+        int i = 0;
+        while (i < length && isWhitespace(input.charAt(i))) {
+          i++;
+        }
+        return i;
+      }
+    };
+  }
+
+  /**
+   * {@code //[^\n\r]*+}
+   */
+  static JavaLexicalExpression inlineComment() {
+    return new JavaLexicalExpression("inlineComment") {
+      @Override
+      int match(CharSequence input) {
+        int length = input.length();
+        if (length < 2 || input.charAt(0) != '/' || input.charAt(1) != '/') {
+          return NO_MATCH;
+        }
+        int i = 2;
+        while (i < length && input.charAt(i) != '\n' && input.charAt(i) != '\r') {
+          i++;
+        }
+        return i;
+      }
+    };
+  }
+
+  /**
+   * {@code /\*[\s\S]*?\*\/}
+   */
+  static JavaLexicalExpression multilineComment() {
+    return new JavaLexicalExpression("multilineComment") {
+      @Override
+      int match(CharSequence input) {
+        int length = input.length();
+        if (length < 4 || input.charAt(0) != '/' || input.charAt(1) != '*') {
+          return NO_MATCH;
+        }
+        for (int i = 2; i + 1 < length; i++) {
+          if (input.charAt(i) == '*' && input.charAt(i + 1) == '/') {
+            return i + 2;
+          }
+        }
+        return NO_MATCH;
+      }
+    };
+  }
+
+  /**
+   * {@code \p{javaJavaIdentifierStart}++\p{javaJavaIdentifierPart}*+}
+   */
+  static JavaLexicalExpression identifier() {
+    return new JavaLexicalExpression("identifier") {
+      @Override
+      int match(CharSequence input) {
+        int length = input.length();
+        if (length == 0) {
+          return NO_MATCH;
+        }
+        int codePoint = Character.codePointAt(input, 0);
+        if (!Character.isJavaIdentifierStart(codePoint)) {
+          return NO_MATCH;
+        }
+        int i = Character.charCount(codePoint);
+        while (i < length) {
+          codePoint = Character.codePointAt(input, i);
+          if (!Character.isJavaIdentifierPart(codePoint)) {
+            break;
+          }
+          i += Character.charCount(codePoint);
+        }
+        return i;
+      }
+    };
+  }
+
+  /**
+   * {@code \p{javaJavaIdentifierPart}}
+   */
+  static JavaLexicalExpression identifierPart() {
+    return new JavaLexicalExpression("identifierPart") {
+      @Override
+      int match(CharSequence input) {
+        if (input.length() == 0) {
+          return NO_MATCH;
+        }
+        int codePoint = Character.codePointAt(input, 0);
+        return Character.isJavaIdentifierPart(codePoint) ? Character.charCount(codePoint) : NO_MATCH;
+      }
+    };
+  }
+
+  /**
+   * {@code "([^"\\]*+(\\[\s\S])?+)*+"} and {@code '([^'\\]*+(\\[\s\S])?+)*+'}
+   */
+  static JavaLexicalExpression quoted(final char quote) {
+    return new JavaLexicalExpression(quote == '"' ? "stringLiteral" : "characterLiteral") {
+      @Override
+      int match(CharSequence input) {
+        int length = input.length();
+        if (length == 0 || input.charAt(0) != quote) {
+          return NO_MATCH;
+        }
+        int i = 1;
+        while (i < length) {
+          char c = input.charAt(i);
+          if (c == quote) {
+            return i + 1;
+          } else if (c == '\\') {
+            i += 2;
+          } else {
+            i++;
+          }
+        }
+        return NO_MATCH;
+      }
+    };
+  }
+
+  /**
+   * {@code (?:FLOATING_LITERAL_WITHOUT_SUFFIX)[fF]|[0-9][0-9_]*+[fF]}
+   */
+  static JavaLexicalExpression floatLiteral() {
+    return new JavaLexicalExpression("floatLiteral") {
+      @Override
+      int match(CharSequence input) {
+        return scanFloatingLiteral(input, 'f', 'F', true);
+      }
+    };
+  }
+
+  /**
+   * {@code (?:FLOATING_LITERAL_WITHOUT_SUFFIX)[dD]?+|[0-9][0-9_]*+[dD]}
+   */
+  static JavaLexicalExpression doubleLiteral() {
+    return new JavaLexicalExpression("doubleLiteral") {
+      @Override
+      int match(CharSequence input) {
+        return scanFloatingLiteral(input, 'd', 'D', false);
+      }
+    };
+  }
+
+  /**
+   * {@code (?:INTEGER_LITERAL)[lL]}
+   */
+  static JavaLexicalExpression longLiteral() {
+    return new JavaLexicalExpression("longLiteral") {
+      @Override
+      int match(CharSequence input) {
+        return scanIntegerLiteral(input, true);
+      }
+    };
+  }
+
+  /**
+   * {@code (?:INTEGER_LITERAL)}
+   */
+  static JavaLexicalExpression integerLiteral() {
+    return new JavaLexicalExpression("integerLiteral") {
+      @Override
+      int match(CharSequence input) {
+        return scanIntegerLiteral(input, false);
+      }
+    };
+  }
+
+  private static boolean isWhitespace(char c) {
+    // same characters as \s in java.util.regex
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Integer literals are the first alternative which matches, followed by the optional suffix: hexadecimal
+   * {@code 0[xX][0-9_a-fA-F]++}, binary {@code 0[bB][01_]++}, then decimal and octal {@code [0-9][0-9_]*+}.
+   */
+  private static int scanIntegerLiteral(CharSequence input, boolean longSuffix) {
+    int end = withIntegerSuffix(input, prefixedDigits(input, 'x', 'X', true), longSuffix);
+    if (end == NO_MATCH) {
+      end = withIntegerSuffix(input, prefixedDigits(input, 'b', 'B', false), longSuffix);
+    }
+    if (end == NO_MATCH) {
+      end = withIntegerSuffix(input, decimalDigits(input, 0), longSuffix);
+    }
+    return end;
+  }
+
+  private static int withIntegerSuffix(CharSequence input, int end, boolean longSuffix) {
+    if (end == NO_MATCH || !longSuffix) {
+      return end;
+    }
+    return isOneOf(input, end, 'l', 'L') ? (end + 1) : NO_MATCH;
+  }
+
+  /**
+   * Floating point literals are the first alternative of FLOATING_LITERAL_WITHOUT_SUFFIX which is followed by the suffix (optional for double),
+   * or digits followed by the suffix.
+   */
+  private static int scanFloatingLiteral(CharSequence input, char suffix, char upperCaseSuffix, boolean suffixRequired) {
+    int end = withFloatingSuffix(input, decimalWithDot(input), suffix, upperCaseSuffix, suffixRequired);
+    if (end == NO_MATCH) {
+      end = withFloatingSuffix(input, dotDecimal(input), suffix, upperCaseSuffix, suffixRequired);
+    }
+    if (end == NO_MATCH) {
+      end = withFloatingSuffix(input, decimalWithExponent(input), suffix, upperCaseSuffix, suffixRequired);
+    }
+    if (end == NO_MATCH) {
+      end = withFloatingSuffix(input, hexadecimalWithDot(input), suffix, upperCaseSuffix, suffixRequired);
+    }
+    if (end == NO_MATCH) {
+      end = withFloatingSuffix(input, hexadecimalWithExponent(input), suffix, upperCaseSuffix, suffixRequired);
+    }
+    if (end == NO_MATCH) {
+      end = withFloatingSuffix(input, decimalDigits(input, 0), suffix, upperCaseSuffix, true);
+    }
+    return end;
+  }
+
+  private static int withFloatingSuffix(CharSequence input, int end, char suffix, char upperCaseSuffix, boolean suffixRequired) {
+    if (end == NO_MATCH) {
+      return NO_MATCH;
+    }
+    if (isOneOf(input, end, suffix, upperCaseSuffix)) {
+      return end + 1;
+    }
+    return suffixRequired ? NO_MATCH : end;
+  }
+
+  /**
+   * {@code [0-9][0-9_]*+\.([0-9_]++)?+EXP?+}
+   */
+  private static int decimalWithDot(CharSequence input) {
+    int end = decimalDigits(input, 0);
+    if (end == NO_MATCH || !isChar(input, end, '.')) {
+      return NO_MATCH;
+    }
+    end = digitsOrUnderscores(input, end + 1);
+    return optionalExponent(input, end, 'e', 'E');
+  }
+
+  /**
+   * {@code \.[0-9][0-9_]*+EXP?+}
+   */
+  private static int dotDecimal(CharSequence input) {
+    if (!isChar(input, 0, '.')) {
+      return NO_MATCH;
+    }
+    int end = decimalDigits(input, 1);
+    if (end == NO_MATCH) {
+      return NO_MATCH;
+    }
+    return optionalExponent(input, end, 'e', 'E');
+  }
+
+  /**
+   * {@code [0-9][0-9_]*+EXP}
+   */
+  private static int decimalWithExponent(CharSequence input) {
+    int end = decimalDigits(input, 0);
+    if (end == NO_MATCH) {
+      return NO_MATCH;
+    }
+    return exponent(input, end, 'e', 'E');
+  }
+
+  /**
+   * {@code 0[xX][0-9_a-fA-F]++\.[0-9_a-fA-F]*+BINARY_EXP}
+   */
+  private static int hexadecimalWithDot(CharSequence input) {
+    int end = prefixedDigits(input, 'x', 'X', true);
+    if (end == NO_MATCH || !isChar(input, end, '.')) {
+      return NO_MATCH;
+    }
+    end = end + 1;
+    while (end < input.length() && isHexDigitOrUnderscore(input.charAt(end))) {
+      end++;
+    }
+    return exponent(input, end, 'p', 'P');
+  }
+
+  /**
+   * {@code 0[xX][0-9_a-fA-F]++BINARY_EXP}
+   */
+  private static int hexadecimalWithExponent(CharSequence input) {
+    int end = prefixedDigits(input, 'x', 'X', true);
+    if (end == NO_MATCH) {
+      return NO_MATCH;
+    }
+    return exponent(input, end, 'p', 'P');
+  }
+
+  private static int optionalExponent(CharSequence input, int start, char marker, char upperCaseMarker) {
+    int end = exponent(input, start, marker, upperCaseMarker);
+    return end == NO_MATCH ? start : end;
+  }
+
+  /**
+   * {@code [Ee][+-]?+[0-9_]++}, or {@code [Pp][+-]?+[0-9_]++} for binary exponents
+   */
+  private static int exponent(CharSequence input, int start, char marker, char upperCaseMarker) {
+    if (!isOneOf(input, start, marker, upperCaseMarker)) {
+      return NO_MATCH;
+    }
+    int i = start + 1;
+    if (isOneOf(input, i, '+', '-')) {
+      i++;
+    }
+    int end = digitsOrUnderscores(input, i);
+    return end == i ? NO_MATCH : end;
+  }
+
+  /**
+   * {@code 0[xX][0-9_a-fA-F]++} or {@code 0[bB][01_]++}
+   */
+  private static int prefixedDigits(CharSequence input, char prefix, char upperCasePrefix, boolean hexadecimal) {
+    if (!isChar(input, 0, '0') || !isOneOf(input, 1, prefix, upperCasePrefix)) {
+      return NO_MATCH;
+    }
+    int length = input.length();
+    int i = 2;
+    while (i < length && (hexadecimal ? isHexDigitOrUnderscore(input.charAt(i)) : isBinaryDigitOrUnderscore(input.charAt(i)))) {
+      i++;
+    }
+    return i == 2 ? NO_MATCH : i;
+  }
+
+  /**
+   * {@code [0-9][0-9_]*+}
+   */
+  private static int decimalDigits(CharSequence input, int start) {
+    if (start >= input.length() || !isDigit(input.charAt(start))) {
+      return NO_MATCH;
+    }
+    return digitsOrUnderscores(input, start + 1);
+  }
+
+  /**
+   * {@code [0-9_]*+}
+   */
+  private static int digitsOrUnderscores(CharSequence input, int start) {
+    int length = input.length();
+    int i = start;
+    while (i < length && (isDigit(input.charAt(i)) || input.charAt(i) == '_')) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isChar(CharSequence input, int index, char c) {
+    return index < input.length() && input.charAt(index) == c;
+  }
+
+  private static boolean isOneOf(CharSequence input, int index, char c1, char c2) {
+    if (index >= input.length()) {
+      return false;
+    }
+    char c = input.charAt(index);
+    return c == c1 || c == c2;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigitOrUnderscore(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '_';
+  }
+
+  private static boolean isBinaryDigitOrUnderscore(char c) {
+    return c == '0' || c == '1' || c == '_';
+  }
+
+}
@@ -33,10 +33,20 @@ import org.sonar.java.model.InternalSyntaxTrivia;
 import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
+import java.util.Collections;
 import java.util.List;
 
 public class JavaNodeBuilder implements NodeBuilder {
 
+  private final TokenTextCache tokenTexts = new TokenTextCache();
+
+  /**
+   * Stops sharing the texts of the tokens already built, e.g. when a parser reused by several modules starts a new module.
+   */
+  public void clearTokenTexts() {
+    tokenTexts.clear();
+  }
+
   @Override
   public Object createNonTerminal(GrammarRuleKey ruleKey, Rule rule, List<Object> children, int startIndex, int endIndex) {
     for (Object child : children) {
@@ -52,13 +62,16 @@ public class JavaNodeBuilder implements NodeBuilder {
   @Override
   public Object createTerminal(Input input, int startIndex, int endIndex, List<Trivia> trivias, TokenType type) {
     boolean isEof = GenericTokenType.EOF.equals(type);
-    LineColumnValue lineColumnValue = tokenPosition(input, startIndex, endIndex);
-    return new InternalSyntaxToken(lineColumnValue.line, lineColumnValue.column, lineColumnValue.value,
-      createTrivias(trivias), startIndex, endIndex, isEof);
+    int[] lineAndColumn = input.lineAndColumnAt(startIndex);
+    String value = tokenTexts.text(input.input(), startIndex, endIndex);
+    return new InternalSyntaxToken(lineAndColumn[0], lineAndColumn[1] - 1, value, createTrivias(trivias), startIndex, isEof);
   }
 
   private static List<SyntaxTrivia> createTrivias(List<Trivia> trivias) {
-    List<SyntaxTrivia> result = Lists.newArrayList();
+    if (trivias.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<SyntaxTrivia> result = Lists.newArrayListWithCapacity(trivias.size());
     for (Trivia trivia : trivias) {
       Token trivialToken = trivia.getToken();
       result.add(InternalSyntaxTrivia.create(trivialToken.getValue(), trivialToken.getLine(), trivialToken.getColumn()));
@@ -66,22 +79,4 @@ public class JavaNodeBuilder implements NodeBuilder {
     return result;
   }
 
-  private static LineColumnValue tokenPosition(Input input, int startIndex, int endIndex) {
-    int[] lineAndColumn = input.lineAndColumnAt(startIndex);
-    String value = input.substring(startIndex, endIndex);
-    return new LineColumnValue(lineAndColumn[0], lineAndColumn[1] - 1, value);
-  }
-
-  private static class LineColumnValue {
-    final int line;
-    final int column;
-    final String value;
-
-    private LineColumnValue(int line, int column, String value) {
-      this.line = line;
-      this.column = column;
-      this.value = value;
-    }
-  }
-
 }
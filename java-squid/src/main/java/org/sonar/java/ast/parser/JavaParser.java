@@ -30,12 +30,16 @@ public class JavaParser {
   }
 
   public static ActionParser<Tree> createParser(Charset charset) {
+    return createParser(charset, new JavaNodeBuilder());
+  }
+
+  public static ActionParser<Tree> createParser(Charset charset, JavaNodeBuilder nodeBuilder) {
     return new ActionParser<Tree>(
       charset,
       JavaLexer.createGrammarBuilder(),
       JavaGrammar.class,
       new TreeFactory(),
-      new JavaNodeBuilder(),
+      nodeBuilder,
       JavaLexer.COMPILATION_UNIT);
   }
 
@@ -21,7 +21,6 @@ package org.sonar.java.ast.parser;
 
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import org.sonar.java.model.JavaTree;
 import org.sonar.plugins.java.api.tree.ListTree;
 import org.sonar.plugins.java.api.tree.SyntaxToken;
@@ -29,6 +28,7 @@ import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.TreeVisitor;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -41,14 +41,23 @@ public abstract class ListTreeImpl<T> extends JavaTree implements ListTree<T> {
   private final List<SyntaxToken> separators;
 
   public ListTreeImpl(GrammarRuleKey grammarRuleKey, List<T> list) {
-    super(grammarRuleKey);
-    this.list = list;
-    this.separators = Lists.newArrayList();
+    this(grammarRuleKey, list, ImmutableList.<SyntaxToken>of());
   }
+
   public ListTreeImpl(GrammarRuleKey grammarRuleKey, List<T> list, List<SyntaxToken> separators) {
     super(grammarRuleKey);
-    this.list = list;
-    this.separators = separators;
+    this.list = trimmed(list);
+    this.separators = trimmed(separators);
+  }
+
+  /**
+   * Lists are built by appending while parsing: drop the spare capacity before they are retained by the tree.
+   */
+  private static <E> List<E> trimmed(List<E> list) {
+    if (list instanceof ArrayList) {
+      ((ArrayList<E>) list).trimToSize();
+    }
+    return list;
   }
 
   @Override
@@ -73,6 +82,25 @@ public abstract class ListTreeImpl<T> extends JavaTree implements ListTree<T> {
   public Iterator<Tree> childrenIterator() {
     return new InterleaveIterator<>(ImmutableList.of(((Iterable<? extends Tree>) list).iterator(), separators.iterator()));
   }
+
+  /**
+   * Same order as {@link #childrenIterator()}: elements interleaved with separators, then the remaining ones, read from the lists.
+   */
+  @Override
+  public int childCount() {
+    return list.size() + separators.size();
+  }
+
+  @Override
+  public Tree child(int i) {
+    int interleaved = Math.min(list.size(), separators.size());
+    if (i < 2 * interleaved) {
+      return i % 2 == 0 ? (Tree) list.get(i / 2) : separators.get(i / 2);
+    }
+    int remaining = i - interleaved;
+    return list.size() > interleaved ? (Tree) list.get(remaining) : separators.get(remaining);
+  }
+
   private static class InterleaveIterator<E> extends AbstractIterator<E>{
 
     private final LinkedList<Iterator<? extends E>> iterables;
@@ -0,0 +1,111 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.parser;
+
+/**
+ * Shares the text of short tokens (keywords, punctuators, identifiers, small literals) between all the tokens of all the files
+ * parsed by a {@link JavaNodeBuilder}.
+ * <p>
+ * Lookups hash the characters of the source buffer directly, so a token whose text was already seen does not allocate any string.
+ * The table stops growing once {@link #MAX_SIZE} distinct texts have been stored; later texts are simply not shared.
+ */
+class TokenTextCache {
+
+  static final int MAX_TOKEN_LENGTH = 32;
+  static final int MAX_SIZE = 1 << 16;
+
+  private String[] table = new String[1024];
+  private int size = 0;
+
+  String text(char[] input, int start, int end) {
+    int length = end - start;
+    if (length > MAX_TOKEN_LENGTH) {
+      return new String(input, start, length);
+    }
+    int hash = hash(input, start, end);
+    int mask = table.length - 1;
+    int index = hash & mask;
+    String candidate = table[index];
+    while (candidate != null) {
+      if (sameText(candidate, input, start, length)) {
+        return candidate;
+      }
+      index = (index + 1) & mask;
+      candidate = table[index];
+    }
+    String text = new String(input, start, length);
+    if (size < MAX_SIZE) {
+      table[index] = text;
+      size++;
+      if (size * 2 > table.length) {
+        resize();
+      }
+    }
+    return text;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    table = new String[1024];
+    size = 0;
+  }
+
+  private void resize() {
+    String[] oldTable = table;
+    table = new String[oldTable.length * 2];
+    int mask = table.length - 1;
+    for (String text : oldTable) {
+      if (text != null) {
+        int index = text.hashCode() & mask;
+        while (table[index] != null) {
+          index = (index + 1) & mask;
+        }
+        table[index] = text;
+      }
+    }
+  }
+
+  /**
+   * Same value as {@link String#hashCode()} of the text, so that entries can be rehashed without the source buffer.
+   */
+  private static int hash(char[] input, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + input[i];
+    }
+    return hash;
+  }
+
+  private static boolean sameText(String text, char[] input, int start, int length) {
+    if (text.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(i) != input[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
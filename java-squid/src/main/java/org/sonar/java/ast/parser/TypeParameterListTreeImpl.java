@@ -79,6 +79,19 @@ public class TypeParameterListTreeImpl extends ListTreeImpl<TypeParameterTree> i
       Iterators.singletonIterator(closeBracketToken));
   }
 
+  @Override
+  public int childCount() {
+    return super.childCount() + 2;
+  }
+
+  @Override
+  public Tree child(int i) {
+    if (i == 0) {
+      return openBracketToken;
+    }
+    return i <= super.childCount() ? super.child(i - 1) : closeBracketToken;
+  }
+
   @Override
   public Kind kind() {
     return Kind.TYPE_PARAMETERS;
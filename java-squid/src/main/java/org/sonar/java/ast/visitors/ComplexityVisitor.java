@@ -21,20 +21,25 @@ package org.sonar.java.ast.visitors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.sonar.java.syntaxtoken.FirstSyntaxTokenFinder;
 import org.sonar.plugins.java.api.tree.BinaryExpressionTree;
 import org.sonar.plugins.java.api.tree.BlockTree;
 import org.sonar.plugins.java.api.tree.CaseLabelTree;
 import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.ConditionalExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.StatementTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class ComplexityVisitor extends SubscriptionVisitor {
 
@@ -42,6 +47,15 @@ public class ComplexityVisitor extends SubscriptionVisitor {
   private Deque<ClassTree> classTrees = new LinkedList<>();
   private boolean analyseAccessors;
 
+  /**
+   * Blame of the whole compilation unit, and for each of its classes and methods, the range of this blame made by its subtree
+   * and whether the method itself was counted.
+   */
+  private CompilationUnitTree memoizedTree;
+  private List<Tree> memoizedBlame;
+  private final Map<Tree, int[]> memoizedRanges = new IdentityHashMap<>();
+  private boolean memoizing;
+
   public ComplexityVisitor(boolean analyseAccessors) {
     this.analyseAccessors = analyseAccessors;
   }
@@ -84,6 +98,71 @@ public class ComplexityVisitor extends SubscriptionVisitor {
     return blame;
   }
 
+  /**
+   * Same result as {@link #scan(Tree)} when the tree is the compilation unit or one of its classes or methods, but read from a single pass
+   * over the compilation unit which is then reused for all of them.
+   */
+  public List<Tree> memoizedScan(CompilationUnitTree compilationUnit, Tree tree) {
+    memoize(compilationUnit);
+    if (tree == compilationUnit) {
+      return Collections.unmodifiableList(memoizedBlame);
+    }
+    int[] range = memoizedRanges.get(tree);
+    if (range == null) {
+      return Lists.newArrayList(scan(tree));
+    }
+    if (tree.is(Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR)) {
+      // scanned alone, a method is not enclosed in a class
+      return methodBlame((MethodTree) tree, range, ((MethodTree) tree).block() != null);
+    }
+    return blame(range);
+  }
+
+  /**
+   * Same result as {@link #scan(ClassTree, MethodTree)}, read from a single pass over the compilation unit.
+   */
+  public List<Tree> memoizedScan(CompilationUnitTree compilationUnit, ClassTree classTree, MethodTree tree) {
+    memoize(compilationUnit);
+    int[] range = memoizedRanges.get(tree);
+    if (range == null) {
+      return Lists.newArrayList(scan(classTree, tree));
+    }
+    return methodBlame(tree, range, tree.block() != null && !(analyseAccessors && AccessorsUtils.isAccessor(classTree, tree)));
+  }
+
+  private List<Tree> methodBlame(MethodTree tree, int[] range, boolean counted) {
+    boolean memoizedCounted = range[2] == 1;
+    if (counted == memoizedCounted) {
+      return blame(range);
+    }
+    if (memoizedCounted) {
+      // the method name is the first element of its range
+      return Collections.unmodifiableList(memoizedBlame.subList(range[0] + 1, range[1]));
+    }
+    List<Tree> result = new ArrayList<>(range[1] - range[0] + 1);
+    result.add(tree.simpleName().identifierToken());
+    result.addAll(memoizedBlame.subList(range[0], range[1]));
+    return Collections.unmodifiableList(result);
+  }
+
+  private List<Tree> blame(int[] range) {
+    return Collections.unmodifiableList(memoizedBlame.subList(range[0], range[1]));
+  }
+
+  private void memoize(CompilationUnitTree compilationUnit) {
+    if (memoizedTree == compilationUnit) {
+      return;
+    }
+    memoizedRanges.clear();
+    memoizing = true;
+    try {
+      memoizedBlame = new ArrayList<>(scan(compilationUnit));
+    } finally {
+      memoizing = false;
+    }
+    memoizedTree = compilationUnit;
+  }
+
   @Override
   public void visitNode(Tree tree) {
     switch (tree.kind()) {
@@ -91,10 +170,13 @@ public class ComplexityVisitor extends SubscriptionVisitor {
       case ENUM:
       case ANNOTATION_TYPE:
         classTrees.push((ClassTree) tree);
+        enterRange(tree, false);
         break;
       case METHOD:
       case CONSTRUCTOR:
+        int size = blame.size();
         computeMethodComplexity((MethodTree) tree);
+        enterRange(tree, blame.size() > size);
         break;
       case CASE_LABEL:
         CaseLabelTree caseLabelTree = (CaseLabelTree) tree;
@@ -131,6 +213,19 @@ public class ComplexityVisitor extends SubscriptionVisitor {
     }
   }
 
+  private void enterRange(Tree tree, boolean counted) {
+    if (memoizing) {
+      int start = counted ? (blame.size() - 1) : blame.size();
+      memoizedRanges.put(tree, new int[] {start, start, counted ? 1 : 0});
+    }
+  }
+
+  private void leaveRange(Tree tree) {
+    if (memoizing) {
+      memoizedRanges.get(tree)[1] = blame.size();
+    }
+  }
+
   private boolean isAccessor(MethodTree methodTree) {
     return analyseAccessors && AccessorsUtils.isAccessor(classTrees.peek(), methodTree);
   }
@@ -143,10 +238,12 @@ public class ComplexityVisitor extends SubscriptionVisitor {
       case ENUM:
       case ANNOTATION_TYPE:
         classTrees.pop();
+        leaveRange(tree);
         break;
       case METHOD:
       case CONSTRUCTOR:
         leaveMethod((MethodTree) tree);
+        leaveRange(tree);
         break;
       default:
         // nothing to do
@@ -159,7 +256,27 @@ public class ComplexityVisitor extends SubscriptionVisitor {
       StatementTree last = Iterables.getLast(block.body());
       if (last.is(Tree.Kind.RETURN_STATEMENT)) {
         // minus one because we are going to count the return with +1
-        blame.remove(blame.size() - 1);
+        removeBlame(FirstSyntaxTokenFinder.firstSyntaxToken(last));
+      }
+    }
+  }
+
+  /**
+   * The return may enclose anonymous or local classes whose blame comes after its own, so its token is looked up rather than assumed last,
+   * and the memoized ranges of those classes are shifted accordingly.
+   */
+  private void removeBlame(Tree token) {
+    int index = blame.size() - 1;
+    while (blame.get(index) != token) {
+      index--;
+    }
+    blame.remove(index);
+    if (memoizing && index < blame.size()) {
+      for (int[] range : memoizedRanges.values()) {
+        if (range[0] > index) {
+          range[0]--;
+          range[1]--;
+        }
       }
     }
   }
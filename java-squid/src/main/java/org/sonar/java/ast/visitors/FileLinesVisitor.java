@@ -26,6 +26,7 @@ import com.google.common.io.Files;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.java.SonarComponents;
+import org.sonar.java.ThreadConfined;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.SyntaxToken;
 import org.sonar.plugins.java.api.tree.SyntaxTrivia;
@@ -39,6 +40,7 @@ import java.util.Set;
 /**
  * Saves information about lines directly into Sonar by using {@link FileLinesContext}.
  */
+@ThreadConfined
 public class FileLinesVisitor extends SubscriptionVisitor {
 
   private final SonarComponents sonarComponents;
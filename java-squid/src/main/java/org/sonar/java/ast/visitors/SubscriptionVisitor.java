@@ -27,15 +27,15 @@ import org.sonar.plugins.java.api.tree.SyntaxToken;
 import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
 
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class SubscriptionVisitor implements JavaFileScanner {
 
 
   protected JavaFileScannerContext context;
-  private Collection<Tree.Kind> nodesToVisit;
+  private Set<Tree.Kind> nodesToVisit;
   private boolean visitToken;
   private boolean visitTrivia;
   private SemanticModel semanticModel;
@@ -66,10 +66,13 @@ public abstract class SubscriptionVisitor implements JavaFileScanner {
   }
 
   protected void scanTree(Tree tree) {
-    nodesToVisit = nodesToVisit();
+    nodesToVisit = EnumSet.noneOf(Tree.Kind.class);
+    nodesToVisit.addAll(nodesToVisit());
     visitToken = isVisitingTokens();
     visitTrivia = isVisitingTrivia();
-    visit(tree);
+    if (!nodesToVisit.isEmpty()) {
+      visit(tree);
+    }
   }
 
   private void visit(Tree tree) {
@@ -108,12 +111,11 @@ public abstract class SubscriptionVisitor implements JavaFileScanner {
 
   private void visitChildren(Tree tree) {
     JavaTree javaTree = (JavaTree) tree;
-    if (!javaTree.isLeaf()) {
-      for (Iterator<Tree> iter = javaTree.childrenIterator(); iter.hasNext(); ) {
-        Tree next = iter.next();
-        if (next != null) {
-          visit(next);
-        }
+    int childCount = javaTree.childCount();
+    for (int i = 0; i < childCount; i++) {
+      Tree child = javaTree.child(i);
+      if (child != null) {
+        visit(child);
       }
     }
   }
@@ -27,6 +27,7 @@ import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 import org.sonar.api.source.Highlightable;
 import org.sonar.java.SonarComponents;
+import org.sonar.java.ThreadConfined;
 import org.sonar.java.ast.api.JavaKeyword;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.AnnotationTree;
@@ -45,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+@ThreadConfined
 public class SyntaxHighlighterVisitor extends SubscriptionVisitor {
 
   private final SonarComponents sonarComponents;
@@ -24,6 +24,8 @@ import org.sonar.java.bytecode.asm.AsmClassProvider;
 import org.sonar.java.bytecode.asm.AsmClassProvider.DETAIL_LEVEL;
 import org.sonar.java.bytecode.asm.AsmClassProviderImpl;
 import org.sonar.java.bytecode.asm.AsmMethod;
+import org.sonar.java.bytecode.loader.ClassLoaderOptions;
+import org.sonar.java.bytecode.loader.JarCache;
 import org.sonar.java.bytecode.loader.SquidClassLoader;
 import org.sonar.java.bytecode.visitor.BytecodeVisitor;
 import org.sonar.plugins.java.api.JavaResourceLocator;
@@ -32,6 +34,7 @@ import org.sonar.squidbridge.api.CodeScanner;
 import org.sonar.squidbridge.api.CodeVisitor;
 import org.sonar.squidbridge.indexer.SquidIndex;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
@@ -40,15 +43,33 @@ public class BytecodeScanner extends CodeScanner<BytecodeVisitor> {
 
   private final SquidIndex indexer;
   private JavaResourceLocator javaResourceLocator;
+  private JarCache jarCache;
+  private ClassFileInventory classFileInventory;
 
   public BytecodeScanner(SquidIndex indexer, JavaResourceLocator javaResourceLocator) {
     this.indexer = indexer;
     this.javaResourceLocator = javaResourceLocator;
   }
 
+  public void setJarCache(@Nullable JarCache jarCache) {
+    this.jarCache = jarCache;
+  }
+
+  public void setClassFileInventory(@Nullable ClassFileInventory classFileInventory) {
+    this.classFileInventory = classFileInventory;
+  }
+
   public BytecodeScanner scan(Collection<File> bytecodeFilesOrDirectories) {
-    ClassLoader classLoader = ClassLoaderBuilder.create(bytecodeFilesOrDirectories);
-    scanClasses(javaResourceLocator.classKeys(), new AsmClassProviderImpl(classLoader));
+    return scan(bytecodeFilesOrDirectories, javaResourceLocator.classKeys());
+  }
+
+  /**
+   * @param classKeys classes to scan, e.g. those of the main files when test files are still being added to the resource locator
+   */
+  public BytecodeScanner scan(Collection<File> bytecodeFilesOrDirectories, Collection<String> classKeys) {
+    ClassLoader classLoader = ClassLoaderBuilder.create(bytecodeFilesOrDirectories,
+      new ClassLoaderOptions().setJarCache(jarCache).setClassFileInventory(classFileInventory));
+    scanClasses(classKeys, new AsmClassProviderImpl(classLoader));
     // TODO unchecked cast
     ((SquidClassLoader) classLoader).close();
     return this;
@@ -0,0 +1,169 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Class files of binary directories, listed once per analysis and indexed by internal name (e.g. <tt>org/example/Foo$Bar</tt>).
+ * When several directories have a class file with the same name, the first directory wins, as on a classpath.
+ */
+public class ClassFileInventory {
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private final Map<File, Map<String, ClassFile>> classFilesByDirectory = Maps.newLinkedHashMap();
+  private final Map<String, ClassFile> classFiles = Maps.newLinkedHashMap();
+
+  private ClassFileInventory() {
+  }
+
+  public static ClassFileInventory create(Collection<File> directories) {
+    ClassFileInventory inventory = new ClassFileInventory();
+    for (File directory : directories) {
+      File key = directory.getAbsoluteFile();
+      if (directory.isDirectory() && !inventory.classFilesByDirectory.containsKey(key)) {
+        Map<String, ClassFile> directoryClassFiles = list(directory);
+        inventory.classFilesByDirectory.put(key, directoryClassFiles);
+        for (Map.Entry<String, ClassFile> entry : directoryClassFiles.entrySet()) {
+          if (!inventory.classFiles.containsKey(entry.getKey())) {
+            inventory.classFiles.put(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+    return inventory;
+  }
+
+  private static Map<String, ClassFile> list(File directory) {
+    final Map<String, ClassFile> result = Maps.newLinkedHashMap();
+    final Path root = directory.toPath();
+    try {
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+          String relativePath = root.relativize(file).toString();
+          if (attributes.isRegularFile() && relativePath.endsWith(CLASS_SUFFIX)) {
+            String internalName = relativePath.substring(0, relativePath.length() - CLASS_SUFFIX.length()).replace(File.separatorChar, '/');
+            result.put(internalName, new ClassFile(file.toFile(), attributes.size(), attributes.lastModifiedTime().toMillis()));
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          // unreadable file or symbolic link cycle: ignored as File.listFiles does
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to list class files of " + directory.getAbsolutePath(), e);
+    }
+    return result;
+  }
+
+  public boolean isEmpty() {
+    return classFiles.isEmpty();
+  }
+
+  /**
+   * @return whether the given directory was listed by this inventory
+   */
+  public boolean covers(File directory) {
+    return classFilesByDirectory.containsKey(directory.getAbsoluteFile());
+  }
+
+  /**
+   * @return whether the given directory, listed by this inventory, has class files
+   */
+  public boolean hasClassFiles(File directory) {
+    Map<String, ClassFile> directoryClassFiles = classFilesByDirectory.get(directory.getAbsoluteFile());
+    return directoryClassFiles != null && !directoryClassFiles.isEmpty();
+  }
+
+  @CheckForNull
+  public ClassFile classFile(String internalName) {
+    return classFiles.get(internalName);
+  }
+
+  /**
+   * @return class file of the given directory, or <tt>null</tt> if the directory has none with this name or was not listed
+   */
+  @CheckForNull
+  public ClassFile classFile(File directory, String internalName) {
+    Map<String, ClassFile> directoryClassFiles = classFilesByDirectory.get(directory.getAbsoluteFile());
+    return directoryClassFiles == null ? null : directoryClassFiles.get(internalName);
+  }
+
+  /**
+   * @return class files indexed by internal name, in the order of the directories
+   */
+  public Map<String, ClassFile> classFiles() {
+    return Collections.unmodifiableMap(classFiles);
+  }
+
+  /**
+   * @return class files of the given directory indexed by internal name, empty if the directory was not listed
+   */
+  public Map<String, ClassFile> classFiles(File directory) {
+    Map<String, ClassFile> directoryClassFiles = classFilesByDirectory.get(directory.getAbsoluteFile());
+    return directoryClassFiles == null ? Collections.<String, ClassFile>emptyMap() : Collections.unmodifiableMap(directoryClassFiles);
+  }
+
+  public static class ClassFile {
+
+    private final File file;
+    private final long size;
+    private final long lastModified;
+
+    ClassFile(File file, long size, long lastModified) {
+      this.file = file;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    public File file() {
+      return file;
+    }
+
+    public long size() {
+      return size;
+    }
+
+    public long lastModified() {
+      return lastModified;
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ package org.sonar.java.bytecode;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.java.bytecode.loader.ClassLoaderOptions;
 import org.sonar.java.bytecode.loader.SquidClassLoader;
 
 import java.io.File;
@@ -38,6 +39,10 @@ public final class ClassLoaderBuilder {
   }
 
   public static ClassLoader create(Collection<File> bytecodeFilesOrDirectories) {
+    return create(bytecodeFilesOrDirectories, new ClassLoaderOptions());
+  }
+
+  public static ClassLoader create(Collection<File> bytecodeFilesOrDirectories, ClassLoaderOptions options) {
     List<File> files = Lists.newArrayList();
     for (File file : bytecodeFilesOrDirectories) {
       if (file.isFile() && file.getPath().endsWith(".class")) {
@@ -56,7 +61,7 @@ public final class ClassLoaderBuilder {
     }
 
     try {
-      return new SquidClassLoader(files);
+      return new SquidClassLoader(files, options);
     } catch (Exception e) {
       throw new IllegalStateException("Can not create ClassLoader", e);
     }
@@ -0,0 +1,337 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Read-only store of the class files of a JAR, stripped of method bodies and debug information.
+ * <p>
+ * A store is written once per version of a JAR into <tt>&lt;directory&gt;/&lt;sha1 of the JAR path, size and modification time&gt;.classes</tt>
+ * and then memory-mapped, so that later analyses read class files without inflating nor even reading the JAR and share the mapped pages.
+ * Layout: a header (magic, version, entry count), a table of entries sorted by name (name offset, name length, data offset, data length),
+ * the UTF-8 names and the class file bytes.
+ */
+final class ClassFileStore {
+
+  private static final int MAGIC = 0x4A435346;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 12;
+  private static final int ENTRY_SIZE = 16;
+  private static final String SUFFIX = ".classes";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final Comparator<byte[]> UNSIGNED_BYTES = new Comparator<byte[]>() {
+    @Override
+    public int compare(byte[] left, byte[] right) {
+      int length = Math.min(left.length, right.length);
+      for (int i = 0; i < length; i++) {
+        int diff = (left[i] & 0xFF) - (right[i] & 0xFF);
+        if (diff != 0) {
+          return diff;
+        }
+      }
+      return left.length - right.length;
+    }
+  };
+
+  private static final Logger LOG = LoggerFactory.getLogger(ClassFileStore.class);
+
+  /**
+   * Stores already mapped in this process and JARs whose store could not be used, keyed by directory, JAR path, size and modification time.
+   * Both are cleared once {@link #MAX_OPENED} JARs are known, mapped pages being released when no loader uses them anymore.
+   */
+  private static final int MAX_OPENED = 1000;
+  private static final ConcurrentMap<String, ClassFileStore> OPENED = new ConcurrentHashMap<String, ClassFileStore>();
+  private static final Set<String> FAILED = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private static final Set<String> WARNED_DIRECTORIES = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private final ByteBuffer buffer;
+  private final int size;
+
+  private ClassFileStore(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.size = buffer.getInt(8);
+  }
+
+  /**
+   * @return the store, or <tt>null</tt> if it can not be read nor written, in which case the JAR is not tried again by this process
+   */
+  @CheckForNull
+  static ClassFileStore forJar(File jar, File directory) {
+    String key = directory.getAbsolutePath() + File.pathSeparator + jar.getAbsolutePath() + File.pathSeparator + jar.length() + File.pathSeparator + jar.lastModified();
+    ClassFileStore store = OPENED.get(key);
+    if (store != null || FAILED.contains(key)) {
+      return store;
+    }
+    if (OPENED.size() + FAILED.size() >= MAX_OPENED) {
+      OPENED.clear();
+      FAILED.clear();
+    }
+    try {
+      store = open(jar, directory);
+    } catch (IOException e) {
+      FAILED.add(key);
+      warn(jar, directory, e);
+      return null;
+    }
+    ClassFileStore previous = OPENED.putIfAbsent(key, store);
+    return previous != null ? previous : store;
+  }
+
+  /**
+   * An unusable directory fails for every JAR: only the first failure of each directory is a warning.
+   */
+  private static void warn(File jar, File directory, IOException e) {
+    String message = "Class file store not used for " + jar.getAbsolutePath() + ": " + e.getMessage();
+    if (WARNED_DIRECTORIES.add(directory.getAbsolutePath())) {
+      LOG.warn(message);
+    } else {
+      LOG.debug(message);
+    }
+  }
+
+  static ClassFileStore open(File jar, File directory) throws IOException {
+    File file = new File(directory, sha1(jar.getAbsolutePath() + File.pathSeparator + jar.length() + File.pathSeparator + jar.lastModified()) + SUFFIX);
+    if (file.isFile()) {
+      ClassFileStore store = map(file);
+      if (store != null) {
+        return store;
+      }
+    }
+    checkWritable(directory);
+    write(jar, file);
+    ClassFileStore store = map(file);
+    if (store == null) {
+      throw new IOException("Invalid class file store " + file.getAbsolutePath());
+    }
+    return store;
+  }
+
+  @CheckForNull
+  private static ClassFileStore map(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      if (channel.size() < HEADER_SIZE) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || HEADER_SIZE + (long) buffer.getInt(8) * ENTRY_SIZE > buffer.capacity()) {
+        return null;
+      }
+      return new ClassFileStore(buffer);
+    } finally {
+      IOUtils.closeQuietly(randomAccessFile);
+    }
+  }
+
+  /**
+   * Checked before the classes of the JAR are read, which is the costly part of writing a store.
+   */
+  private static void checkWritable(File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+    }
+    if (!directory.canWrite()) {
+      throw new IOException("Directory " + directory.getAbsolutePath() + " is not writable");
+    }
+  }
+
+  /**
+   * Writes the store into a temporary file which is then renamed, so that concurrent analyses never read a partial store.
+   */
+  static void write(File jar, File file) throws IOException {
+    File directory = file.getParentFile();
+    checkWritable(directory);
+    TreeMap<byte[], byte[]> classes = readClasses(jar);
+    File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(classes.size());
+      int namesOffset = HEADER_SIZE + classes.size() * ENTRY_SIZE;
+      int dataOffset = namesOffset;
+      for (byte[] name : classes.keySet()) {
+        dataOffset += name.length;
+      }
+      for (Map.Entry<byte[], byte[]> entry : classes.entrySet()) {
+        out.writeInt(namesOffset);
+        out.writeInt(entry.getKey().length);
+        out.writeInt(dataOffset);
+        out.writeInt(entry.getValue().length);
+        namesOffset += entry.getKey().length;
+        dataOffset += entry.getValue().length;
+      }
+      for (byte[] name : classes.keySet()) {
+        out.write(name);
+      }
+      for (byte[] bytes : classes.values()) {
+        out.write(bytes);
+      }
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    if (!temporary.renameTo(file)) {
+      // Another analysis may have written the same store meanwhile
+      temporary.delete();
+      if (!file.isFile()) {
+        throw new IOException("Unable to write " + file.getAbsolutePath());
+      }
+    }
+  }
+
+  private static TreeMap<byte[], byte[]> readClasses(File jar) throws IOException {
+    TreeMap<byte[], byte[]> classes = new TreeMap<byte[], byte[]>(UNSIGNED_BYTES);
+    JarFile jarFile = new JarFile(jar);
+    try {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        byte[] name = entry.getName().getBytes(UTF8);
+        if (!entry.isDirectory() && entry.getName().endsWith(".class") && !classes.containsKey(name)) {
+          InputStream is = jarFile.getInputStream(entry);
+          try {
+            classes.put(name, strip(IOUtils.toByteArray(is)));
+          } finally {
+            IOUtils.closeQuietly(is);
+          }
+        }
+      }
+    } finally {
+      jarFile.close();
+    }
+    return classes;
+  }
+
+  private static byte[] strip(byte[] classFile) {
+    try {
+      ClassWriter classWriter = new ClassWriter(0);
+      new ClassReader(classFile).accept(classWriter, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+      return classWriter.toByteArray();
+    } catch (RuntimeException e) {
+      // Not readable by ASM (e.g. newer class file version): keep it as is
+      return classFile;
+    }
+  }
+
+  private static String sha1(String text) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest.update(text.getBytes(UTF8));
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(String name) {
+    return indexOf(name) >= 0;
+  }
+
+  /**
+   * @return bytes of the stripped class file, or <tt>null</tt> if the store has no such entry
+   */
+  @CheckForNull
+  byte[] bytes(String name) {
+    int index = indexOf(name);
+    if (index < 0) {
+      return null;
+    }
+    int entry = HEADER_SIZE + index * ENTRY_SIZE;
+    byte[] result = new byte[buffer.getInt(entry + 12)];
+    ByteBuffer view = buffer.duplicate();
+    view.position(buffer.getInt(entry + 8));
+    view.get(result);
+    return result;
+  }
+
+  private int indexOf(String name) {
+    byte[] key = name.getBytes(UTF8);
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareName(mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int compareName(int index, byte[] key) {
+    int entry = HEADER_SIZE + index * ENTRY_SIZE;
+    int offset = buffer.getInt(entry);
+    int length = buffer.getInt(entry + 4);
+    int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      int diff = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return length - key.length;
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+
+/**
+ * Loads class files of a JAR from its {@link ClassFileStore}: resources of class files have no method bodies.
+ * Other resources, and bytes of classes to define, are read from the JAR itself, which is only opened when needed.
+ */
+class ClassFileStoreLoader implements Loader {
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private final File file;
+  private final ClassFileStore store;
+  private final URL jarUrl;
+  private JarLoader jarLoader;
+  private boolean closed;
+
+  public ClassFileStoreLoader(File file, ClassFileStore store) {
+    this.file = file;
+    this.store = store;
+    try {
+      jarUrl = new URL("jar", "", -1, file.getAbsolutePath() + "!/");
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Unable to open " + file.getAbsolutePath(), e);
+    }
+  }
+
+  @Override
+  public URL findResource(String name) {
+    if (!name.endsWith(CLASS_SUFFIX)) {
+      return jarLoader().findResource(name);
+    }
+    if (store.contains(name)) {
+      try {
+        return new URL(jarUrl, name, new StoreEntryHandler(name));
+      } catch (MalformedURLException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public byte[] loadBytes(String name) {
+    return jarLoader().loadBytes(name);
+  }
+
+  private JarLoader jarLoader() {
+    if (closed) {
+      throw new IllegalStateException("Loader of " + file.getAbsolutePath() + " is closed");
+    }
+    if (jarLoader == null) {
+      jarLoader = new JarLoader(file);
+    }
+    return jarLoader;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    if (jarLoader != null) {
+      jarLoader.close();
+      jarLoader = null;
+    }
+  }
+
+  private class StoreEntryHandler extends URLStreamHandler {
+
+    private final String name;
+
+    StoreEntryHandler(String name) {
+      this.name = name;
+    }
+
+    @Override
+    protected URLConnection openConnection(URL u) throws IOException {
+      return new URLConnection(u) {
+        @Override
+        public void connect() throws IOException {
+          // nop
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          byte[] bytes = store.bytes(name);
+          if (bytes == null) {
+            throw new IOException("No entry " + name + " in class file store of " + file.getAbsolutePath());
+          }
+          return new ByteArrayInputStream(bytes);
+        }
+      };
+    }
+  }
+
+}
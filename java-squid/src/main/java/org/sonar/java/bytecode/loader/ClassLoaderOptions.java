@@ -0,0 +1,79 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import org.sonar.java.bytecode.ClassFileInventory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+
+/**
+ * Optional ways for a {@link SquidClassLoader} to read class files faster than from the classpath elements themselves, all unset by default.
+ */
+public class ClassLoaderOptions {
+
+  private File classFileStoreDirectory;
+  private JarCache jarCache;
+  private ClassFileInventory classFileInventory;
+
+  @CheckForNull
+  public File classFileStoreDirectory() {
+    return classFileStoreDirectory;
+  }
+
+  /**
+   * @param classFileStoreDirectory when not null, class file resources of the JARs (including the ones of the JDK boot class path) are read
+   *                                from memory-mapped stores kept in this directory, without method bodies: they are only suitable to read
+   *                                signatures, not to define classes
+   */
+  public ClassLoaderOptions setClassFileStoreDirectory(@Nullable File classFileStoreDirectory) {
+    this.classFileStoreDirectory = classFileStoreDirectory;
+    return this;
+  }
+
+  @CheckForNull
+  public JarCache jarCache() {
+    return jarCache;
+  }
+
+  /**
+   * @param jarCache when not null, JARs without store are opened and read through this cache, shared with other class loaders
+   */
+  public ClassLoaderOptions setJarCache(@Nullable JarCache jarCache) {
+    this.jarCache = jarCache;
+    return this;
+  }
+
+  @CheckForNull
+  public ClassFileInventory classFileInventory() {
+    return classFileInventory;
+  }
+
+  /**
+   * @param classFileInventory when not null, class files of the directories it lists are looked up in it instead of on disk
+   */
+  public ClassLoaderOptions setClassFileInventory(@Nullable ClassFileInventory classFileInventory) {
+    this.classFileInventory = classFileInventory;
+    return this;
+  }
+
+}
@@ -20,7 +20,10 @@
 package org.sonar.java.bytecode.loader;
 
 import org.apache.commons.io.IOUtils;
+import org.sonar.java.bytecode.ClassFileInventory;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -30,13 +33,24 @@ import java.net.URL;
 
 class FileSystemLoader implements Loader {
 
+  private static final String CLASS_SUFFIX = ".class";
+
   private File baseDir;
+  private final ClassFileInventory inventory;
 
   public FileSystemLoader(File baseDir) {
+    this(baseDir, null);
+  }
+
+  /**
+   * @param inventory when it covers the directory, class files are looked up in it instead of on disk
+   */
+  public FileSystemLoader(File baseDir, @Nullable ClassFileInventory inventory) {
     if (baseDir == null) {
       throw new IllegalArgumentException("baseDir can't be null");
     }
     this.baseDir = baseDir;
+    this.inventory = inventory != null && inventory.covers(baseDir) ? inventory : null;
   }
 
   @Override
@@ -44,8 +58,8 @@ class FileSystemLoader implements Loader {
     if (baseDir == null) {
       throw new IllegalStateException("Loader closed");
     }
-    File file = new File(baseDir, name);
-    if (file.exists() && file.isFile()) {
+    File file = file(name);
+    if (file != null && file.exists() && file.isFile()) {
       try {
         return file.toURI().toURL();
       } catch (MalformedURLException e) {
@@ -60,8 +74,8 @@ class FileSystemLoader implements Loader {
     if (baseDir == null) {
       throw new IllegalStateException("Loader closed");
     }
-    File file = new File(baseDir, name);
-    if (!file.exists()) {
+    File file = file(name);
+    if (file == null || !file.exists()) {
       return new byte[0];
     }
     InputStream is = null;
@@ -75,6 +89,15 @@ class FileSystemLoader implements Loader {
     }
   }
 
+  @CheckForNull
+  private File file(String name) {
+    if (inventory != null && name.endsWith(CLASS_SUFFIX)) {
+      ClassFileInventory.ClassFile classFile = inventory.classFile(baseDir, name.substring(0, name.length() - CLASS_SUFFIX.length()));
+      return classFile == null ? null : classFile.file();
+    }
+    return new File(baseDir, name);
+  }
+
   @Override
   public void close() {
     baseDir = null;
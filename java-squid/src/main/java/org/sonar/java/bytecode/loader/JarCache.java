@@ -0,0 +1,264 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Cache of opened JARs and of the class files read from them, shared by the class loaders of several analyses (e.g. all the modules of a
+ * multi-module project). JARs are keyed by canonical path, size and modification time, and the least recently used ones are closed
+ * when the estimated footprint of the cache exceeds its maximum.
+ * <p>
+ * A loader resolves its JAR once with {@link #jar(File)}. Lookups of class files already read then take no lock of the cache: only
+ * opening a JAR and reading an entry from it do.
+ */
+public class JarCache implements Closeable {
+
+  /**
+   * Estimated memory kept by an opened JAR for each of its entries.
+   */
+  private static final int ENTRY_FOOTPRINT = 100;
+
+  private final long maxFootprint;
+  private final AtomicLong clock = new AtomicLong();
+  /**
+   * All the JARs resolved by loaders, opened or not.
+   */
+  private final Map<String, CachedJar> jars = new HashMap<String, CachedJar>();
+  private final Set<CachedJar> openedJars = new HashSet<CachedJar>();
+  private long footprint;
+
+  /**
+   * @param maxFootprint estimated number of bytes above which least recently used JARs are evicted
+   */
+  public JarCache(long maxFootprint) {
+    this.maxFootprint = maxFootprint;
+  }
+
+  /**
+   * @return the cached JAR of the given file, which is opened on first lookup
+   */
+  synchronized CachedJar jar(File file) {
+    String key = key(file);
+    CachedJar jar = jars.get(key);
+    if (jar == null) {
+      jar = new CachedJar(file, this);
+      jars.put(key, jar);
+    }
+    return jar;
+  }
+
+  public synchronized long footprint() {
+    return footprint;
+  }
+
+  /**
+   * @return number of opened JARs
+   */
+  public synchronized int size() {
+    return openedJars.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    for (CachedJar jar : openedJars) {
+      jar.close();
+    }
+    openedJars.clear();
+    jars.clear();
+    footprint = 0;
+  }
+
+  private synchronized void opened(CachedJar jar, long jarFootprint) {
+    openedJars.add(jar);
+    jar.footprint = jarFootprint;
+    footprint += jarFootprint;
+    evict(jar);
+  }
+
+  private synchronized void read(CachedJar jar, String name, int length) {
+    if (openedJars.contains(jar)) {
+      jar.footprint += length;
+      footprint += length;
+      evict(jar);
+    } else {
+      // evicted meanwhile
+      jar.bytes.remove(name);
+    }
+  }
+
+  /**
+   * Evicts least recently used JARs, always keeping the one just used.
+   */
+  private void evict(CachedJar used) {
+    while (footprint > maxFootprint && openedJars.size() > 1) {
+      CachedJar eldest = null;
+      for (CachedJar jar : openedJars) {
+        if (jar != used && (eldest == null || jar.lastUse < eldest.lastUse)) {
+          eldest = jar;
+        }
+      }
+      openedJars.remove(eldest);
+      footprint -= eldest.footprint;
+      eldest.close();
+    }
+  }
+
+  private static String key(File file) {
+    String path;
+    try {
+      path = file.getCanonicalPath();
+    } catch (IOException e) {
+      path = file.getAbsolutePath();
+    }
+    return path + File.pathSeparator + file.length() + File.pathSeparator + file.lastModified();
+  }
+
+  /**
+   * JAR of a {@link JarCache}. It is closed and its class files are dropped when it is evicted, and it is opened again on next lookup.
+   */
+  static final class CachedJar {
+
+    private final File file;
+    private final JarCache cache;
+    private final ConcurrentMap<String, byte[]> bytes = new ConcurrentHashMap<String, byte[]>();
+    private JarFile jarFile;
+    private volatile long lastUse;
+    /**
+     * Guarded by the cache.
+     */
+    private long footprint;
+
+    private CachedJar(File file, JarCache cache) {
+      this.file = file;
+      this.cache = cache;
+    }
+
+    /**
+     * @return whether the JAR has an entry with the given name
+     * @throws IllegalStateException if the JAR can not be opened
+     */
+    boolean contains(String name) {
+      lastUse = cache.clock.incrementAndGet();
+      if (bytes.containsKey(name)) {
+        return true;
+      }
+      long openedFootprint;
+      boolean found;
+      synchronized (this) {
+        openedFootprint = open();
+        found = jarFile.getEntry(name) != null;
+      }
+      if (openedFootprint > 0) {
+        cache.opened(this, openedFootprint);
+      }
+      return found;
+    }
+
+    /**
+     * @return bytes of the entry with the given name, or <tt>null</tt> if the JAR has no such entry or if it can not be read
+     * @throws IllegalStateException if the JAR can not be opened
+     */
+    @CheckForNull
+    byte[] bytes(String name) {
+      lastUse = cache.clock.incrementAndGet();
+      byte[] result = bytes.get(name);
+      if (result != null) {
+        return result;
+      }
+      long openedFootprint;
+      synchronized (this) {
+        openedFootprint = open();
+        result = read(name);
+      }
+      if (openedFootprint > 0) {
+        cache.opened(this, openedFootprint);
+      }
+      if (result != null) {
+        byte[] previous = bytes.putIfAbsent(name, result);
+        if (previous != null) {
+          return previous;
+        }
+        cache.read(this, name, result.length);
+      }
+      return result;
+    }
+
+    /**
+     * @return estimated footprint of the JAR if it has just been opened, 0 if it was already
+     */
+    private long open() {
+      if (jarFile != null) {
+        return 0;
+      }
+      try {
+        jarFile = new JarFile(file);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to open " + file.getAbsolutePath(), e);
+      }
+      return Math.max(1, (long) jarFile.size() * ENTRY_FOOTPRINT);
+    }
+
+    @CheckForNull
+    private byte[] read(String name) {
+      ZipEntry entry = jarFile.getEntry(name);
+      if (entry == null) {
+        return null;
+      }
+      InputStream is = null;
+      try {
+        is = jarFile.getInputStream(entry);
+        return IOUtils.toByteArray(is);
+      } catch (IOException e) {
+        return null;
+      } finally {
+        IOUtils.closeQuietly(is);
+      }
+    }
+
+    private synchronized void close() {
+      bytes.clear();
+      if (jarFile != null) {
+        try {
+          jarFile.close();
+        } catch (IOException e) {
+          // ignore
+        }
+        jarFile = null;
+      }
+    }
+  }
+
+}
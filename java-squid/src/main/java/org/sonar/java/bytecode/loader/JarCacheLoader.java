@@ -0,0 +1,110 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+
+/**
+ * Loads resources of a JAR through a {@link JarCache}, which owns the opened JAR: closing this loader does not close it.
+ */
+class JarCacheLoader implements Loader {
+
+  private final File file;
+  private final JarCache.CachedJar jar;
+  private final URL jarUrl;
+  private boolean closed;
+
+  public JarCacheLoader(File file, JarCache cache) {
+    this.file = file;
+    this.jar = cache.jar(file);
+    try {
+      jarUrl = new URL("jar", "", -1, file.getAbsolutePath() + "!/");
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Unable to open " + file.getAbsolutePath(), e);
+    }
+  }
+
+  @Override
+  public URL findResource(String name) {
+    checkOpen();
+    if (jar.contains(name)) {
+      try {
+        return new URL(jarUrl, name, new CachedEntryHandler(name));
+      } catch (MalformedURLException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public byte[] loadBytes(String name) {
+    checkOpen();
+    byte[] bytes = jar.bytes(name);
+    return bytes == null ? new byte[0] : bytes;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Loader of " + file.getAbsolutePath() + " is closed");
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  private class CachedEntryHandler extends URLStreamHandler {
+
+    private final String name;
+
+    CachedEntryHandler(String name) {
+      this.name = name;
+    }
+
+    @Override
+    protected URLConnection openConnection(URL u) throws IOException {
+      return new URLConnection(u) {
+        @Override
+        public void connect() throws IOException {
+          // nop
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          byte[] bytes = jar.bytes(name);
+          if (bytes == null) {
+            throw new IOException("Unable to read " + name + " from " + file.getAbsolutePath());
+          }
+          return new ByteArrayInputStream(bytes);
+        }
+      };
+    }
+  }
+
+}
@@ -19,9 +19,11 @@
  */
 package org.sonar.java.bytecode.loader;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.Iterators;
 import org.apache.commons.lang.ArrayUtils;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -36,24 +38,55 @@ import java.util.List;
 public class SquidClassLoader extends ClassLoader implements Closeable {
 
   private final List<Loader> loaders;
+  private final List<Loader> bootLoaders;
 
   /**
    * @param files ordered list of files and directories from which to load classes and resources
    */
   public SquidClassLoader(List<File> files) {
+    this(files, new ClassLoaderOptions());
+  }
+
+  /**
+   * @param files ordered list of files and directories from which to load classes and resources
+   */
+  public SquidClassLoader(List<File> files, ClassLoaderOptions options) {
     super(null);
     loaders = new ArrayList<Loader>();
     for (File file : files) {
       if (file.exists()) {
         if (file.isDirectory()) {
-          loaders.add(new FileSystemLoader(file));
+          loaders.add(new FileSystemLoader(file, options.classFileInventory()));
         } else if (file.getName().endsWith(".jar")) {
-          loaders.add(new JarLoader(file));
+          loaders.add(jarLoader(file, options.classFileStoreDirectory(), options.jarCache()));
+        }
+      }
+    }
+    bootLoaders = new ArrayList<Loader>();
+    String bootClassPath = System.getProperty("sun.boot.class.path");
+    if (options.classFileStoreDirectory() != null && bootClassPath != null) {
+      for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(bootClassPath)) {
+        File file = new File(path);
+        if (file.isFile() && file.getName().endsWith(".jar")) {
+          bootLoaders.add(jarLoader(file, options.classFileStoreDirectory(), null));
         }
       }
     }
   }
 
+  private static Loader jarLoader(File file, @Nullable File classFileStoreDirectory, @Nullable JarCache jarCache) {
+    if (classFileStoreDirectory != null) {
+      ClassFileStore store = ClassFileStore.forJar(file, classFileStoreDirectory);
+      if (store != null) {
+        return new ClassFileStoreLoader(file, store);
+      }
+    }
+    if (jarCache != null) {
+      return new JarCacheLoader(file, jarCache);
+    }
+    return new JarLoader(file);
+  }
+
   @Override
   protected Class findClass(String name) throws ClassNotFoundException {
     String resourceName = name.replace('.', '/') + ".class";
@@ -67,6 +100,22 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
     throw new ClassNotFoundException(name);
   }
 
+  /**
+   * Class files of the JDK are read from the stores of the boot class path when there are some, before delegating to the bootstrap class loader.
+   */
+  @Override
+  public URL getResource(String name) {
+    if (name.endsWith(".class")) {
+      for (Loader loader : bootLoaders) {
+        URL url = loader.findResource(name);
+        if (url != null) {
+          return url;
+        }
+      }
+    }
+    return super.getResource(name);
+  }
+
   @Override
   public URL findResource(String name) {
     for (Loader loader : loaders) {
@@ -101,6 +150,9 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
     for (Loader loader : loaders) {
       loader.close();
     }
+    for (Loader loader : bootLoaders) {
+      loader.close();
+    }
   }
 
 }
@@ -0,0 +1,243 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.cfg;
+
+import org.sonar.java.TimeBudget;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative solver for gen/kill dataflow problems over a {@link CFG}.
+ * Blocks are numbered by their {@link CFG.Block#id} and facts by a dense index chosen by the caller, so every set is a plain {@code long[]}.
+ * The worklist never holds a block twice and is seeded in reverse postorder of the analysis direction.
+ */
+public final class BitVectorDataflow {
+
+  public enum Direction {
+    FORWARD, BACKWARD
+  }
+
+  public enum Meet {
+    UNION, INTERSECTION
+  }
+
+  private static final int WORD_SHIFT = 6;
+
+  private final long[][] in;
+  private final long[][] out;
+
+  private BitVectorDataflow(long[][] in, long[][] out) {
+    this.in = in;
+    this.out = out;
+  }
+
+  /**
+   * Solves {@code result = gen | (input & ~kill)} for every block, where the input of a block is the meet of the results of its
+   * successors (backward) or predecessors (forward). Blocks without such neighbours start from the empty set.
+   *
+   * @param size number of facts, {@code gen} and {@code kill} are indexed by block id and sized with {@link #newSet(int)}
+   */
+  public static BitVectorDataflow solve(CFG cfg, Direction direction, Meet meet, int size, long[][] gen, long[][] kill) {
+    List<CFG.Block> blocks = cfg.reversedBlocks();
+    int blockCount = blocks.size();
+    int words = wordCount(size);
+    long[][] input = new long[blockCount][words];
+    long[][] result = new long[blockCount][words];
+    long[] full = fullSet(size);
+    if (meet == Meet.INTERSECTION) {
+      for (long[] set : result) {
+        System.arraycopy(full, 0, set, 0, words);
+      }
+    }
+    boolean backward = direction == Direction.BACKWARD;
+
+    int[] queue = initialOrder(cfg, backward);
+    boolean[] queued = new boolean[blockCount];
+    Arrays.fill(queued, true);
+    int head = 0;
+    int pending = blockCount;
+    long[] newResult = new long[words];
+    while (pending > 0) {
+      TimeBudget.checkpoint();
+      int id = queue[head];
+      head = (head + 1) % blockCount;
+      pending--;
+      queued[id] = false;
+
+      CFG.Block block = blocks.get(id);
+      List<CFG.Block> sources = backward ? block.successors() : block.predecessors();
+      long[] blockInput = input[id];
+      meet(sources, result, meet, full, blockInput);
+      long[] blockGen = gen[id];
+      long[] blockKill = kill[id];
+      for (int i = 0; i < words; i++) {
+        newResult[i] = blockGen[i] | (blockInput[i] & ~blockKill[i]);
+      }
+      if (Arrays.equals(newResult, result[id])) {
+        continue;
+      }
+      System.arraycopy(newResult, 0, result[id], 0, words);
+      for (CFG.Block dependent : backward ? block.predecessors() : block.successors()) {
+        if (!queued[dependent.id]) {
+          queued[dependent.id] = true;
+          queue[(head + pending) % blockCount] = dependent.id;
+          pending++;
+        }
+      }
+    }
+    return backward ? new BitVectorDataflow(result, input) : new BitVectorDataflow(input, result);
+  }
+
+  private static void meet(List<CFG.Block> sources, long[][] result, Meet meet, long[] full, long[] target) {
+    if (sources.isEmpty()) {
+      Arrays.fill(target, 0L);
+      return;
+    }
+    if (meet == Meet.UNION) {
+      Arrays.fill(target, 0L);
+      for (CFG.Block source : sources) {
+        long[] set = result[source.id];
+        for (int i = 0; i < target.length; i++) {
+          target[i] |= set[i];
+        }
+      }
+    } else {
+      System.arraycopy(full, 0, target, 0, target.length);
+      for (CFG.Block source : sources) {
+        long[] set = result[source.id];
+        for (int i = 0; i < target.length; i++) {
+          target[i] &= set[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Reverse postorder from the entry for forward problems, postorder for backward ones. Blocks unreachable from the entry follow in
+   * id order so that every block is evaluated at least once.
+   */
+  private static int[] initialOrder(CFG cfg, boolean backward) {
+    int blockCount = cfg.reversedBlocks().size();
+    int[] postorder = new int[blockCount];
+    int visitedCount = 0;
+    boolean[] visited = new boolean[blockCount];
+    CFG.Block[] stack = new CFG.Block[blockCount];
+    int[] nextChild = new int[blockCount];
+    int depth = 0;
+    CFG.Block entry = cfg.entry();
+    visited[entry.id] = true;
+    stack[depth++] = entry;
+    while (depth > 0) {
+      CFG.Block block = stack[depth - 1];
+      List<CFG.Block> successors = block.successors();
+      if (nextChild[block.id] < successors.size()) {
+        CFG.Block successor = successors.get(nextChild[block.id]++);
+        if (!visited[successor.id]) {
+          visited[successor.id] = true;
+          stack[depth++] = successor;
+        }
+      } else {
+        depth--;
+        postorder[visitedCount++] = block.id;
+      }
+    }
+    int[] order = new int[blockCount];
+    for (int i = 0; i < visitedCount; i++) {
+      order[i] = backward ? postorder[i] : postorder[visitedCount - 1 - i];
+    }
+    int next = visitedCount;
+    for (int id = 0; id < blockCount; id++) {
+      if (!visited[id]) {
+        order[next++] = id;
+      }
+    }
+    return order;
+  }
+
+  public long[] in(CFG.Block block) {
+    return in[block.id];
+  }
+
+  public long[] out(CFG.Block block) {
+    return out[block.id];
+  }
+
+  public static long[] newSet(int size) {
+    return new long[wordCount(size)];
+  }
+
+  public static void add(long[] set, int index) {
+    set[index >>> WORD_SHIFT] |= 1L << index;
+  }
+
+  public static void remove(long[] set, int index) {
+    set[index >>> WORD_SHIFT] &= ~(1L << index);
+  }
+
+  public static boolean contains(long[] set, int index) {
+    return (set[index >>> WORD_SHIFT] & (1L << index)) != 0;
+  }
+
+  public static boolean isEmpty(long[] set) {
+    for (long word : set) {
+      if (word != 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Index of the first fact at or after {@code from}, or -1.
+   */
+  public static int nextSet(long[] set, int from) {
+    int word = from >>> WORD_SHIFT;
+    if (word >= set.length) {
+      return -1;
+    }
+    long bits = set[word] & (-1L << from);
+    while (true) {
+      if (bits != 0L) {
+        return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+      }
+      word++;
+      if (word == set.length) {
+        return -1;
+      }
+      bits = set[word];
+    }
+  }
+
+  private static int wordCount(int size) {
+    return (size + (1 << WORD_SHIFT) - 1) >>> WORD_SHIFT;
+  }
+
+  private static long[] fullSet(int size) {
+    long[] set = newSet(size);
+    Arrays.fill(set, -1L);
+    int remainder = size & ((1 << WORD_SHIFT) - 1);
+    if (remainder != 0) {
+      set[set.length - 1] = (1L << remainder) - 1;
+    }
+    return set;
+  }
+
+}
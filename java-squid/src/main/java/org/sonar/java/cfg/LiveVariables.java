@@ -21,7 +21,6 @@ package org.sonar.java.cfg;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
@@ -32,88 +31,87 @@ import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.VariableTree;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class
-    LiveVariables {
+public class LiveVariables {
 
   private final CFG cfg;
-  private final Map<CFG.Block, Set<Symbol>> out = new HashMap<>();
+  private final Map<Symbol, Integer> symbolIndex = new HashMap<>();
+  private final List<Symbol> symbols = new ArrayList<>();
+  private BitVectorDataflow dataflow;
+  private Set<Symbol>[] out;
 
   private LiveVariables(CFG cfg) {
     this.cfg = cfg;
   }
 
   public Set<Symbol> getOut(CFG.Block block) {
-    return out.get(block);
+    Set<Symbol> blockOut = out[block.id];
+    if (blockOut == null) {
+      ImmutableSet.Builder<Symbol> builder = ImmutableSet.builder();
+      long[] bits = dataflow.out(block);
+      for (int i = BitVectorDataflow.nextSet(bits, 0); i >= 0; i = BitVectorDataflow.nextSet(bits, i + 1)) {
+        builder.add(symbols.get(i));
+      }
+      blockOut = builder.build();
+      out[block.id] = blockOut;
+    }
+    return blockOut;
   }
 
+  @SuppressWarnings("unchecked")
   public static LiveVariables analyze(CFG cfg) {
     LiveVariables liveVariables = new LiveVariables(cfg);
-    final Map<CFG.Block, Set<Symbol>> in = new HashMap<>();
+    List<CFG.Block> blocks = cfg.reversedBlocks();
     // Generate kill/gen for each block in isolation
-    Map<CFG.Block, Set<Symbol>> kill = new HashMap<>();
-    Map<CFG.Block, Set<Symbol>> gen = new HashMap<>();
-    for (CFG.Block block : liveVariables.cfg.reversedBlocks()) {
-      Set<Symbol> blockKill = new HashSet<>();
-      Set<Symbol> blockGen = new HashSet<>();
+    BitSet[] kill = new BitSet[blocks.size()];
+    BitSet[] gen = new BitSet[blocks.size()];
+    for (CFG.Block block : blocks) {
+      BitSet blockKill = new BitSet();
+      BitSet blockGen = new BitSet();
       liveVariables.processBlockElements(block, blockKill, blockGen);
-      kill.put(block, blockKill);
-      gen.put(block, blockGen);
+      kill[block.id] = blockKill;
+      gen[block.id] = blockGen;
     }
-    liveVariables.analyzeCFG(in, kill, gen);
+    int size = liveVariables.symbols.size();
+    liveVariables.dataflow = BitVectorDataflow.solve(cfg, BitVectorDataflow.Direction.BACKWARD, BitVectorDataflow.Meet.UNION, size,
+      toSets(gen, size), toSets(kill, size));
     // out of exit block are empty by definition.
-    if (!liveVariables.out.get(liveVariables.cfg.reversedBlocks().get(0)).isEmpty()) {
+    if (!BitVectorDataflow.isEmpty(liveVariables.dataflow.out(blocks.get(0)))) {
       throw new IllegalStateException("Out of exit block should be empty");
     }
-
-    // Make things immutable.
-    for (Map.Entry<CFG.Block, Set<Symbol>> blockSetEntry : liveVariables.out.entrySet()) {
-      blockSetEntry.setValue(ImmutableSet.copyOf(blockSetEntry.getValue()));
-    }
-
+    liveVariables.out = new Set[blocks.size()];
     return liveVariables;
   }
 
-  private void analyzeCFG(Map<CFG.Block, Set<Symbol>> in, Map<CFG.Block, Set<Symbol>> kill, Map<CFG.Block, Set<Symbol>> gen) {
-    Deque<CFG.Block> workList = new LinkedList<>();
-    workList.addAll(cfg.reversedBlocks());
-    while (!workList.isEmpty()) {
-      CFG.Block block = workList.removeFirst();
-
-      Set<Symbol> blockOut = out.get(block);
-      if (blockOut == null) {
-        blockOut = new HashSet<>();
-        out.put(block, blockOut);
-      }
-      for (CFG.Block successor : block.successors()) {
-        Set<Symbol> inOfSuccessor = in.get(successor);
-        if (inOfSuccessor != null) {
-          blockOut.addAll(inOfSuccessor);
-        }
-      }
-      // in = gen and (out - kill)
-      Set<Symbol> newIn = new HashSet<>(gen.get(block));
-      newIn.addAll(Sets.difference(blockOut, kill.get(block)));
+  private static long[][] toSets(BitSet[] bitSets, int size) {
+    long[][] sets = new long[bitSets.length][];
+    int words = BitVectorDataflow.newSet(size).length;
+    for (int i = 0; i < bitSets.length; i++) {
+      sets[i] = Arrays.copyOf(bitSets[i].toLongArray(), words);
+    }
+    return sets;
+  }
 
-      if (newIn.equals(in.get(block))) {
-        continue;
-      }
-      in.put(block, newIn);
-      for (CFG.Block predecessor : block.predecessors()) {
-        workList.addLast(predecessor);
-      }
+  private int index(Symbol symbol) {
+    Integer index = symbolIndex.get(symbol);
+    if (index == null) {
+      index = symbols.size();
+      symbolIndex.put(symbol, index);
+      symbols.add(symbol);
     }
+    return index;
   }
 
-  private void processBlockElements(CFG.Block block, Set<Symbol> blockKill, Set<Symbol> blockGen) {
+  private void processBlockElements(CFG.Block block, BitSet blockKill, BitSet blockGen) {
     // process elements from bottom to top
     Set<Tree> assignmentLHS = new HashSet<>();
     for (Tree element : Lists.reverse(block.elements())) {
@@ -125,26 +123,28 @@ public class
             symbol = ((IdentifierTree) lhs).symbol();
             if (isLocalVariable(symbol)) {
               assignmentLHS.add(lhs);
-              blockGen.remove(symbol);
-              blockKill.add(symbol);
+              int index = index(symbol);
+              blockGen.clear(index);
+              blockKill.set(index);
             }
           }
           break;
         case IDENTIFIER:
           symbol = ((IdentifierTree) element).symbol();
           if (!assignmentLHS.contains(element) && isLocalVariable(symbol)) {
-            blockGen.add(symbol);
+            blockGen.set(index(symbol));
           }
           break;
         case VARIABLE:
-          blockKill.add(((VariableTree) element).symbol());
-          blockGen.remove(((VariableTree) element).symbol());
+          int index = index(((VariableTree) element).symbol());
+          blockKill.set(index);
+          blockGen.clear(index);
           break;
         case LAMBDA_EXPRESSION:
-          blockGen.addAll(getUsedVariables(((LambdaExpressionTree) element).body(), cfg.methodSymbol()));
+          addAll(blockGen, getUsedVariables(((LambdaExpressionTree) element).body(), cfg.methodSymbol()));
           break;
         case NEW_CLASS:
-          blockGen.addAll(getUsedVariables(((NewClassTree) element).classBody(), cfg.methodSymbol()));
+          addAll(blockGen, getUsedVariables(((NewClassTree) element).classBody(), cfg.methodSymbol()));
           break;
         default:
           // Ignore other kind of elements, no change of gen/kill
@@ -152,6 +152,12 @@ public class
     }
   }
 
+  private void addAll(BitSet set, List<Symbol> usedVariables) {
+    for (Symbol symbol : usedVariables) {
+      set.set(index(symbol));
+    }
+  }
+
   private static boolean isLocalVariable(Symbol symbol) {
     return symbol.owner().isMethodSymbol();
   }
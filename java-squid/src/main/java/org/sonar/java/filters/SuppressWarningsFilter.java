@@ -19,67 +19,179 @@
  */
 package org.sonar.java.filters;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.batch.IssueFilter;
 import org.sonar.api.issue.batch.IssueFilterChain;
 import org.sonar.api.rule.RuleKey;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Issue filter used to ignore issues in the block that follow the <code>@SuppressWarnings</code> annotation.
  * <p/>
  * Plugins, via {@link org.sonar.api.BatchExtension}s, must feed this filter by registering the
- * lines in which are covered by suppress warnings. Note that filters are disabled for the issues reported by
+ * line ranges which are covered by suppress warnings. Note that filters are disabled for the issues reported by
  * end-users from UI or web services.
+ * <p/>
+ * Warnings are parsed into rule keys once per component, when it is registered, so that filtering an issue is a lookup in
+ * the ranges of its component sorted by start line.
  *
  * @since 3.6
  */
 public class SuppressWarningsFilter implements IssueFilter {
 
-  private final Map<String, Multimap<Integer, String>> suppressWarningsLinesByResource = Maps.newHashMap();
+  private final Map<String, SuppressedRanges> suppressedRangesByResource = Maps.newHashMap();
 
-  public void addComponent(String componentKey, Multimap<Integer, String> warningLines) {
-    suppressWarningsLinesByResource.put(componentKey, warningLines);
+  public void addComponent(String componentKey, Collection<SuppressWarningsRange> ranges) {
+    SuppressedRanges suppressedRanges = SuppressedRanges.of(ranges);
+    if (suppressedRanges == null) {
+      suppressedRangesByResource.remove(componentKey);
+    } else {
+      suppressedRangesByResource.put(componentKey, suppressedRanges);
+    }
   }
 
   @Override
   public boolean accept(Issue issue, IssueFilterChain chain) {
-    for (String warning : getWarningsByLine(issue)) {
-      if (issueShouldNotBeReported(warning, issue)) {
-        return false;
-      }
+    if (isSuppressed(issue)) {
+      return false;
     }
     return chain.accept(issue);
   }
 
-  private Collection<String> getWarningsByLine(Issue issue) {
+  private boolean isSuppressed(Issue issue) {
     Integer line = issue.line();
-    String componentKey = issue.componentKey();
-    if (line != null && suppressWarningsLinesByResource.containsKey(componentKey)) {
-      return suppressWarningsLinesByResource.get(componentKey).get(line);
+    if (line == null) {
+      return false;
+    }
+    SuppressedRanges suppressedRanges = suppressedRangesByResource.get(issue.componentKey());
+    if (suppressedRanges == null) {
+      return false;
     }
-    return Sets.newTreeSet();
+    RuleKey ruleKey = issue.ruleKey();
+    return !isSuppressWarningRule(ruleKey) && suppressedRanges.suppresses(ruleKey, line);
   }
 
-  private static boolean issueShouldNotBeReported(String warning, Issue issue) {
-    RuleKey ruleKey = issue.ruleKey();
-    return (warningIsRuleKey(warning, ruleKey) || "all".equals(warning)) && !isSuppressWarningRule(ruleKey);
+  private static boolean isSuppressWarningRule(RuleKey ruleKey) {
+    return "S1309".equals(ruleKey.rule());
   }
 
-  private static boolean warningIsRuleKey(String warning, RuleKey ruleKey) {
-    try {
-      return ruleKey.equals(RuleKey.parse(warning));
-    } catch (IllegalArgumentException e) {
+  /**
+   * Ranges sorted by start line, each one also knowing the greatest end line of itself and the ranges before it: the ranges
+   * covering a line are then found among the ones starting before it, walking backward until no earlier range reaches it.
+   */
+  private static final class SuppressedRanges {
+
+    private final int[] startLines;
+    private final int[] endLines;
+    private final int[] maxEndLines;
+    private final boolean[] suppressAll;
+    private final List<Set<RuleKey>> ruleKeys;
+
+    private SuppressedRanges(List<SuppressWarningsRange> ranges, List<Set<RuleKey>> ruleKeys, boolean[] suppressAll) {
+      int size = ranges.size();
+      this.startLines = new int[size];
+      this.endLines = new int[size];
+      this.maxEndLines = new int[size];
+      this.suppressAll = suppressAll;
+      this.ruleKeys = ruleKeys;
+      int maxEndLine = Integer.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        SuppressWarningsRange range = ranges.get(i);
+        startLines[i] = range.startLine();
+        endLines[i] = range.endLine();
+        maxEndLine = Math.max(maxEndLine, range.endLine());
+        maxEndLines[i] = maxEndLine;
+      }
+    }
+
+    /**
+     * @return null when none of the ranges suppresses anything that could be an issue
+     */
+    static SuppressedRanges of(Collection<SuppressWarningsRange> ranges) {
+      List<SuppressWarningsRange> sorted = Lists.newArrayListWithCapacity(ranges.size());
+      List<Set<RuleKey>> ruleKeys = Lists.newArrayListWithCapacity(ranges.size());
+      List<Boolean> suppressAll = Lists.newArrayListWithCapacity(ranges.size());
+      for (SuppressWarningsRange range : ranges) {
+        if (range.startLine() <= range.endLine()) {
+          sorted.add(range);
+        }
+      }
+      Collections.sort(sorted, new Comparator<SuppressWarningsRange>() {
+        @Override
+        public int compare(SuppressWarningsRange r1, SuppressWarningsRange r2) {
+          return Ints.compare(r1.startLine(), r2.startLine());
+        }
+      });
+      List<SuppressWarningsRange> retained = Lists.newArrayListWithCapacity(sorted.size());
+      for (SuppressWarningsRange range : sorted) {
+        boolean all = false;
+        ImmutableSet.Builder<RuleKey> keys = ImmutableSet.builder();
+        for (String warning : range.warnings()) {
+          if ("all".equals(warning)) {
+            all = true;
+          } else {
+            RuleKey ruleKey = parseRuleKey(warning);
+            if (ruleKey != null) {
+              keys.add(ruleKey);
+            }
+          }
+        }
+        Set<RuleKey> rangeKeys = keys.build();
+        if (all || !rangeKeys.isEmpty()) {
+          retained.add(range);
+          ruleKeys.add(rangeKeys);
+          suppressAll.add(all);
+        }
+      }
+      if (retained.isEmpty()) {
+        return null;
+      }
+      boolean[] all = new boolean[suppressAll.size()];
+      for (int i = 0; i < all.length; i++) {
+        all[i] = suppressAll.get(i);
+      }
+      return new SuppressedRanges(retained, ruleKeys, all);
+    }
+
+    private static RuleKey parseRuleKey(String warning) {
+      try {
+        return RuleKey.parse(warning);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    boolean suppresses(RuleKey ruleKey, int line) {
+      for (int i = lastStartingAtOrBefore(line); i >= 0 && maxEndLines[i] >= line; i--) {
+        if (endLines[i] >= line && (suppressAll[i] || ruleKeys.get(i).contains(ruleKey))) {
+          return true;
+        }
+      }
       return false;
     }
-  }
 
-  private static boolean isSuppressWarningRule(RuleKey ruleKey) {
-    return "S1309".equals(ruleKey.rule());
+    private int lastStartingAtOrBefore(int line) {
+      int low = 0;
+      int high = startLines.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (startLines[mid] <= line) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
   }
 }
@@ -0,0 +1,55 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.filters;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lines covered by a <code>@SuppressWarnings</code> annotation, from the annotation itself to the end of the annotated element,
+ * together with the warnings given as annotation arguments.
+ */
+public final class SuppressWarningsRange {
+
+  private final int startLine;
+  private final int endLine;
+  private final List<String> warnings;
+
+  public SuppressWarningsRange(int startLine, int endLine, Collection<String> warnings) {
+    this.startLine = startLine;
+    this.endLine = endLine;
+    this.warnings = ImmutableList.copyOf(warnings);
+  }
+
+  public int startLine() {
+    return startLine;
+  }
+
+  public int endLine() {
+    return endLine;
+  }
+
+  public List<String> warnings() {
+    return warnings;
+  }
+
+}
@@ -26,6 +26,7 @@ import org.sonar.java.ast.parser.TypeUnionListTreeImpl;
 import org.sonar.java.model.declaration.AnnotationTreeImpl;
 import org.sonar.java.model.expression.TypeArgumentListTreeImpl;
 import org.sonar.java.syntaxtoken.FirstSyntaxTokenFinder;
+import org.sonar.java.syntaxtoken.LastSyntaxTokenFinder;
 import org.sonar.plugins.java.api.tree.AnnotationTree;
 import org.sonar.plugins.java.api.tree.ArrayTypeTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
@@ -47,6 +48,7 @@ import org.sonar.plugins.java.api.tree.UnionTypeTree;
 import org.sonar.plugins.java.api.tree.WildcardTree;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.util.Collections;
@@ -54,23 +56,79 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class JavaTree implements Tree {
 
+  private static final Tree[] NO_CHILDREN = new Tree[0];
 
   protected GrammarRuleKey grammarRuleKey;
+  private volatile TokenBounds tokenBounds;
+  private volatile Tree[] children;
 
   public JavaTree(GrammarRuleKey grammarRuleKey) {
     this.grammarRuleKey = grammarRuleKey;
   }
   public int getLine() {
-    SyntaxToken firstSyntaxToken = FirstSyntaxTokenFinder.firstSyntaxToken(this);
+    SyntaxToken firstSyntaxToken = firstToken();
     if (firstSyntaxToken == null) {
       return -1;
     }
     return firstSyntaxToken.line();
   }
 
+  /**
+   * First token of this node, computed on first access.
+   *
+   * @see FirstSyntaxTokenFinder#firstSyntaxToken(Tree)
+   */
+  @Nullable
+  public SyntaxToken firstToken() {
+    TokenBounds bounds = tokenBounds();
+    if (!bounds.firstTokenComputed) {
+      bounds.firstToken = FirstSyntaxTokenFinder.computeFirstSyntaxToken(this);
+      bounds.firstTokenComputed = true;
+    }
+    return bounds.firstToken;
+  }
+
+  /**
+   * Last token of this node, computed on first access.
+   *
+   * @see LastSyntaxTokenFinder#lastSyntaxToken(Tree)
+   */
+  @Nullable
+  public SyntaxToken lastToken() {
+    TokenBounds bounds = tokenBounds();
+    if (!bounds.lastTokenComputed) {
+      bounds.lastToken = LastSyntaxTokenFinder.computeLastSyntaxToken(this);
+      bounds.lastTokenComputed = true;
+    }
+    return bounds.lastToken;
+  }
+
+  private TokenBounds tokenBounds() {
+    TokenBounds bounds = tokenBounds;
+    if (bounds == null) {
+      bounds = new TokenBounds();
+      tokenBounds = bounds;
+    }
+    return bounds;
+  }
+
+  /**
+   * Kept out of the node itself: only the few nodes whose position is queried pay for it.
+   * Rules of large files run in parallel on the same tree: each token is written before its volatile flag,
+   * so a thread seeing the flag sees the token. Concurrent first accesses compute the same token twice at worst.
+   */
+  private static final class TokenBounds {
+    private SyntaxToken firstToken;
+    private SyntaxToken lastToken;
+    private volatile boolean firstTokenComputed;
+    private volatile boolean lastTokenComputed;
+  }
+
   @Override
   public final boolean is(Kind... kind) {
     if (kind() != null) {
@@ -95,6 +153,35 @@ public abstract class JavaTree implements Tree {
     return false;
   }
 
+  /**
+   * Number of children of this node, including {@code null} elements of {@link #childrenIterator()}.
+   * Leaves and lists answer without allocating, other nodes build their children once and share them with all traversals of the tree.
+   */
+  public int childCount() {
+    return isLeaf() ? 0 : children().length;
+  }
+
+  /**
+   * @return i-th child of this node, may be {@code null}
+   */
+  @Nullable
+  public Tree child(int i) {
+    return children()[i];
+  }
+
+  /**
+   * Rules of large files walk the same tree in parallel: the array is complete before it is published through the volatile field,
+   * and two threads computing it at the same time build equal arrays.
+   */
+  private Tree[] children() {
+    Tree[] result = children;
+    if (result == null) {
+      result = isLeaf() ? NO_CHILDREN : Iterators.toArray(childrenIterator(), Tree.class);
+      children = result;
+    }
+    return result;
+  }
+
   public GrammarRuleKey getGrammarRuleKey() {
     return grammarRuleKey;
   }
@@ -104,6 +191,10 @@ public abstract class JavaTree implements Tree {
     private final List<ImportClauseTree> imports;
     private final List<Tree> types;
     private final SyntaxToken eofToken;
+    /**
+     * Data computed once per file and shared by its scanners, indexed by type. It is dropped once the file is analyzed.
+     */
+    private final ConcurrentMap<Class<?>, Object> fileData = new ConcurrentHashMap<>(4);
 
     public CompilationUnitTreeImpl(@Nullable PackageDeclarationTree packageDeclaration, List<ImportClauseTree> imports,
       List<Tree> types, SyntaxToken eofToken) {
@@ -157,6 +248,23 @@ public abstract class JavaTree implements Tree {
       return eofToken;
     }
 
+    @CheckForNull
+    public <T> T fileData(Class<T> type) {
+      return type.cast(fileData.get(type));
+    }
+
+    /**
+     * @return data of the given type already attached to this file by another scanner, or else the given data, which is attached
+     */
+    public <T> T putFileDataIfAbsent(Class<T> type, T data) {
+      Object previous = fileData.putIfAbsent(type, data);
+      return previous == null ? data : type.cast(previous);
+    }
+
+    public void clearFileData() {
+      fileData.clear();
+    }
+
   }
 
   public static class PackageDeclarationTreeImpl extends JavaTree implements PackageDeclarationTree {
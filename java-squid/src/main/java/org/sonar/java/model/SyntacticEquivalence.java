@@ -27,7 +27,6 @@ import org.sonar.plugins.java.api.tree.Tree;
 
 import javax.annotation.Nullable;
 
-import java.util.Iterator;
 import java.util.List;
 
 public final class SyntacticEquivalence {
@@ -71,16 +70,16 @@ public final class SyntacticEquivalence {
     } else if (leftNode.isLeaf()) {
       return areLeafsEquivalent(leftNode, rightNode);
     }
-    Iterator<Tree> iteratorA = leftNode.childrenIterator();
-    Iterator<Tree> iteratorB = rightNode.childrenIterator();
-
-    while (iteratorA.hasNext() && iteratorB.hasNext()) {
-      if (!areEquivalent(iteratorA.next(), iteratorB.next())) {
+    int childCount = leftNode.childCount();
+    if (childCount != rightNode.childCount()) {
+      return false;
+    }
+    for (int i = 0; i < childCount; i++) {
+      if (!areEquivalent(leftNode.child(i), rightNode.child(i))) {
         return false;
       }
     }
-
-    return !iteratorA.hasNext() && !iteratorB.hasNext();
+    return true;
   }
 
   /**
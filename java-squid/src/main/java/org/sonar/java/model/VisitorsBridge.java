@@ -23,21 +23,29 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.sonar.sslr.api.RecognitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.AnnotationUtils;
+import org.sonar.java.AnalysisProfiler;
 import org.sonar.java.AnalyzerMessage;
 import org.sonar.java.CharsetAwareVisitor;
+import org.sonar.java.CheckRuleKeys;
+import org.sonar.java.FileAnalysisListener;
 import org.sonar.java.JavaCheckMessage;
 import org.sonar.java.SonarComponents;
+import org.sonar.java.ThreadConfined;
+import org.sonar.java.TimeBudget;
+import org.sonar.java.TimeBudgetExceededException;
 import org.sonar.java.ast.visitors.ComplexityVisitor;
 import org.sonar.java.ast.visitors.SonarSymbolTableVisitor;
+import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
 import org.sonar.java.ast.visitors.VisitorContext;
+import org.sonar.java.bytecode.loader.JarCache;
 import org.sonar.java.resolve.SemanticModel;
 import org.sonar.java.syntaxtoken.FirstSyntaxTokenFinder;
 import org.sonar.java.syntaxtoken.LastSyntaxTokenFinder;
@@ -58,21 +66,34 @@ import org.sonar.squidbridge.api.SourceFile;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.File;
-import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class VisitorsBridge {
 
   private static final Logger LOG = LoggerFactory.getLogger(VisitorsBridge.class);
 
   private final List<JavaFileScanner> scanners;
+  private final String[] scannerNames;
+  private final boolean[] threadConfined;
   private final SonarComponents sonarComponents;
+  private final CheckRuleKeys checkRuleKeys;
+  private AnalysisProfiler profiler = AnalysisProfiler.disabled();
+  private TimeBudget timeBudget = TimeBudget.unlimited();
+  private FileAnalysisListener fileAnalysisListener = FileAnalysisListener.NONE;
   private SemanticModel semanticModel;
   private List<File> projectClasspath;
+  private File classFileStoreDirectory;
+  private JarCache jarCache;
   private boolean analyseAccessors;
+  private int parallelRulesThreshold = 0;
+  private int parallelRulesThreads = 0;
   private VisitorContext context;
 
   @VisibleForTesting
@@ -93,7 +114,14 @@ public class VisitorsBridge {
       }
     }
     this.scanners = scannersBuilder.build();
+    this.scannerNames = new String[scanners.size()];
+    this.threadConfined = new boolean[scanners.size()];
+    for (int i = 0; i < scannerNames.length; i++) {
+      scannerNames[i] = phaseName(scanners.get(i));
+      threadConfined[i] = AnnotationUtils.getAnnotation(scanners.get(i), ThreadConfined.class) != null;
+    }
     this.sonarComponents = sonarComponents;
+    this.checkRuleKeys = sonarComponents == null ? null : new CheckRuleKeys(sonarComponents.checks());
     this.projectClasspath = projectClasspath;
   }
 
@@ -101,6 +129,49 @@ public class VisitorsBridge {
     this.analyseAccessors = analyseAccessors;
   }
 
+  private static String phaseName(JavaFileScanner scanner) {
+    return scanner instanceof SyntaxHighlighterVisitor ? AnalysisProfiler.HIGHLIGHTING : scanner.getClass().getName();
+  }
+
+  public void setProfiler(AnalysisProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public AnalysisProfiler getProfiler() {
+    return profiler;
+  }
+
+  public void setTimeBudget(TimeBudget timeBudget) {
+    this.timeBudget = timeBudget;
+  }
+
+  public void setClassFileStoreDirectory(@Nullable File classFileStoreDirectory) {
+    this.classFileStoreDirectory = classFileStoreDirectory;
+  }
+
+  public void setJarCache(@Nullable JarCache jarCache) {
+    this.jarCache = jarCache;
+  }
+
+  /**
+   * @param parallelRulesThreshold minimal number of lines of a file for its scanners to be run in parallel, 0 to always run them one
+   *                               after the other
+   */
+  public void setParallelRulesThreshold(int parallelRulesThreshold) {
+    this.parallelRulesThreshold = parallelRulesThreshold;
+  }
+
+  /**
+   * @param parallelRulesThreads number of threads running the scanners of large files, 0 for the number of available processors
+   */
+  public void setParallelRulesThreads(int parallelRulesThreads) {
+    this.parallelRulesThreads = parallelRulesThreads;
+  }
+
+  public void setFileAnalysisListener(FileAnalysisListener fileAnalysisListener) {
+    this.fileAnalysisListener = fileAnalysisListener;
+  }
+
   public void setCharset(Charset charset) {
     for (JavaFileScanner scanner : scanners) {
       if (scanner instanceof CharsetAwareVisitor) {
@@ -110,26 +181,55 @@ public class VisitorsBridge {
   }
 
   public void visitFile(@Nullable Tree parsedTree) {
+    timeBudget.startFile(getContext().getFile());
+    try {
+      scanFile(parsedTree);
+    } finally {
+      timeBudget.endFile();
+    }
+    fileAnalysisListener.fileAnalyzed(getContext().getFile(), (SourceFile) getContext().peekSourceCode());
+  }
+
+  private void scanFile(@Nullable Tree parsedTree) {
     semanticModel = null;
     CompilationUnitTree tree = new JavaTree.CompilationUnitTreeImpl(null, Lists.<ImportClauseTree>newArrayList(), Lists.<Tree>newArrayList(), null);
     if (parsedTree != null && parsedTree.is(Tree.Kind.COMPILATION_UNIT)) {
       tree = (CompilationUnitTree) parsedTree;
       if (isNotJavaLangOrSerializable(PackageUtils.packageName(tree.packageDeclaration(), "/"))) {
         try {
-          semanticModel = SemanticModel.createFor(tree, getProjectClasspath());
+          profiler.begin();
+          semanticModel = SemanticModel.createFor(tree, getProjectClasspath(), classFileStoreDirectory, jarCache);
+          profiler.end(AnalysisProfiler.SEMANTIC);
+        } catch (TimeBudgetExceededException e) {
+          // the file budget is over: its rules would be skipped anyway
+          timeBudget.interrupted(AnalysisProfiler.SEMANTIC);
+          return;
         } catch (Exception e) {
           LOG.error("Unable to create symbol table for : " + getContext().getFile().getAbsolutePath(), e);
           return;
         }
+        profiler.begin();
         createSonarSymbolTable(tree);
+        profiler.end(AnalysisProfiler.SYMBOL_TABLE);
       } else {
         SemanticModel.handleMissingTypes(tree);
       }
     }
-    JavaFileScannerContext javaFileScannerContext =
-      new DefaultJavaFileScannerContext(tree, (SourceFile) getContext().peekSourceCode(), getContext().getFile(), semanticModel, analyseAccessors, sonarComponents);
-    for (JavaFileScanner scanner : scanners) {
-      scanner.scanFile(javaFileScannerContext);
+    DefaultJavaFileScannerContext javaFileScannerContext =
+      new DefaultJavaFileScannerContext(tree, (SourceFile) getContext().peekSourceCode(), getContext().getFile(), semanticModel, analyseAccessors, sonarComponents,
+        checkRuleKeys);
+    if (runsScannersInParallel(tree)) {
+      if (semanticModel != null) {
+        semanticModel.shareWithParallelRules();
+      }
+      scanInParallel(javaFileScannerContext);
+    } else {
+      for (int i = 0; i < scannerNames.length; i++) {
+        scan(i, javaFileScannerContext);
+      }
+    }
+    if (tree instanceof JavaTree.CompilationUnitTreeImpl) {
+      ((JavaTree.CompilationUnitTreeImpl) tree).clearFileData();
     }
     if (semanticModel != null) {
       // Close class loader after all the checks.
@@ -137,6 +237,76 @@ public class VisitorsBridge {
     }
   }
 
+  private void scan(int index, JavaFileScannerContext javaFileScannerContext) {
+    if (!timeBudget.startRule()) {
+      timeBudget.interrupted(scannerNames[index]);
+      return;
+    }
+    profiler.begin();
+    try {
+      scanners.get(index).scanFile(javaFileScannerContext);
+    } catch (TimeBudgetExceededException e) {
+      timeBudget.interrupted(scannerNames[index]);
+    } finally {
+      profiler.end(scannerNames[index]);
+      timeBudget.endRule();
+    }
+  }
+
+  private boolean runsScannersInParallel(CompilationUnitTree tree) {
+    return parallelRulesThreshold > 0 && scanners.size() > 1 && tree.eofToken() != null && tree.eofToken().line() >= parallelRulesThreshold;
+  }
+
+  /**
+   * Scanners which are not {@link ThreadConfined} are run by {@link RulesPool} while the others are run on the calling thread. Each
+   * scanner reports to its own buffer, and buffers are replayed in the order of the scanners once they are all done, so that issues
+   * are reported in the same order as in a sequential scan.
+   */
+  private void scanInParallel(DefaultJavaFileScannerContext javaFileScannerContext) {
+    List<ScannerRun> runs = Lists.newArrayList();
+    List<ScannerRun> parallelRuns = Lists.newArrayList();
+    for (int i = 0; i < scannerNames.length; i++) {
+      ScannerRun run = new ScannerRun(i, new BufferedJavaFileScannerContext(javaFileScannerContext));
+      runs.add(run);
+      if (!threadConfined[i]) {
+        parallelRuns.add(run);
+      }
+    }
+    ForkJoinTask<Void> parallelScans = parallelRuns.isEmpty() ? null
+      : RulesPool.get(parallelRulesThreads).submit(new ScannersTask(parallelRuns.toArray(new ScannerRun[parallelRuns.size()]), 0, parallelRuns.size()));
+    for (ScannerRun run : runs) {
+      if (threadConfined[run.index]) {
+        run(run);
+      }
+    }
+    if (parallelScans != null) {
+      parallelScans.join();
+    }
+    for (ScannerRun run : runs) {
+      if (run.interrupted) {
+        timeBudget.interrupted(scannerNames[run.index]);
+      }
+      profiler.add(scannerNames[run.index], run.elapsedNanos);
+      run.context.flush();
+    }
+  }
+
+  private void run(ScannerRun run) {
+    if (!timeBudget.startRule()) {
+      run.interrupted = true;
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      scanners.get(run.index).scanFile(run.context);
+    } catch (TimeBudgetExceededException e) {
+      run.interrupted = true;
+    } finally {
+      run.elapsedNanos = System.nanoTime() - start;
+      timeBudget.endRule();
+    }
+  }
+
   private boolean isNotJavaLangOrSerializable(String packageName) {
     String name = getContext().getFile().getName();
     return !("java/lang".equals(packageName)
@@ -172,26 +342,156 @@ public class VisitorsBridge {
     this.context = context;
   }
 
+  /**
+   * Pools running the scanners of large files, one per number of threads, created on first use and shared by the analyses of the JVM.
+   * Their threads are daemons and stop when idle.
+   */
+  private static final class RulesPool {
+    private static final Map<Integer, ForkJoinPool> POOLS = Maps.newHashMap();
+
+    private RulesPool() {
+    }
+
+    static synchronized ForkJoinPool get(int threads) {
+      int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+      ForkJoinPool pool = POOLS.get(parallelism);
+      if (pool == null) {
+        pool = new ForkJoinPool(parallelism);
+        POOLS.put(parallelism, pool);
+      }
+      return pool;
+    }
+  }
+
+  private static class ScannerRun {
+    private final int index;
+    private final BufferedJavaFileScannerContext context;
+    private long elapsedNanos;
+    private boolean interrupted;
+
+    ScannerRun(int index, BufferedJavaFileScannerContext context) {
+      this.index = index;
+      this.context = context;
+    }
+  }
+
+  private class ScannersTask extends RecursiveAction {
+    private final ScannerRun[] runs;
+    private final int from;
+    private final int to;
+
+    ScannersTask(ScannerRun[] runs, int from, int to) {
+      this.runs = runs;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        run(runs[from]);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ScannersTask(runs, from, middle), new ScannersTask(runs, middle, to));
+      }
+    }
+  }
+
+  /**
+   * Context of a scanner run in parallel: what would update the file or the project is kept until {@link #flush()}.
+   */
+  private static class BufferedJavaFileScannerContext extends DefaultJavaFileScannerContext {
+    private final List<Runnable> pendingReports = Lists.newArrayList();
+
+    BufferedJavaFileScannerContext(DefaultJavaFileScannerContext context) {
+      super(context);
+    }
+
+    @Override
+    protected void log(final JavaCheckMessage checkMessage) {
+      pendingReports.add(new Runnable() {
+        @Override
+        public void run() {
+          BufferedJavaFileScannerContext.super.log(checkMessage);
+        }
+      });
+    }
+
+    @Override
+    public void addIssue(final File file, final JavaCheck check, final int line, final String message) {
+      pendingReports.add(new Runnable() {
+        @Override
+        public void run() {
+          BufferedJavaFileScannerContext.super.addIssue(file, check, line, message);
+        }
+      });
+    }
+
+    @Override
+    public void addNoSonarLines(final Set<Integer> lines) {
+      pendingReports.add(new Runnable() {
+        @Override
+        public void run() {
+          BufferedJavaFileScannerContext.super.addNoSonarLines(lines);
+        }
+      });
+    }
+
+    void flush() {
+      for (Runnable pendingReport : pendingReports) {
+        pendingReport.run();
+      }
+      pendingReports.clear();
+    }
+  }
+
   @VisibleForTesting
   public static class DefaultJavaFileScannerContext implements JavaFileScannerContext {
+    /**
+     * Whether a check has to provide an effort to fix, read once per check class rather than for every issue.
+     */
+    private static final ClassValue<Boolean> HAS_LINEAR_REMEDIATION = new ClassValue<Boolean>() {
+      @Override
+      protected Boolean computeValue(Class<?> checkClass) {
+        return AnnotationUtils.getAnnotation(checkClass, SqaleLinearRemediation.class) != null
+          || AnnotationUtils.getAnnotation(checkClass, SqaleLinearWithOffsetRemediation.class) != null;
+      }
+    };
+
     private final CompilationUnitTree tree;
     @VisibleForTesting
     public final SourceFile sourceFile;
     private final SemanticModel semanticModel;
     private final SonarComponents sonarComponents;
+    private final CheckRuleKeys checkRuleKeys;
     private final ComplexityVisitor complexityVisitor;
     private final File file;
 
     public DefaultJavaFileScannerContext(
-      CompilationUnitTree tree, SourceFile sourceFile, File file, SemanticModel semanticModel, boolean analyseAccessors, @Nullable SonarComponents sonarComponents) {
+      CompilationUnitTree tree, SourceFile sourceFile, File file, SemanticModel semanticModel, boolean analyseAccessors, @Nullable SonarComponents sonarComponents,
+      @Nullable CheckRuleKeys checkRuleKeys) {
       this.tree = tree;
       this.sourceFile = sourceFile;
       this.file = file;
       this.semanticModel = semanticModel;
       this.sonarComponents = sonarComponents;
+      this.checkRuleKeys = checkRuleKeys;
       this.complexityVisitor = new ComplexityVisitor(analyseAccessors);
     }
 
+    /**
+     * Context sharing the tree, the semantic model and the caches of the given one.
+     */
+    protected DefaultJavaFileScannerContext(DefaultJavaFileScannerContext context) {
+      this.tree = context.tree;
+      this.sourceFile = context.sourceFile;
+      this.file = context.file;
+      this.semanticModel = context.semanticModel;
+      this.sonarComponents = context.sonarComponents;
+      this.checkRuleKeys = context.checkRuleKeys;
+      this.complexityVisitor = context.complexityVisitor;
+    }
+
     @Override
     public CompilationUnitTree getTree() {
       return tree;
@@ -226,14 +526,16 @@ public class VisitorsBridge {
         checkMessage.setLine(line);
       }
       if (cost == null) {
-        Annotation linear = AnnotationUtils.getAnnotation(javaCheck, SqaleLinearRemediation.class);
-        Annotation linearWithOffset = AnnotationUtils.getAnnotation(javaCheck, SqaleLinearWithOffsetRemediation.class);
-        if (linear != null || linearWithOffset != null) {
+        if (HAS_LINEAR_REMEDIATION.get(javaCheck.getClass())) {
           throw new IllegalStateException("A check annotated with a linear sqale function should provide an effort to fix");
         }
       } else {
         checkMessage.setCost(cost);
       }
+      log(checkMessage);
+    }
+
+    protected void log(JavaCheckMessage checkMessage) {
       sourceFile.log(checkMessage);
     }
 
@@ -250,15 +552,7 @@ public class VisitorsBridge {
 
     @CheckForNull
     private RuleKey getRuleKey(JavaCheck check) {
-      if (sonarComponents != null) {
-        for (Checks<JavaCheck> sonarChecks : sonarComponents.checks()) {
-          RuleKey ruleKey = sonarChecks.ruleKey(check);
-          if (ruleKey != null) {
-            return ruleKey;
-          }
-        }
-      }
-      return null;
+      return checkRuleKeys == null ? null : checkRuleKeys.ruleKey(check);
     }
 
     @Override
@@ -306,7 +600,7 @@ public class VisitorsBridge {
           analyzerMessage.secondaryLocations.add(secondaryLocation);
         }
         checkMessage.setAnalyzerMessage(analyzerMessage);
-        sourceFile.log(checkMessage);
+        log(checkMessage);
       } else {
         addIssue(syntaxNode, javaCheck, message, cost != null ? (double) cost : null);
       }
@@ -330,12 +624,16 @@ public class VisitorsBridge {
 
     @Override
     public List<Tree> getComplexity(Tree tree) {
-      return complexityVisitor.scan(tree);
+      synchronized (complexityVisitor) {
+        return complexityVisitor.memoizedScan(this.tree, tree);
+      }
     }
 
     @Override
     public List<Tree> getMethodComplexity(ClassTree enclosingClass, MethodTree methodTree) {
-      return complexityVisitor.scan(enclosingClass, methodTree);
+      synchronized (complexityVisitor) {
+        return complexityVisitor.memoizedScan(this.tree, enclosingClass, methodTree);
+      }
     }
 
     @Override
@@ -66,6 +66,19 @@ public class TypeArgumentListTreeImpl extends ListTreeImpl<Tree> implements Type
         Iterators.singletonIterator(closeBracketToken));
   }
 
+  @Override
+  public int childCount() {
+    return super.childCount() + 2;
+  }
+
+  @Override
+  public Tree child(int i) {
+    if (i == 0) {
+      return openBracketToken;
+    }
+    return i <= super.childCount() ? super.child(i - 1) : closeBracketToken;
+  }
+
   @Override
   public boolean isLeaf() {
     return false;
@@ -29,6 +29,8 @@ import org.objectweb.asm.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.java.bytecode.ClassLoaderBuilder;
+import org.sonar.java.bytecode.loader.ClassLoaderOptions;
+import org.sonar.java.bytecode.loader.JarCache;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
@@ -50,6 +52,8 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
 
   private Symbols symbols;
   private final List<File> projectClasspath;
+  private final File classFileStoreDirectory;
+  private final JarCache jarCache;
   private final ParametrizedTypeCache parametrizedTypeCache;
 
   /**
@@ -61,8 +65,15 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
   private ClassLoader classLoader;
 
   public BytecodeCompleter(List<File> projectClasspath, ParametrizedTypeCache parametrizedTypeCache) {
+    this(projectClasspath, parametrizedTypeCache, null, null);
+  }
+
+  public BytecodeCompleter(List<File> projectClasspath, ParametrizedTypeCache parametrizedTypeCache, @Nullable File classFileStoreDirectory,
+    @Nullable JarCache jarCache) {
     this.projectClasspath = projectClasspath;
     this.parametrizedTypeCache = parametrizedTypeCache;
+    this.classFileStoreDirectory = classFileStoreDirectory;
+    this.jarCache = jarCache;
   }
 
   public void init(Symbols symbols) {
@@ -76,6 +87,11 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     return classSymbol;
   }
 
+  @Override
+  public CompletionLock completionLock() {
+    return parametrizedTypeCache.completionLock();
+  }
+
   @Override
   public void complete(JavaSymbol symbol) {
     LOG.debug("Completing symbol : " + symbol.name);
@@ -113,7 +129,8 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
 
   private ClassLoader getClassLoader() {
     if (classLoader == null) {
-      classLoader = ClassLoaderBuilder.create(projectClasspath);
+      classLoader = ClassLoaderBuilder.create(projectClasspath,
+        new ClassLoaderOptions().setClassFileStoreDirectory(classFileStoreDirectory).setJarCache(jarCache));
     }
     return classLoader;
   }
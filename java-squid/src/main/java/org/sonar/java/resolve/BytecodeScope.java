@@ -0,0 +1,159 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Members of a class read from bytecode.
+ * Fields and methods are only recorded when the class is completed, their symbols are created on the first lookup of their name,
+ * or when all members are requested.
+ */
+class BytecodeScope extends Scope {
+
+  /**
+   * {@link FieldNode} or {@link MethodNode} in declaration order, null once defined.
+   */
+  private final List<Object> members = new ArrayList<>();
+  private final List<JavaSymbol> memberSymbols = new ArrayList<>();
+  private final ListMultimap<String, Integer> pendingByName = ArrayListMultimap.create();
+  private final List<JavaSymbol> headerSymbols = new ArrayList<>();
+  @Nullable
+  private BytecodeVisitor bytecodeVisitor;
+  private int definedMember = -1;
+  @Nullable
+  private List<JavaSymbol> orderedSymbols;
+  private final CompletionLock completionLock;
+
+  BytecodeScope(JavaSymbol.TypeJavaSymbol owner, BytecodeVisitor bytecodeVisitor, CompletionLock completionLock) {
+    super(owner);
+    this.bytecodeVisitor = bytecodeVisitor;
+    this.completionLock = completionLock;
+  }
+
+  void addField(FieldNode field) {
+    addMember(field.name, field);
+  }
+
+  void addMethod(MethodNode method) {
+    addMember(method.name, method);
+  }
+
+  private void addMember(String name, Object member) {
+    pendingByName.put(name, members.size());
+    members.add(member);
+    memberSymbols.add(null);
+  }
+
+  @Override
+  public void enter(JavaSymbol symbol) {
+    super.enter(symbol);
+    if (definedMember >= 0) {
+      memberSymbols.set(definedMember, symbol);
+    } else if (orderedSymbols != null) {
+      orderedSymbols.add(symbol);
+    } else {
+      headerSymbols.add(symbol);
+    }
+  }
+
+  @Override
+  public List<JavaSymbol> lookup(String name) {
+    if (completionLock.isShared()) {
+      synchronized (completionLock) {
+        return definedLookup(name);
+      }
+    }
+    return definedLookup(name);
+  }
+
+  private List<JavaSymbol> definedLookup(String name) {
+    if (!pendingByName.isEmpty()) {
+      for (Integer index : ImmutableList.copyOf(pendingByName.get(name))) {
+        define(index);
+      }
+    }
+    return super.lookup(name);
+  }
+
+  @Override
+  public List<JavaSymbol> scopeSymbols() {
+    if (completionLock.isShared()) {
+      synchronized (completionLock) {
+        return orderedSymbols();
+      }
+    }
+    return orderedSymbols();
+  }
+
+  private List<JavaSymbol> orderedSymbols() {
+    if (orderedSymbols == null) {
+      for (int i = 0; i < members.size(); i++) {
+        define(i);
+      }
+      List<JavaSymbol> result = new ArrayList<>(headerSymbols.size() + memberSymbols.size());
+      result.addAll(headerSymbols);
+      for (JavaSymbol symbol : memberSymbols) {
+        if (symbol != null) {
+          result.add(symbol);
+        }
+      }
+      orderedSymbols = result;
+      members.clear();
+      memberSymbols.clear();
+      headerSymbols.clear();
+    }
+    return orderedSymbols;
+  }
+
+  private void define(int index) {
+    Object member = members.get(index);
+    if (member == null) {
+      return;
+    }
+    members.set(index, null);
+    int previous = definedMember;
+    definedMember = index;
+    try {
+      if (member instanceof FieldNode) {
+        pendingByName.remove(((FieldNode) member).name, index);
+        bytecodeVisitor.defineField((FieldNode) member);
+      } else {
+        pendingByName.remove(((MethodNode) member).name, index);
+        bytecodeVisitor.defineMethod((MethodNode) member);
+      }
+    } finally {
+      definedMember = previous;
+    }
+    if (pendingByName.isEmpty()) {
+      bytecodeVisitor = null;
+    }
+  }
+
+}
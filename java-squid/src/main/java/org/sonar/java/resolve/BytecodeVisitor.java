@@ -31,13 +31,19 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.TypePath;
 import org.objectweb.asm.signature.SignatureReader;
 import org.objectweb.asm.signature.SignatureVisitor;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
 
 import javax.annotation.Nullable;
 
+import java.util.Iterator;
 import java.util.List;
 
 public class BytecodeVisitor extends ClassVisitor {
 
+  private static final String SYNTHETIC_PARAMETER = "Ljava/lang/Synthetic;";
+
   private final Symbols symbols;
   private final JavaSymbol.TypeJavaSymbol classSymbol;
   private final ParametrizedTypeCache parametrizedTypeCache;
@@ -46,6 +52,7 @@ public class BytecodeVisitor extends ClassVisitor {
    * Name of current class in a format as it appears in bytecode, i.e. "org/example/MyClass$InnerClass".
    */
   private String className;
+  private BytecodeScope members;
 
   BytecodeVisitor(BytecodeCompleter bytecodeCompleter, Symbols symbols, JavaSymbol.TypeJavaSymbol classSymbol, ParametrizedTypeCache parametrizedTypeCache) {
     super(Opcodes.ASM5);
@@ -95,8 +102,8 @@ public class BytecodeVisitor extends ClassVisitor {
     } else {
       classSymbol.flags |= bytecodeCompleter.filterBytecodeFlags(flags);
     }
-    classSymbol.members = new Scope(classSymbol);
-
+    members = new BytecodeScope(classSymbol, this, parametrizedTypeCache.completionLock());
+    classSymbol.members = members;
   }
 
   @Override
@@ -175,59 +182,120 @@ public class BytecodeVisitor extends ClassVisitor {
    */
   private void defineOuterClass(String outerName, String innerName, int flags) {
     JavaSymbol.TypeJavaSymbol outerClassSymbol = getClassSymbol(outerName, flags);
-    Preconditions.checkState(outerClassSymbol.completer == null || outerClassSymbol.completer instanceof BytecodeCompleter);
+    Preconditions.checkState(outerClassSymbol.completer == null || outerClassSymbol.isBeingCompleted() || outerClassSymbol.completer instanceof BytecodeCompleter);
     classSymbol.name = innerName;
     classSymbol.owner = outerClassSymbol;
   }
 
+  /**
+   * Fields are only recorded, see {@link BytecodeScope}.
+   */
   @Override
   public FieldVisitor visitField(int flags, String name, String desc, @Nullable String signature, @Nullable Object value) {
     Preconditions.checkNotNull(name);
     Preconditions.checkNotNull(desc);
     if (!BytecodeCompleter.isSynthetic(flags)) {
-      //Flags from asm lib are defined in Opcodes class and map to flags defined in Flags class
-      final JavaSymbol.VariableJavaSymbol symbol = new JavaSymbol.VariableJavaSymbol(bytecodeCompleter.filterBytecodeFlags(flags),
-          name, convertAsmType(org.objectweb.asm.Type.getType(desc)), classSymbol);
-      classSymbol.members.enter(symbol);
-      if (signature != null) {
-        ReadType typeReader = new ReadType();
-        new SignatureReader(signature).accept(typeReader);
-        symbol.type = typeReader.typeRead;
-      }
-      // checks for annotations on the field
-      return new BytecodeFieldVisitor(symbol, this);
+      FieldNode field = new FieldNode(Opcodes.ASM5, flags, name, desc, signature, value);
+      members.addField(field);
+      return field;
     }
     return null;
   }
 
+  /**
+   * Methods are only recorded, see {@link BytecodeScope}.
+   */
   @Override
   public MethodVisitor visitMethod(int flags, String name, String desc, @Nullable String signature, @Nullable String[] exceptions) {
     Preconditions.checkNotNull(name);
     Preconditions.checkNotNull(desc);
     if (!BytecodeCompleter.isSynthetic(flags)) {
       Preconditions.checkState((flags & Opcodes.ACC_BRIDGE) == 0, "bridge method not marked as synthetic in class " + className);
-      // TODO(Godin): according to JVMS 4.7.24 - parameter can be marked as synthetic
-      JavaType.MethodJavaType type = new JavaType.MethodJavaType(
-          convertAsmTypes(org.objectweb.asm.Type.getArgumentTypes(desc)),
-          convertAsmType(org.objectweb.asm.Type.getReturnType(desc)),
-          getCompletedClassSymbolsType(exceptions),
-          classSymbol
-      );
-      final JavaSymbol.MethodJavaSymbol methodSymbol = new JavaSymbol.MethodJavaSymbol(bytecodeCompleter.filterBytecodeFlags(flags), name, type, classSymbol);
-      classSymbol.members.enter(methodSymbol);
-      if (signature != null) {
-        SignatureReader signatureReader = new SignatureReader(signature);
-        signatureReader.accept(new TypeParameterDeclaration(methodSymbol));
-        signatureReader.accept(new ReadMethodSignature(methodSymbol));
+      MethodNode method = new MethodNode(Opcodes.ASM5, flags, name, desc, signature, exceptions);
+      members.addMethod(method);
+      return method;
+    }
+    return null;
+  }
+
+  void defineField(FieldNode field) {
+    FieldVisitor fieldVisitor = createField(field.access, field.name, field.desc, field.signature);
+    replayAnnotations(field.visibleAnnotations, true, fieldVisitor);
+    replayAnnotations(field.invisibleAnnotations, false, fieldVisitor);
+    fieldVisitor.visitEnd();
+  }
+
+  private static void replayAnnotations(@Nullable List<AnnotationNode> annotations, boolean visible, FieldVisitor fieldVisitor) {
+    if (annotations != null) {
+      for (AnnotationNode annotation : annotations) {
+        annotation.accept(fieldVisitor.visitAnnotation(annotation.desc, visible));
       }
-      methodSymbol.parameters = new Scope(methodSymbol);
-      for (int i = 0; i < type.argTypes.size(); i += 1) {
-        methodSymbol.parameters.enter(new JavaSymbol.VariableJavaSymbol(0, "arg" + i, methodSymbol));
+    }
+  }
+
+  void defineMethod(MethodNode method) {
+    String[] exceptions = method.exceptions.toArray(new String[method.exceptions.size()]);
+    MethodVisitor methodVisitor = createMethod(method.access, method.name, method.desc, method.signature, exceptions);
+    replaySyntheticParameters(method, methodVisitor);
+    method.accept(methodVisitor);
+  }
+
+  /**
+   * The class reader reports synthetic parameters before any other parameter annotation, {@link BytecodeMethodVisitor} relies on that order.
+   */
+  private static void replaySyntheticParameters(MethodNode method, MethodVisitor methodVisitor) {
+    if (method.invisibleParameterAnnotations == null) {
+      return;
+    }
+    for (int i = 0; i < method.invisibleParameterAnnotations.length; i++) {
+      List<AnnotationNode> annotations = method.invisibleParameterAnnotations[i];
+      if (annotations != null) {
+        for (Iterator<AnnotationNode> iterator = annotations.iterator(); iterator.hasNext();) {
+          AnnotationNode annotation = iterator.next();
+          if (SYNTHETIC_PARAMETER.equals(annotation.desc)) {
+            annotation.accept(methodVisitor.visitParameterAnnotation(i, annotation.desc, false));
+            iterator.remove();
+          }
+        }
       }
-      // checks for annotations on the method and its parameters
-      return new BytecodeMethodVisitor(methodSymbol, this);
     }
-    return null;
+  }
+
+  private FieldVisitor createField(int flags, String name, String desc, @Nullable String signature) {
+    //Flags from asm lib are defined in Opcodes class and map to flags defined in Flags class
+    final JavaSymbol.VariableJavaSymbol symbol = new JavaSymbol.VariableJavaSymbol(bytecodeCompleter.filterBytecodeFlags(flags),
+        name, convertAsmType(org.objectweb.asm.Type.getType(desc)), classSymbol);
+    classSymbol.members.enter(symbol);
+    if (signature != null) {
+      ReadType typeReader = new ReadType();
+      new SignatureReader(signature).accept(typeReader);
+      symbol.type = typeReader.typeRead;
+    }
+    // checks for annotations on the field
+    return new BytecodeFieldVisitor(symbol, this);
+  }
+
+  private MethodVisitor createMethod(int flags, String name, String desc, @Nullable String signature, @Nullable String[] exceptions) {
+    // TODO(Godin): according to JVMS 4.7.24 - parameter can be marked as synthetic
+    JavaType.MethodJavaType type = new JavaType.MethodJavaType(
+        convertAsmTypes(org.objectweb.asm.Type.getArgumentTypes(desc)),
+        convertAsmType(org.objectweb.asm.Type.getReturnType(desc)),
+        getCompletedClassSymbolsType(exceptions),
+        classSymbol
+    );
+    final JavaSymbol.MethodJavaSymbol methodSymbol = new JavaSymbol.MethodJavaSymbol(bytecodeCompleter.filterBytecodeFlags(flags), name, type, classSymbol);
+    classSymbol.members.enter(methodSymbol);
+    if (signature != null) {
+      SignatureReader signatureReader = new SignatureReader(signature);
+      signatureReader.accept(new TypeParameterDeclaration(methodSymbol));
+      signatureReader.accept(new ReadMethodSignature(methodSymbol));
+    }
+    methodSymbol.parameters = new Scope(methodSymbol);
+    for (int i = 0; i < type.argTypes.size(); i += 1) {
+      methodSymbol.parameters.enter(new JavaSymbol.VariableJavaSymbol(0, "arg" + i, methodSymbol));
+    }
+    // checks for annotations on the method and its parameters
+    return new BytecodeMethodVisitor(methodSymbol, this);
   }
 
   private List<JavaType> convertAsmTypes(org.objectweb.asm.Type[] asmTypes) {
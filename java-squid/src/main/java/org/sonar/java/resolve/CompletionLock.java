@@ -0,0 +1,42 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+/**
+ * Serializes the lazy loading of the symbols of one semantic model (completion, bytecode members, parametrized types) once the model is
+ * read by rules run concurrently on the same file. Until then, the semantic analysis and the rules run one after the other do not take
+ * it.
+ */
+final class CompletionLock {
+
+  private volatile boolean shared;
+
+  /**
+   * Called before the model is read by several threads: the threads are started after, and see every lazy loading done before.
+   */
+  void share() {
+    shared = true;
+  }
+
+  boolean isShared() {
+    return shared;
+  }
+
+}
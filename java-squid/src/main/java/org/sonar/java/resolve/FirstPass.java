@@ -39,6 +39,7 @@ import org.sonar.plugins.java.api.tree.IdentifierTree;
 import org.sonar.plugins.java.api.tree.ImportClauseTree;
 import org.sonar.plugins.java.api.tree.ImportTree;
 import org.sonar.plugins.java.api.tree.LambdaExpressionTree;
+import org.sonar.plugins.java.api.tree.MemberSelectExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.ModifierKeywordTree;
 import org.sonar.plugins.java.api.tree.ModifiersTree;
@@ -169,6 +170,18 @@ public class FirstPass extends BaseTreeVisitor {
           }
         }
       }
+      IdentifierTree identifier = importedIdentifier(tree);
+      // on demand imports do not declare anything
+      if (!JavaPunctuator.STAR.getValue().equals(identifier.name())) {
+        semanticModel.associateDeclaration(identifier, semanticModel.getSymbol(tree));
+      }
+    }
+
+    private IdentifierTree importedIdentifier(ImportTree tree) {
+      if (tree.qualifiedIdentifier().is(Tree.Kind.IDENTIFIER)) {
+        return (IdentifierTree) tree.qualifiedIdentifier();
+      }
+      return ((MemberSelectExpressionTree) tree.qualifiedIdentifier()).identifier();
     }
 
     private void enterSymbol(JavaSymbol symbol, ImportTree tree) {
@@ -229,6 +242,7 @@ public class FirstPass extends BaseTreeVisitor {
         resolve.registerClass(symbol);
       }
       enterSymbol(tree, symbol);
+      semanticModel.associateDeclaration(tree.simpleName(), symbol);
     }
     symbol.members = new Scope(symbol);
     symbol.completer = completer;
@@ -242,6 +256,7 @@ public class FirstPass extends BaseTreeVisitor {
       JavaSymbol.TypeVariableJavaSymbol typeVariableSymbol = new JavaSymbol.TypeVariableJavaSymbol(typeParameterTree.identifier().name(), symbol);
       symbol.addTypeParameter((JavaType.TypeVariableJavaType) typeVariableSymbol.type);
       enterSymbol(typeParameterTree, typeVariableSymbol);
+      semanticModel.associateDeclaration(typeParameterTree.identifier(), typeVariableSymbol);
     }
     symbol.typeParameters = env.scope;
     Resolve.Env classEnv = env.dup();
@@ -276,11 +291,14 @@ public class FirstPass extends BaseTreeVisitor {
     String name = tree.returnType() == null ? "<init>" : tree.simpleName().name();
     JavaSymbol.MethodJavaSymbol symbol = new JavaSymbol.MethodJavaSymbol(computeFlags(tree.modifiers(), tree), name, env.scope.owner);
     symbol.declaration = tree;
-    if((env.scope.owner.flags & Flags.ENUM) !=0 && tree.returnType()==null ) {
+    boolean enumConstructor = (env.scope.owner.flags & Flags.ENUM) != 0 && tree.returnType() == null;
+    if (enumConstructor) {
       //enum constructors are private.
       symbol.flags |= Flags.PRIVATE;
     }
     enterSymbol(tree, symbol);
+    //as long as SONAR-5894 is not fixed, do not provide references to enum constructors
+    semanticModel.associateDeclaration(tree.simpleName(), enumConstructor ? null : symbol);
     symbol.parameters = new Scope(symbol);
     symbol.completer = completer;
     uncompleted.add(symbol);
@@ -376,6 +394,7 @@ public class FirstPass extends BaseTreeVisitor {
     JavaSymbol.VariableJavaSymbol symbol = new JavaSymbol.VariableJavaSymbol(flags, identifierTree.name(), env.scope.owner);
     symbol.declaration = tree;
     enterSymbol(tree, symbol);
+    semanticModel.associateDeclaration(identifierTree, symbol);
     symbol.completer = completer;
     uncompleted.add(symbol);
 
@@ -60,7 +60,12 @@ public class JavaSymbol implements Symbol {
 
   JavaSymbol owner;
 
-  Completer completer;
+  volatile Completer completer;
+
+  /**
+   * Set while the symbol is completed: the completing thread does not complete it again, other threads wait on the completion lock.
+   */
+  private boolean completing;
 
   JavaType type;
 
@@ -98,13 +103,36 @@ public class JavaSymbol implements Symbol {
   }
 
   public void complete() {
-    if (completer != null) {
-      Completer c = completer;
-      completer = null;
-      c.complete(this);
+    Completer c = completer;
+    if (c != null) {
+      CompletionLock lock = c.completionLock();
+      if (lock.isShared()) {
+        synchronized (lock) {
+          completeOnce();
+        }
+      } else {
+        completeOnce();
+      }
     }
   }
 
+  private void completeOnce() {
+    Completer c = completer;
+    if (c != null && !completing) {
+      completing = true;
+      try {
+        c.complete(this);
+      } finally {
+        completer = null;
+        completing = false;
+      }
+    }
+  }
+
+  boolean isBeingCompleted() {
+    return completing;
+  }
+
   /**
    * The outermost class which indirectly owns this symbol.
    */
@@ -262,6 +290,11 @@ public class JavaSymbol implements Symbol {
 
   interface Completer {
     void complete(JavaSymbol symbol);
+
+    /**
+     * @return lock of the semantic model of the symbols completed by this completer
+     */
+    CompletionLock completionLock();
   }
 
   /**
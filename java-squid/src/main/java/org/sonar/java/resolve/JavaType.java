@@ -308,8 +308,11 @@ public class JavaType implements Type {
 
     @Override
     public JavaType erasure() {
-      if (erasure.elementType == null) {
-        erasure.elementType = elementType.erasure();
+      // rules of large files share types between threads, see VisitorsBridge
+      synchronized (erasure) {
+        if (erasure.elementType == null) {
+          erasure.elementType = elementType.erasure();
+        }
       }
       return erasure;
     }
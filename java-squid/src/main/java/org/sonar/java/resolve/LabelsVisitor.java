@@ -50,6 +50,7 @@ public class LabelsVisitor extends BaseTreeVisitor {
     JavaLabelSymbol symbol = new JavaLabelSymbol(tree);
     ((LabeledStatementTreeImpl) tree).setSymbol(symbol);
     semanticModel.associateSymbol(tree, symbol);
+    semanticModel.associateDeclaration(tree.label(), symbol);
     labelTrees.put(tree.label().name(), tree);
     super.visitLabeledStatement(tree);
   }
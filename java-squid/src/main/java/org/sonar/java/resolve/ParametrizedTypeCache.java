@@ -27,10 +27,28 @@ public class ParametrizedTypeCache {
 
   private Map<JavaSymbol, Map<TypeSubstitution, JavaType.ParametrizedTypeJavaType>> typeCache = Maps.newHashMap();
 
+  /**
+   * The cache is created first and shared by all the resolution of one semantic model, which reads its lock from here.
+   */
+  private final CompletionLock completionLock = new CompletionLock();
+
+  CompletionLock completionLock() {
+    return completionLock;
+  }
+
   public JavaType getParametrizedTypeType(JavaSymbol.TypeJavaSymbol symbol, TypeSubstitution typeSubstitution) {
     if (symbol.getType().isTagged(JavaType.UNKNOWN)) {
       return symbol.getType();
     }
+    if (completionLock.isShared()) {
+      synchronized (completionLock) {
+        return parametrizedType(symbol, typeSubstitution);
+      }
+    }
+    return parametrizedType(symbol, typeSubstitution);
+  }
+
+  private JavaType parametrizedType(JavaSymbol.TypeJavaSymbol symbol, TypeSubstitution typeSubstitution) {
     if (typeCache.get(symbol) == null) {
       Map<TypeSubstitution, JavaType.ParametrizedTypeJavaType> map = Maps.newHashMap();
       typeCache.put(symbol, map);
@@ -53,6 +53,11 @@ public class SecondPass implements JavaSymbol.Completer {
     this.typeAndReferenceSolver = typeAndReferenceSolver;
   }
 
+  @Override
+  public CompletionLock completionLock() {
+    return parametrizedTypeCache.completionLock();
+  }
+
   @Override
   public void complete(JavaSymbol symbol) {
     if (symbol.kind == JavaSymbol.TYP) {
@@ -23,9 +23,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
+import org.sonar.java.bytecode.loader.JarCache;
 import org.sonar.java.model.AbstractTypedTree;
 import org.sonar.java.model.JavaTree;
 import org.sonar.plugins.java.api.semantic.Symbol;
@@ -47,7 +46,7 @@ import java.util.Map;
 public class SemanticModel {
 
   private final BiMap<Tree, Symbol> symbolsTree = HashBiMap.create();
-  private Multimap<Symbol, IdentifierTree> usagesTree = HashMultimap.create();
+  private final SymbolReferenceIndex referenceIndex = new SymbolReferenceIndex();
 
   private final Map<Symbol, Resolve.Env> symbolEnvs = Maps.newHashMap();
   private final BiMap<Tree, Resolve.Env> envs = HashBiMap.create();
@@ -55,8 +54,17 @@ public class SemanticModel {
   private BytecodeCompleter bytecodeCompleter;
 
   public static SemanticModel createFor(CompilationUnitTree tree, List<File> projectClasspath) {
+    return createFor(tree, projectClasspath, null, null);
+  }
+
+  /**
+   * @param classFileStoreDirectory directory of the class file stores of the classpath JARs, <tt>null</tt> to read the JARs directly
+   * @param jarCache cache of the opened JARs shared between files and modules, <tt>null</tt> to open the JARs for this file only
+   */
+  public static SemanticModel createFor(CompilationUnitTree tree, List<File> projectClasspath, @Nullable File classFileStoreDirectory,
+    @Nullable JarCache jarCache) {
     ParametrizedTypeCache parametrizedTypeCache = new ParametrizedTypeCache();
-    BytecodeCompleter bytecodeCompleter = new BytecodeCompleter(projectClasspath, parametrizedTypeCache);
+    BytecodeCompleter bytecodeCompleter = new BytecodeCompleter(projectClasspath, parametrizedTypeCache, classFileStoreDirectory, jarCache);
     Symbols symbols = new Symbols(bytecodeCompleter);
     SemanticModel semanticModel = new SemanticModel();
     semanticModel.bytecodeCompleter = bytecodeCompleter;
@@ -67,12 +75,22 @@ public class SemanticModel {
       new FirstPass(semanticModel, symbols, resolve, parametrizedTypeCache, typeAndReferenceSolver).visitCompilationUnit(tree);
       typeAndReferenceSolver.visitCompilationUnit(tree);
       new LabelsVisitor(semanticModel).visitCompilationUnit(tree);
+    } catch (RuntimeException e) {
+      bytecodeCompleter.done();
+      throw e;
     } finally {
       handleMissingTypes(tree);
     }
     return semanticModel;
   }
 
+  /**
+   * Called before the model is read by rules run concurrently: lazy loading of its symbols is serialized from then on.
+   */
+  public void shareWithParallelRules() {
+    bytecodeCompleter.completionLock().share();
+  }
+
   public void done(){
     bytecodeCompleter.done();
   }
@@ -170,8 +188,19 @@ public class SemanticModel {
   }
 
 
+  /**
+   * @param symbol declared symbol, null when references to the declaration are not reported in the symbol table
+   */
+  public void associateDeclaration(IdentifierTree tree, @Nullable Symbol symbol) {
+    referenceIndex.declare(tree, symbol);
+  }
+
   public void associateReference(IdentifierTree tree, Symbol symbol) {
-    usagesTree.put(symbol, tree);
+    referenceIndex.reference(tree, symbol);
+  }
+
+  public SymbolReferenceIndex getReferenceIndex() {
+    return referenceIndex;
   }
 
   @VisibleForTesting
@@ -181,7 +210,7 @@ public class SemanticModel {
 
   @VisibleForTesting
   Collection<Symbol> getSymbolUsed() {
-    return usagesTree.keySet();
+    return referenceIndex.referencedSymbols();
   }
 
 }
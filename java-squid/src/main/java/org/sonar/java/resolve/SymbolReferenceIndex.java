@@ -0,0 +1,143 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.sonar.java.model.InternalSyntaxToken;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declarations and references of the symbols of a file, recorded as offsets in parallel arrays while the semantic model is built.
+ * The symbol table of the file is produced from these arrays, without visiting the tree again nor listing usages per symbol.
+ */
+public class SymbolReferenceIndex {
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int NO_DECLARATION = -1;
+
+  private final Map<Symbol, Integer> ordinals = Maps.newIdentityHashMap();
+  private final List<Symbol> symbols = Lists.newArrayList();
+  private int[] symbolDeclarations = new int[INITIAL_CAPACITY];
+
+  private int[] declarationStarts = new int[INITIAL_CAPACITY];
+  private int[] declarationEnds = new int[INITIAL_CAPACITY];
+  private int declarationCount = 0;
+
+  private int[] referenceSymbols = new int[INITIAL_CAPACITY];
+  private int[] referenceOffsets = new int[INITIAL_CAPACITY];
+  private int referenceCount = 0;
+
+  /**
+   * @param symbol declared symbol, null when references to the declaration are not reported
+   */
+  public void declare(IdentifierTree identifier, @Nullable Symbol symbol) {
+    if (declarationCount == declarationStarts.length) {
+      declarationStarts = grow(declarationStarts);
+      declarationEnds = grow(declarationEnds);
+    }
+    int start = startOffset(identifier);
+    declarationStarts[declarationCount] = start;
+    declarationEnds[declarationCount] = start + identifier.identifierToken().text().length();
+    if (symbol != null) {
+      int ordinal = ordinal(symbol);
+      if (symbolDeclarations[ordinal] == NO_DECLARATION) {
+        symbolDeclarations[ordinal] = declarationCount;
+      }
+    }
+    declarationCount++;
+  }
+
+  public void reference(IdentifierTree identifier, Symbol symbol) {
+    if (referenceCount == referenceOffsets.length) {
+      referenceSymbols = grow(referenceSymbols);
+      referenceOffsets = grow(referenceOffsets);
+    }
+    referenceSymbols[referenceCount] = ordinal(symbol);
+    referenceOffsets[referenceCount] = startOffset(identifier);
+    referenceCount++;
+  }
+
+  private int ordinal(Symbol symbol) {
+    Integer ordinal = ordinals.get(symbol);
+    if (ordinal == null) {
+      ordinal = symbols.size();
+      ordinals.put(symbol, ordinal);
+      symbols.add(symbol);
+      if (ordinal == symbolDeclarations.length) {
+        symbolDeclarations = grow(symbolDeclarations);
+      }
+      symbolDeclarations[ordinal] = NO_DECLARATION;
+    }
+    return ordinal;
+  }
+
+  private static int[] grow(int[] array) {
+    return Arrays.copyOf(array, array.length * 2);
+  }
+
+  private static int startOffset(IdentifierTree identifier) {
+    return ((InternalSyntaxToken) identifier.identifierToken()).fromIndex();
+  }
+
+  public int declarationCount() {
+    return declarationCount;
+  }
+
+  public int declarationStart(int declaration) {
+    return declarationStarts[declaration];
+  }
+
+  public int declarationEnd(int declaration) {
+    return declarationEnds[declaration];
+  }
+
+  public int referenceCount() {
+    return referenceCount;
+  }
+
+  /**
+   * @return index of the declaration of the referenced symbol, -1 when it is not declared in the file
+   */
+  public int referenceDeclaration(int reference) {
+    return symbolDeclarations[referenceSymbols[reference]];
+  }
+
+  public int referenceOffset(int reference) {
+    return referenceOffsets[reference];
+  }
+
+  public Set<Symbol> referencedSymbols() {
+    Set<Symbol> result = Sets.newLinkedHashSet();
+    for (int i = 0; i < referenceCount; i++) {
+      result.add(symbols.get(referenceSymbols[i]));
+    }
+    return result;
+  }
+
+}
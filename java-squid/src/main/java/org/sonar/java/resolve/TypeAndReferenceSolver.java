@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.sonar.java.TimeBudget;
 import org.sonar.java.ast.api.JavaKeyword;
 import org.sonar.java.model.AbstractTypedTree;
 import org.sonar.java.model.declaration.VariableTreeImpl;
@@ -105,6 +106,15 @@ public class TypeAndReferenceSolver extends BaseTreeVisitor {
     typesOfLiterals.put(Tree.Kind.INT_LITERAL, symbols.intType);
   }
 
+  /**
+   * Resolution of the bodies is the largest part of the semantic analysis: it is interrupted once the time budget of the file is over.
+   */
+  @Override
+  protected void scan(@Nullable Tree tree) {
+    TimeBudget.checkpoint();
+    super.scan(tree);
+  }
+
   @Override
   public void visitMethod(MethodTree tree) {
     //skip return type, and throw clauses : visited in second pass.
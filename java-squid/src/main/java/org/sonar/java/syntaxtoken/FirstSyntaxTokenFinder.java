@@ -19,6 +19,7 @@
  */
 package org.sonar.java.syntaxtoken;
 
+import org.sonar.java.model.JavaTree;
 import org.sonar.java.model.expression.TypeArgumentListTreeImpl;
 import org.sonar.plugins.java.api.tree.AnnotationTree;
 import org.sonar.plugins.java.api.tree.ArrayAccessExpressionTree;
@@ -99,6 +100,20 @@ public class FirstSyntaxTokenFinder extends BaseTreeVisitor {
    */
   @Nullable
   public static SyntaxToken firstSyntaxToken(Tree tree) {
+    if (tree.is(Tree.Kind.TOKEN)) {
+      return (SyntaxToken) tree;
+    }
+    if (tree instanceof JavaTree) {
+      return ((JavaTree) tree).firstToken();
+    }
+    return computeFirstSyntaxToken(tree);
+  }
+
+  /**
+   * Same as {@link #firstSyntaxToken(Tree)}, without going through the value cached on {@link JavaTree}.
+   */
+  @Nullable
+  public static SyntaxToken computeFirstSyntaxToken(Tree tree) {
     if (tree.is(Tree.Kind.TOKEN)) {
       return (SyntaxToken) tree;
     }
@@ -0,0 +1,188 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.java.ast.JavaAstScanner;
+import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.JavaFileScanner;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AnalysisProfilerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void disabled_profiler_records_nothing() {
+    AnalysisProfiler profiler = AnalysisProfiler.disabled();
+    profiler.startFile(new File("A.java"));
+    profiler.begin();
+    profiler.end(AnalysisProfiler.PARSE);
+    profiler.endFile();
+    assertThat(profiler.isEnabled()).isFalse();
+    assertThat(profiler.statistics()).isEmpty();
+  }
+
+  @Test
+  public void records_time_invocations_and_slowest_file() {
+    AnalysisProfiler profiler = AnalysisProfiler.create(true, 1);
+    File fileA = new File("A.java");
+    File fileB = new File("B.java");
+    profiler.startFile(fileA);
+    profiler.begin();
+    profiler.end("fast");
+    profiler.endFile();
+    profiler.startFile(fileB);
+    profiler.begin();
+    sleep(5);
+    profiler.end("slow");
+    profiler.begin();
+    profiler.end("fast");
+    profiler.endFile();
+
+    List<AnalysisProfiler.PhaseStatistics> statistics = profiler.statistics();
+    assertThat(statistics).hasSize(2);
+    assertThat(statistics.get(0).name()).isEqualTo("slow");
+    assertThat(statistics.get(0).invocations()).isEqualTo(1);
+    assertThat(statistics.get(0).maxFile()).isEqualTo(fileB);
+    assertThat(statistics.get(0).totalNanos()).isGreaterThanOrEqualTo(statistics.get(0).maxNanos());
+    assertThat(statistics.get(1).name()).isEqualTo("fast");
+    assertThat(statistics.get(1).invocations()).isEqualTo(2);
+    assertThat(statistics.get(1).allocatedBytes()).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void report_is_written_as_json() throws Exception {
+    AnalysisProfiler profiler = AnalysisProfiler.create(false, 0);
+    profiler.startFile(new File("dir\\\"quoted\".java"));
+    profiler.begin();
+    profiler.end(AnalysisProfiler.SEMANTIC);
+    profiler.endFile();
+    File report = temp.newFile("profiling.json");
+    profiler.report(report);
+
+    String json = Files.toString(report, Charsets.UTF_8);
+    assertThat(json).startsWith("[\n  {\"name\": \"semantic\", \"totalMillis\": ");
+    assertThat(json).contains("\"invocations\": 1,");
+    assertThat(json).contains("\"maxFile\": \"dir\\\\\\\"quoted\\\".java\"}");
+    assertThat(AnalysisProfiler.toJson(AnalysisProfiler.disabled().statistics())).isEqualTo("[\n]\n");
+  }
+
+  @Test
+  public void profiles_parsing_semantic_and_each_scanner() throws Exception {
+    JavaConfiguration conf = new JavaConfiguration(Charsets.UTF_8);
+    conf.setProfilingEnabled(true);
+    VisitorsBridge visitorsBridge = new VisitorsBridge(new SlowScanner());
+    visitorsBridge.setProfiler(AnalysisProfiler.create(conf));
+    JavaAstScanner.scanSingleFile(new File("src/test/files/metrics/Classes.java"), visitorsBridge);
+
+    List<AnalysisProfiler.PhaseStatistics> statistics = visitorsBridge.getProfiler().statistics();
+    Map<String, AnalysisProfiler.PhaseStatistics> statisticsByName = Maps.newHashMap();
+    for (AnalysisProfiler.PhaseStatistics phaseStatistics : statistics) {
+      statisticsByName.put(phaseStatistics.name(), phaseStatistics);
+    }
+    assertThat(statisticsByName.keySet()).containsOnly(
+      AnalysisProfiler.PARSE, AnalysisProfiler.SEMANTIC, AnalysisProfiler.SYMBOL_TABLE, SlowScanner.class.getName());
+    AnalysisProfiler.PhaseStatistics scannerStatistics = statisticsByName.get(SlowScanner.class.getName());
+    assertThat(scannerStatistics.maxNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    assertThat(scannerStatistics.maxFile().getName()).isEqualTo("Classes.java");
+  }
+
+  @Test
+  public void highlighting_has_its_own_phase() {
+    VisitorsBridge visitorsBridge = new VisitorsBridge(mock(SyntaxHighlighterVisitor.class));
+    visitorsBridge.setProfiler(AnalysisProfiler.create(false, 0));
+    JavaAstScanner.scanSingleFile(new File("src/test/files/metrics/Classes.java"), visitorsBridge);
+
+    List<String> names = Lists.newArrayList();
+    for (AnalysisProfiler.PhaseStatistics phaseStatistics : visitorsBridge.getProfiler().statistics()) {
+      names.add(phaseStatistics.name());
+    }
+    assertThat(names).contains(AnalysisProfiler.HIGHLIGHTING);
+  }
+
+  @Test
+  public void phases_are_recorded_from_several_threads() throws Exception {
+    final AnalysisProfiler profiler = AnalysisProfiler.create(false, 0);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          for (int j = 0; j < 1000; j++) {
+            profiler.begin();
+            profiler.end("phase");
+            profiler.add("parallel", 1);
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (AnalysisProfiler.PhaseStatistics phaseStatistics : profiler.statistics()) {
+      assertThat(phaseStatistics.invocations()).isEqualTo(4000);
+    }
+    assertThat(profiler.statistics()).hasSize(2);
+  }
+
+  private static class SlowScanner implements JavaFileScanner {
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      sleep(50);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
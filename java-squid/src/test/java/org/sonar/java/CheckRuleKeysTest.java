@@ -0,0 +1,70 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.java.api.JavaCheck;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CheckRuleKeysTest {
+
+  private final JavaCheck check = mock(JavaCheck.class);
+  private final JavaCheck otherCheck = mock(JavaCheck.class);
+  private final JavaCheck unknownCheck = mock(JavaCheck.class);
+
+  @Test
+  public void rule_keys_are_resolved_once_per_check() {
+    Checks<JavaCheck> checks = mock(Checks.class);
+    Checks<JavaCheck> otherChecks = mock(Checks.class);
+    when(checks.all()).thenReturn(ImmutableList.of(check));
+    when(checks.ruleKey(check)).thenReturn(RuleKey.of("squid", "S1"));
+    when(otherChecks.all()).thenReturn(ImmutableList.of(check, otherCheck));
+    when(otherChecks.ruleKey(check)).thenReturn(RuleKey.of("other", "S1"));
+    when(otherChecks.ruleKey(otherCheck)).thenReturn(RuleKey.of("other", "S2"));
+    CheckRuleKeys checkRuleKeys = new CheckRuleKeys(ImmutableList.of(checks, otherChecks));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(checkRuleKeys.ruleKey(check)).isEqualTo(RuleKey.of("squid", "S1"));
+      assertThat(checkRuleKeys.ruleKey(otherCheck)).isEqualTo(RuleKey.of("other", "S2"));
+    }
+    verify(checks, times(1)).ruleKey(check);
+    verify(otherChecks, times(1)).ruleKey(otherCheck);
+  }
+
+  @Test
+  public void checks_not_created_by_repositories_are_looked_up() {
+    Checks<JavaCheck> checks = mock(Checks.class);
+    when(checks.all()).thenReturn(ImmutableList.<JavaCheck>of());
+    when(checks.ruleKey(check)).thenReturn(RuleKey.of("squid", "S1"));
+    CheckRuleKeys checkRuleKeys = new CheckRuleKeys(ImmutableList.of(checks));
+
+    assertThat(checkRuleKeys.ruleKey(check)).isEqualTo(RuleKey.of("squid", "S1"));
+    assertThat(checkRuleKeys.ruleKey(unknownCheck)).isNull();
+  }
+
+}
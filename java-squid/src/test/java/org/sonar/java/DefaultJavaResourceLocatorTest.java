@@ -26,6 +26,7 @@ import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.InputPath;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.java.bytecode.ClassFileInventory;
 import org.sonar.java.filters.SuppressWarningsFilter;
 import org.sonar.java.model.VisitorsBridge;
 
@@ -44,6 +45,7 @@ public class DefaultJavaResourceLocatorTest {
   public static void setup() {
     JavaClasspath javaClasspath = mock(JavaClasspath.class);
     when(javaClasspath.getBinaryDirs()).thenReturn(Lists.newArrayList(new File("target/test-classes")));
+    when(javaClasspath.getClassFileInventory()).thenReturn(ClassFileInventory.create(Lists.newArrayList(new File("target/test-classes"))));
     when(javaClasspath.getElements()).thenReturn(Lists.newArrayList(new File("target/test-classes")));
     SensorContext sensorContext = mock(SensorContext.class);
     File file = new File("src/test/java/org/sonar/java/DefaultJavaResourceLocatorTest.java");
@@ -20,11 +20,15 @@
 package org.sonar.java;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Test;
 import org.sonar.java.ast.JavaAstScanner;
+import org.sonar.java.filters.SuppressWarningsRange;
 import org.sonar.java.model.VisitorsBridge;
 
 import java.io.File;
+import java.util.List;
+import java.util.Set;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -65,20 +69,40 @@ public class JavaFilesCacheTest {
   public void suppressWarning_lines_mapping() {
     JavaFilesCache javaFilesCache = new JavaFilesCache();
     JavaAstScanner.scanSingleFile(new File("src/test/resources/JavaFilesCacheTest.java"), new VisitorsBridge(javaFilesCache));
-    assertThat(javaFilesCache.suppressWarningLines.keySet()).hasSize(28);
+    assertThat(coveredLines(javaFilesCache.suppressWarningRanges)).hasSize(28);
     for (Integer line : Lists.newArrayList(14, 15, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29)) {
-      assertThat(javaFilesCache.suppressWarningLines.get(line)).contains("all");
+      assertThat(warningsOnLine(javaFilesCache.suppressWarningRanges, line)).contains("all");
     }
     for (Integer line : Lists.newArrayList(23, 24, 25, 26, 27)) {
-      assertThat(javaFilesCache.suppressWarningLines.get(line)).contains("foo", "bar");
+      assertThat(warningsOnLine(javaFilesCache.suppressWarningRanges, line)).contains("foo", "bar");
     }
 
     for (Integer line : Lists.newArrayList(10, 11, 32, 33, 34, 35, 36, 37)) {
-      assertThat(javaFilesCache.suppressWarningLines.get(line)).containsOnly("qix");
+      assertThat(warningsOnLine(javaFilesCache.suppressWarningRanges, line)).containsOnly("qix");
     }
 
     for (Integer line : Lists.newArrayList(39, 41, 42, 43, 44, 45, 46)) {
-      assertThat(javaFilesCache.suppressWarningLines.get(line)).containsOnly("gul");
+      assertThat(warningsOnLine(javaFilesCache.suppressWarningRanges, line)).containsOnly("gul");
     }
   }
+
+  private static Set<Integer> coveredLines(List<SuppressWarningsRange> ranges) {
+    Set<Integer> lines = Sets.newHashSet();
+    for (SuppressWarningsRange range : ranges) {
+      for (int line = range.startLine(); line <= range.endLine(); line++) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private static Set<String> warningsOnLine(List<SuppressWarningsRange> ranges, int line) {
+    Set<String> warnings = Sets.newHashSet();
+    for (SuppressWarningsRange range : ranges) {
+      if (range.startLine() <= line && line <= range.endLine()) {
+        warnings.addAll(range.warnings());
+      }
+    }
+    return warnings;
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.plugins.java.api.JavaResourceLocator;
+import org.sonar.squidbridge.api.CodeVisitor;
+import org.sonar.squidbridge.api.SourceClass;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceFile;
+import org.sonar.squidbridge.api.SourceMethod;
+import org.sonar.squidbridge.api.SourceProject;
+import org.sonar.squidbridge.indexer.QueryByType;
+import org.sonar.squidbridge.indexer.SquidIndex;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class JavaSquidTest {
+
+  private static final File BYTECODE_DIR = new File("src/test/files/bytecode/bin");
+
+  @Test
+  public void pipelined_scan_indexes_same_files_as_sequential_scan() {
+    Set<String> sequential = scan(false);
+    Set<String> pipelined = scan(true);
+
+    assertThat(pipelined).hasSize(16);
+    assertThat(pipelined).isEqualTo(sequential);
+  }
+
+  @Test
+  public void pipelined_scan_indexes_same_classes_and_methods_as_sequential_scan() {
+    Set<String> sequential = scanIndex(false);
+    Set<String> pipelined = scanIndex(true);
+
+    assertThat(pipelined).hasSize(16);
+    assertThat(pipelined).isEqualTo(sequential);
+  }
+
+  @Test
+  public void moved_test_files_have_their_classes_and_methods_indexed() {
+    SquidIndex testIndex = new SquidIndex();
+    SourceFile testFile = new SourceFile("tags/TagTest.java");
+    testFile.setSourceCodeIndexer(testIndex);
+    SourceClass testClass = new SourceClass("tags/TagTest");
+    testFile.addChild(testClass);
+    testClass.addChild(new SourceMethod(testClass, "test()V", 3));
+
+    SquidIndex index = new SquidIndex();
+    SourceProject project = new SourceProject("Java Project");
+    project.setSourceCodeIndexer(index);
+    project.addChild(testFile);
+    JavaSquid.indexChildren(testFile, index);
+
+    assertThat(index.search("tags/TagTest.java")).isSameAs(testFile);
+    assertThat(index.search("tags/TagTest")).isSameAs(testClass);
+    assertThat(index.search("tags/TagTest#test()V")).isNotNull();
+    SourceClass otherClass = new SourceClass("tags/TagTest$Inner");
+    testFile.addChild(otherClass);
+    assertThat(index.search("tags/TagTest$Inner")).isSameAs(otherClass);
+  }
+
+  @Test
+  public void pipelined_scan_lists_main_classes_before_scanning_tests() {
+    JavaResourceLocator javaResourceLocator = mock(JavaResourceLocator.class);
+    scan(true, javaResourceLocator);
+    verify(javaResourceLocator, times(1)).classKeys();
+  }
+
+  private static Set<String> scan(boolean pipelined) {
+    return scan(pipelined, mock(JavaResourceLocator.class));
+  }
+
+  private static Set<String> scanIndex(boolean pipelined) {
+    JavaSquid squid = scanSquid(pipelined, mock(JavaResourceLocator.class));
+    Set<String> keys = new TreeSet<>();
+    for (Class<? extends SourceCode> type : Arrays.asList(SourceFile.class, SourceClass.class, SourceMethod.class)) {
+      for (SourceCode sourceCode : squid.search(new QueryByType(type))) {
+        keys.add(type.getSimpleName() + " " + sourceCode.getKey());
+      }
+    }
+    return keys;
+  }
+
+  private static Set<String> scan(boolean pipelined, JavaResourceLocator javaResourceLocator) {
+    JavaSquid squid = scanSquid(pipelined, javaResourceLocator);
+    Set<String> keys = new TreeSet<>();
+    for (SourceCode sourceCode : squid.search(new QueryByType(SourceFile.class))) {
+      assertThat(sourceCode.getParent()).isSameAs(squid.search("Java Project"));
+      keys.add(sourceCode.getKey());
+    }
+    return keys;
+  }
+
+  private static JavaSquid scanSquid(boolean pipelined, JavaResourceLocator javaResourceLocator) {
+    JavaConfiguration conf = new JavaConfiguration(Charsets.UTF_8);
+    conf.setPipelined(pipelined);
+    JavaSquid squid = new JavaSquid(conf, javaResourceLocator, new CodeVisitor[0]);
+    Collection<File> sourceFiles = FileUtils.listFiles(new File("src/test/files/bytecode/src/properties"), new String[] {"java"}, true);
+    Collection<File> testFiles = FileUtils.listFiles(new File("src/test/files/bytecode/src/tags"), new String[] {"java"}, true);
+
+    squid.scan(sourceFiles, testFiles, Collections.singleton(BYTECODE_DIR));
+
+    assertThat(squid.isBytecodeScanned()).isTrue();
+    return squid;
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.typed.ActionParser;
+import org.junit.Test;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SharedParsersTest {
+
+  @Test
+  public void one_parser_per_charset() {
+    SharedParsers parsers = new SharedParsers();
+    assertThat(parsers.get(Charsets.UTF_8)).isSameAs(parsers.get(Charsets.UTF_8));
+    assertThat(parsers.get(Charsets.ISO_8859_1)).isNotSameAs(parsers.get(Charsets.UTF_8));
+  }
+
+  @Test
+  public void token_texts_are_shared_within_a_module_only() {
+    SharedParsers parsers = new SharedParsers();
+    ActionParser<Tree> parser = parsers.get(Charsets.UTF_8);
+    String name = className(parser);
+    assertThat(className(parser)).isSameAs(name);
+
+    parser = parsers.get(Charsets.UTF_8);
+    assertThat(className(parser)).isEqualTo(name).isNotSameAs(name);
+  }
+
+  private static String className(ActionParser<Tree> parser) {
+    CompilationUnitTree cut = (CompilationUnitTree) parser.parse("class MyClass {}");
+    return ((ClassTree) cut.types().get(0)).simpleName().name();
+  }
+
+}
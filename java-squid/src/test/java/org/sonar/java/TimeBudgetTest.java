@@ -0,0 +1,141 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.sonar.java.ast.JavaAstScanner;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.JavaFileScanner;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class TimeBudgetTest {
+
+  @Test
+  public void unlimited_budget_never_interrupts() {
+    TimeBudget timeBudget = TimeBudget.unlimited();
+    assertThat(timeBudget.isEnabled()).isFalse();
+    timeBudget.startFile(new File("A.java"));
+    assertThat(timeBudget.startRule()).isTrue();
+    for (int i = 0; i < 10 * TimeBudget.CHECK_INTERVAL; i++) {
+      TimeBudget.checkpoint();
+    }
+    timeBudget.endRule();
+    timeBudget.endFile();
+    assertThat(timeBudget.interruptedFilesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void rule_exceeding_its_budget_is_interrupted_and_next_rules_still_run() {
+    TimeBudget timeBudget = new TimeBudget(0, 20);
+    CountingScanner countingScanner = new CountingScanner();
+    VisitorsBridge visitorsBridge = new VisitorsBridge(
+      ImmutableList.of(new EndlessScanner(), countingScanner), Lists.<File>newArrayList(), null);
+    visitorsBridge.setTimeBudget(timeBudget);
+    JavaAstScanner.scanSingleFile(new File("src/test/files/metrics/Classes.java"), visitorsBridge);
+
+    assertThat(countingScanner.count).isEqualTo(1);
+    assertThat(timeBudget.interruptedFilesCount()).isEqualTo(1);
+    assertThat(timeBudget.interruptedRules().count(EndlessScanner.class.getName())).isEqualTo(1);
+    assertThat(timeBudget.interruptedRules().count(CountingScanner.class.getName())).isEqualTo(0);
+    timeBudget.report();
+  }
+
+  @Test
+  public void remaining_rules_are_skipped_once_file_budget_is_exhausted() {
+    TimeBudget timeBudget = new TimeBudget(1000, 0);
+    CountingScanner countingScanner = new CountingScanner();
+    VisitorsBridge visitorsBridge = new VisitorsBridge(
+      ImmutableList.of(new EndlessScanner(), countingScanner), Lists.<File>newArrayList(), null);
+    visitorsBridge.setTimeBudget(timeBudget);
+    JavaAstScanner.scanSingleFile(new File("src/test/files/metrics/Classes.java"), visitorsBridge);
+
+    assertThat(countingScanner.count).isEqualTo(0);
+    assertThat(timeBudget.interruptedRules().count(EndlessScanner.class.getName())).isEqualTo(1);
+    assertThat(timeBudget.interruptedRules().count(CountingScanner.class.getName())).isEqualTo(1);
+  }
+
+  @Test
+  public void semantic_analysis_is_interrupted_once_file_budget_is_exhausted() throws Exception {
+    File file = new File("src/test/files/metrics/Classes.java");
+    CompilationUnitTree tree = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse(file);
+    TimeBudget timeBudget = new TimeBudget(1, 0);
+    timeBudget.startFile(file);
+    Thread.sleep(10);
+    try {
+      SemanticModel.createFor(tree, Lists.<File>newArrayList());
+      fail();
+    } catch (TimeBudgetExceededException e) {
+      // expected
+    } finally {
+      timeBudget.endFile();
+    }
+  }
+
+  @Test
+  public void rule_deadline_does_not_outlive_the_rule() throws Exception {
+    TimeBudget timeBudget = new TimeBudget(1, 0);
+    timeBudget.startFile(new File("A.java"));
+    assertThat(timeBudget.startRule()).isTrue();
+    timeBudget.endRule();
+    Thread.sleep(10);
+    for (int i = 0; i < 10 * TimeBudget.CHECK_INTERVAL; i++) {
+      TimeBudget.checkpoint();
+    }
+    timeBudget.endFile();
+  }
+
+  @Test
+  public void checkpoint_outside_of_a_file_does_not_throw() {
+    new TimeBudget(1, 1);
+    for (int i = 0; i < 10 * TimeBudget.CHECK_INTERVAL; i++) {
+      TimeBudget.checkpoint();
+    }
+  }
+
+  private static class EndlessScanner implements JavaFileScanner {
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      while (true) {
+        TimeBudget.checkpoint();
+      }
+    }
+  }
+
+  private static class CountingScanner implements JavaFileScanner {
+    int count = 0;
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      count++;
+    }
+  }
+
+}
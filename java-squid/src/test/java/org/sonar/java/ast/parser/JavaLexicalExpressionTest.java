@@ -0,0 +1,94 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.parser;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaLexicalExpressionTest {
+
+  private static final String EXP_REGEXP = "(?:[Ee][+-]?+[0-9_]++)";
+  private static final String BINARY_EXP_REGEXP = "(?:[Pp][+-]?+[0-9_]++)";
+  private static final String FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP = "(?:" +
+    "[0-9][0-9_]*+\\.([0-9_]++)?+" + EXP_REGEXP + "?+" +
+    "|" + "\\.[0-9][0-9_]*+" + EXP_REGEXP + "?+" +
+    "|" + "[0-9][0-9_]*+" + EXP_REGEXP +
+    "|" + "0[xX][0-9_a-fA-F]++\\.[0-9_a-fA-F]*+" + BINARY_EXP_REGEXP +
+    "|" + "0[xX][0-9_a-fA-F]++" + BINARY_EXP_REGEXP +
+    ")";
+  private static final String INTEGER_LITERAL_REGEXP = "(?:0[xX][0-9_a-fA-F]++|0[bB][01_]++|[0-9][0-9_]*+)";
+
+  private static final String NUMBER_ALPHABET = "0123456789_.xXbBeEpPfFdDlLaA+-9 ";
+  private static final String TEXT_ALPHABET = "ab\"'\\/*\n\r\t \u000B\f$_1\u00e9 ";
+
+  @Test
+  public void literals_match_like_regular_expressions() {
+    assertSameAsRegexp(JavaLexicalExpression.floatLiteral(), FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP + "[fF]|[0-9][0-9_]*+[fF]", NUMBER_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.doubleLiteral(), FLOATING_LITERAL_WITHOUT_SUFFIX_REGEXP + "[dD]?+|[0-9][0-9_]*+[dD]", NUMBER_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.longLiteral(), INTEGER_LITERAL_REGEXP + "[lL]", NUMBER_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.integerLiteral(), INTEGER_LITERAL_REGEXP, NUMBER_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.quoted('\''), "'([^'\\\\]*+(\\\\[\\s\\S])?+)*+'", TEXT_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.quoted('"'), "\"([^\"\\\\]*+(\\\\[\\s\\S])?+)*+\"", TEXT_ALPHABET);
+  }
+
+  @Test
+  public void trivia_and_identifiers_match_like_regular_expressions() {
+    assertSameAsRegexp(JavaLexicalExpression.whitespace(), "\\s*+", TEXT_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.inlineComment(), "//[^\\n\\r]*+", TEXT_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.multilineComment(), "/\\*[\\s\\S]*?\\*\\/", TEXT_ALPHABET);
+    assertSameAsRegexp(JavaLexicalExpression.identifier(), "\\p{javaJavaIdentifierStart}++\\p{javaJavaIdentifierPart}*+", TEXT_ALPHABET + "\uD801\uDC00\u0000");
+    assertSameAsRegexp(JavaLexicalExpression.identifierPart(), "\\p{javaJavaIdentifierPart}", TEXT_ALPHABET + "\uD801\uDC00\u0000");
+  }
+
+  @Test
+  public void sample_literals() {
+    assertThat(JavaLexicalExpression.doubleLiteral().match("1.5e-3d;")).isEqualTo(7);
+    assertThat(JavaLexicalExpression.doubleLiteral().match("0x1.8p1;")).isEqualTo(7);
+    assertThat(JavaLexicalExpression.floatLiteral().match("1_000f")).isEqualTo(6);
+    assertThat(JavaLexicalExpression.floatLiteral().match("1.5")).isEqualTo(JavaLexicalExpression.NO_MATCH);
+    assertThat(JavaLexicalExpression.longLiteral().match("0b1010L")).isEqualTo(7);
+    assertThat(JavaLexicalExpression.integerLiteral().match("0xCAFE_BABE;")).isEqualTo(11);
+    assertThat(JavaLexicalExpression.quoted('"').match("\"a\\\"b\" + c")).isEqualTo(6);
+    assertThat(JavaLexicalExpression.multilineComment().match("/*/ */")).isEqualTo(6);
+  }
+
+  private static void assertSameAsRegexp(JavaLexicalExpression expression, String regexp, String alphabet) {
+    Matcher matcher = Pattern.compile(regexp).matcher("");
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      sb.setLength(0);
+      int length = random.nextInt(10);
+      for (int j = 0; j < length; j++) {
+        sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      String input = sb.toString();
+      matcher.reset(input);
+      int expected = matcher.lookingAt() ? matcher.end() : JavaLexicalExpression.NO_MATCH;
+      assertThat(expression.match(input)).as(expression + " on '" + input + "'").isEqualTo(expected);
+    }
+  }
+
+}
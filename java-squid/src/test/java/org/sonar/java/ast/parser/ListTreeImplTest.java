@@ -74,6 +74,6 @@ public class ListTreeImplTest {
   }
 
   private SyntaxToken createToken(String value) {
-    return new InternalSyntaxToken(1,1, value, Lists.<SyntaxTrivia>newArrayList(), 0,0,false);
+    return new InternalSyntaxToken(1,1, value, Lists.<SyntaxTrivia>newArrayList(), 0, false);
   }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.parser;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TokenTextCacheTest {
+
+  @Test
+  public void same_text_is_shared() {
+    TokenTextCache cache = new TokenTextCache();
+    char[] input = "int a; int b;".toCharArray();
+    String first = cache.text(input, 0, 3);
+    String second = cache.text(input, 7, 10);
+    assertThat(first).isEqualTo("int");
+    assertThat(second).isSameAs(first);
+    assertThat(cache.text(input, 4, 5)).isEqualTo("a");
+    assertThat(cache.text(input, 11, 12)).isEqualTo("b");
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void long_texts_are_not_stored() {
+    TokenTextCache cache = new TokenTextCache();
+    char[] input = new char[TokenTextCache.MAX_TOKEN_LENGTH + 1];
+    String text = cache.text(input, 0, input.length);
+    assertThat(text).hasSize(input.length);
+    assertThat(cache.text(input, 0, input.length)).isNotSameAs(text);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void table_grows() {
+    TokenTextCache cache = new TokenTextCache();
+    for (int i = 0; i < 5000; i++) {
+      char[] input = ("v" + i).toCharArray();
+      assertThat(cache.text(input, 0, input.length)).isEqualTo("v" + i);
+    }
+    assertThat(cache.size()).isEqualTo(5000);
+    char[] input = "v4242".toCharArray();
+    assertThat(cache.text(input, 0, input.length)).isEqualTo("v4242");
+    assertThat(cache.size()).isEqualTo(5000);
+  }
+
+  @Test
+  public void parsed_tokens_share_text() {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse("class A { int a; int b; }");
+    ClassTree classTree = (ClassTree) cut.types().get(0);
+    VariableTree a = (VariableTree) classTree.members().get(0);
+    VariableTree b = (VariableTree) classTree.members().get(1);
+    assertThat(a.endToken().text()).isSameAs(b.endToken().text());
+    assertThat(a.endToken().trivias()).isEmpty();
+  }
+
+}
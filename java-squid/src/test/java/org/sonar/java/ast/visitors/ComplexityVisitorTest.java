@@ -0,0 +1,140 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.visitors;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.typed.ActionParser;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ComplexityVisitorTest {
+
+  private final ActionParser p = JavaParser.createParser(Charsets.UTF_8);
+
+  private static final String SOURCE = "class A {\n"
+    + "  private int a;\n"
+    + "  public int getA() { return a; }\n"
+    + "  public void setA(int a) { this.a = a; }\n"
+    + "  int foo(boolean b) { if (b && a > 0) { return 1; } for (;;) { } }\n"
+    + "  int bar() { return a > 0 ? 1 : 2; }\n"
+    + "  abstract void qix();\n"
+    + "  A() { new Object() { int inner() { while (true) { } } }; }\n"
+    + "  class B { private int b; int getB() { return b; } void baz() { switch (b) { case 1: break; default: } } }\n"
+    + "  enum E { X; void e() { try { } catch (Exception e) { throw e; } } }\n"
+    + "}\n"
+    + "interface I { default int m() { return 1; } }\n";
+
+  @Test
+  public void memoized_scan_is_same_as_scan() {
+    for (boolean analyseAccessors : new boolean[] {true, false}) {
+      CompilationUnitTree cut = (CompilationUnitTree) p.parse(SOURCE);
+      ComplexityVisitor memoized = new ComplexityVisitor(analyseAccessors);
+      ComplexityVisitor scanner = new ComplexityVisitor(analyseAccessors);
+
+      assertThat(memoized.memoizedScan(cut, cut)).isEqualTo(copy(scanner.scan(cut)));
+      TreeCollector collector = new TreeCollector();
+      cut.accept(collector);
+      assertThat(collector.methods).hasSize(11);
+      for (Tree tree : collector.trees) {
+        assertThat(memoized.memoizedScan(cut, tree)).isEqualTo(copy(scanner.scan(tree)));
+      }
+      for (int i = 0; i < collector.methods.size(); i++) {
+        MethodTree method = collector.methods.get(i);
+        ClassTree enclosingClass = collector.enclosingClasses.get(i);
+        assertThat(memoized.memoizedScan(cut, enclosingClass, method)).isEqualTo(copy(scanner.scan(enclosingClass, method)));
+      }
+    }
+  }
+
+  @Test
+  public void memoized_scan_with_classes_in_trailing_return() {
+    String source = "class A {\n"
+      + "  Object f() { return new Object() { void m() { if (x) { } } }; }\n"
+      + "  Object g() { class L { int l() { while (x) { } return 1; } } return new L() { void n() { for (;;) { } } }; }\n"
+      + "  int h() { if (x) { } return x ? 1 : 2; }\n"
+      + "}\n";
+    CompilationUnitTree cut = (CompilationUnitTree) p.parse(source);
+    ComplexityVisitor memoized = new ComplexityVisitor(false);
+    ComplexityVisitor scanner = new ComplexityVisitor(false);
+
+    assertThat(memoized.memoizedScan(cut, cut)).isEqualTo(copy(scanner.scan(cut)));
+    TreeCollector collector = new TreeCollector();
+    cut.accept(collector);
+    assertThat(collector.methods).hasSize(6);
+    for (Tree tree : collector.trees) {
+      assertThat(memoized.memoizedScan(cut, tree)).isEqualTo(copy(scanner.scan(tree)));
+    }
+    for (int i = 0; i < collector.methods.size(); i++) {
+      assertThat(memoized.memoizedScan(cut, collector.enclosingClasses.get(i), collector.methods.get(i)))
+        .isEqualTo(copy(scanner.scan(collector.enclosingClasses.get(i), collector.methods.get(i))));
+    }
+    // the classes in the return keep their own blame, only the trailing returns are not counted
+    assertThat(memoized.memoizedScan(cut, collector.methods.get(0))).hasSize(3);
+    assertThat(memoized.memoizedScan(cut, collector.methods.get(2))).hasSize(5);
+  }
+
+  @Test
+  public void memoized_scan_of_other_trees() {
+    CompilationUnitTree cut = (CompilationUnitTree) p.parse(SOURCE);
+    Tree statement = ((MethodTree) ((ClassTree) cut.types().get(0)).members().get(3)).block().body().get(0);
+    assertThat(new ComplexityVisitor(true).memoizedScan(cut, statement)).hasSize(3);
+  }
+
+  private static List<Tree> copy(List<Tree> blame) {
+    return Lists.newArrayList(blame);
+  }
+
+  private static class TreeCollector extends BaseTreeVisitor {
+    private final List<Tree> trees = new ArrayList<>();
+    private final List<MethodTree> methods = new ArrayList<>();
+    private final List<ClassTree> enclosingClasses = new ArrayList<>();
+    private final Deque<ClassTree> classes = new LinkedList<>();
+
+    @Override
+    public void visitClass(ClassTree tree) {
+      trees.add(tree);
+      classes.push(tree);
+      super.visitClass(tree);
+      classes.pop();
+    }
+
+    @Override
+    public void visitMethod(MethodTree tree) {
+      trees.add(tree);
+      methods.add(tree);
+      enclosingClasses.add(classes.peek());
+      super.visitMethod(tree);
+    }
+  }
+
+}
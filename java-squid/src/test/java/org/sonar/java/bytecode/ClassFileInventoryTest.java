@@ -0,0 +1,89 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassFileInventoryTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final File BIN = new File("src/test/files/bytecode/bin");
+  private static final File SRC = new File("src/test/files/bytecode/src");
+
+  @Test
+  public void should_list_class_files_by_internal_name() {
+    ClassFileInventory inventory = ClassFileInventory.create(ImmutableList.of(BIN));
+
+    assertThat(inventory.isEmpty()).isFalse();
+    assertThat(inventory.covers(BIN)).isTrue();
+    assertThat(inventory.hasClassFiles(BIN)).isTrue();
+    assertThat(inventory.classFiles()).hasSize(18);
+    ClassFileInventory.ClassFile classFile = inventory.classFile("tags/Tag");
+    assertThat(classFile.file()).isEqualTo(new File(BIN, "tags/Tag.class"));
+    assertThat(classFile.size()).isEqualTo(new File(BIN, "tags/Tag.class").length());
+    assertThat(classFile.lastModified()).isEqualTo(new File(BIN, "tags/Tag.class").lastModified());
+    assertThat(inventory.classFile(BIN, "LambdaExpressions")).isNotNull();
+    assertThat(inventory.classFile("tags/Unknown")).isNull();
+  }
+
+  @Test
+  public void should_keep_first_directory_for_duplicated_classes() throws Exception {
+    File other = temp.newFolder();
+    Files.copy(new File(BIN, "tags/Tag.class"), new File(other, "Tag.class"));
+    File copy = new File(other, "tags/Tag.class");
+    Files.createParentDirs(copy);
+    Files.copy(new File(BIN, "tags/Tag.class"), copy);
+
+    ClassFileInventory inventory = ClassFileInventory.create(ImmutableList.of(other, BIN, BIN.getAbsoluteFile()));
+
+    assertThat(inventory.classFiles()).hasSize(19);
+    assertThat(inventory.classFile("tags/Tag").file()).isEqualTo(copy);
+    assertThat(inventory.classFile(BIN, "tags/Tag").file()).isEqualTo(new File(BIN, "tags/Tag.class"));
+    assertThat(inventory.classFile("Tag")).isNotNull();
+    assertThat(inventory.classFiles(other)).hasSize(2);
+    assertThat(inventory.classFiles(BIN).get("tags/Tag").file()).isEqualTo(new File(BIN, "tags/Tag.class"));
+  }
+
+  @Test
+  public void should_handle_directories_without_class_files() {
+    File missing = new File("target/unknown");
+    ClassFileInventory inventory = ClassFileInventory.create(ImmutableList.of(SRC, missing));
+
+    assertThat(inventory.isEmpty()).isTrue();
+    assertThat(inventory.covers(SRC)).isTrue();
+    assertThat(inventory.hasClassFiles(SRC)).isFalse();
+    assertThat(inventory.hasClassFiles(missing)).isFalse();
+    assertThat(inventory.covers(BIN)).isFalse();
+    assertThat(inventory.classFile(BIN, "tags/Tag")).isNull();
+    assertThat(inventory.classFiles(SRC)).isEmpty();
+    assertThat(inventory.classFiles(BIN)).isEmpty();
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class ClassFileStoreTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final File JAR = new File("src/test/files/bytecode/lib/hello.jar");
+
+  @Test
+  public void stores_class_files_without_method_bodies() throws Exception {
+    File file = new File(temp.newFolder(), "hello.classes");
+    ClassFileStore.write(JAR, file);
+    ClassFileStore store = ClassFileStore.forJar(JAR, file.getParentFile());
+
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(store.contains("org/sonar/tests/Hello.class")).isTrue();
+    assertThat(store.contains("META-INF/MANIFEST.MF")).isFalse();
+    assertThat(store.contains("org/sonar/tests/Unknown.class")).isFalse();
+    assertThat(store.bytes("org/sonar/tests/Unknown.class")).isNull();
+
+    ClassNode classNode = new ClassNode();
+    new ClassReader(store.bytes("org/sonar/tests/Hello.class")).accept(classNode, 0);
+    assertThat(classNode.name).isEqualTo("org/sonar/tests/Hello");
+    assertThat(classNode.methods).isNotEmpty();
+    for (MethodNode method : (List<MethodNode>) classNode.methods) {
+      assertThat(method.instructions.size()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void store_is_written_once_per_jar_version() throws Exception {
+    File directory = temp.newFolder();
+    File copy = new File(temp.newFolder(), "copy.jar");
+    FileUtils.copyFile(JAR, copy);
+
+    ClassFileStore.forJar(copy, directory);
+    File[] stores = directory.listFiles();
+    assertThat(stores).hasSize(1);
+    assertThat(stores[0].getName()).matches("[0-9a-f]{40}\\.classes");
+    assertThat(ClassFileStore.open(copy, directory).contains("org/sonar/tests/Hello.class")).isTrue();
+    assertThat(directory.listFiles()).hasSize(1);
+
+    copy.setLastModified(copy.lastModified() - 10000);
+    ClassFileStore store = ClassFileStore.forJar(copy, directory);
+    assertThat(directory.listFiles()).hasSize(2);
+    assertThat(store.contains("org/sonar/tests/Hello.class")).isTrue();
+  }
+
+  @Test
+  public void invalid_store_is_rewritten() throws Exception {
+    File directory = temp.newFolder();
+    ClassFileStore.forJar(JAR, directory);
+    File file = directory.listFiles()[0];
+    FileUtils.writeStringToFile(file, "corrupted store");
+
+    ClassFileStore store = ClassFileStore.open(JAR, directory);
+
+    assertThat(store.contains("org/sonar/tests/Hello.class")).isTrue();
+    assertThat(file.length()).isGreaterThan("corrupted store".length());
+  }
+
+  @Test
+  public void jar_is_not_tried_again_after_a_failure() throws Exception {
+    File directory = temp.newFile();
+
+    assertThat(ClassFileStore.forJar(JAR, directory)).isNull();
+    assertThat(directory.delete()).isTrue();
+    assertThat(ClassFileStore.forJar(JAR, directory)).isNull();
+    assertThat(directory.exists()).isFalse();
+  }
+
+  @Test
+  public void store_is_not_written_in_a_read_only_directory() throws Exception {
+    File directory = temp.newFolder();
+    assertThat(directory.setWritable(false)).isTrue();
+    try {
+      // a privileged user can write anyway
+      assumeTrue(!directory.canWrite());
+      ClassFileStore.open(JAR, directory);
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("is not writable");
+    } finally {
+      directory.setWritable(true);
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.loader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JarCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final File JAR = new File("src/test/files/bytecode/lib/hello.jar");
+
+  private JarCache cache;
+
+  @After
+  public void tearDown() {
+    cache.close();
+  }
+
+  @Test
+  public void reads_entries_once() throws Exception {
+    cache = new JarCache(Long.MAX_VALUE);
+
+    assertThat(cache.jar(JAR).contains("org/sonar/tests/Hello.class")).isTrue();
+    assertThat(cache.jar(JAR).contains("org/sonar/tests/Unknown.class")).isFalse();
+    assertThat(cache.jar(JAR).bytes("org/sonar/tests/Unknown.class")).isNull();
+    long openedFootprint = cache.footprint();
+
+    byte[] bytes = cache.jar(JAR).bytes("org/sonar/tests/Hello.class");
+    assertThat(bytes).hasSize(460);
+    assertThat(cache.jar(JAR).bytes("org/sonar/tests/Hello.class")).isSameAs(bytes);
+    assertThat(cache.jar(new File(JAR.getAbsolutePath())).bytes("org/sonar/tests/Hello.class")).isSameAs(bytes);
+    assertThat(cache.footprint()).isEqualTo(openedFootprint + 460);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void evicts_least_recently_used_jars() throws Exception {
+    File first = copy("first.jar");
+    File second = copy("second.jar");
+    File third = copy("third.jar");
+    cache = new JarCache(2 * (11 * 100 + 460));
+
+    byte[] bytes = cache.jar(first).bytes("org/sonar/tests/Hello.class");
+    cache.jar(second).bytes("org/sonar/tests/Hello.class");
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.jar(first).bytes("org/sonar/tests/Hello.class")).isSameAs(bytes);
+
+    cache.jar(third).bytes("org/sonar/tests/Hello.class");
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.jar(first).bytes("org/sonar/tests/Hello.class")).isSameAs(bytes);
+    assertThat(cache.footprint()).isLessThanOrEqualTo(2 * (11 * 100 + 460));
+  }
+
+  @Test
+  public void keeps_most_recently_used_jar() throws Exception {
+    cache = new JarCache(0);
+
+    assertThat(cache.jar(JAR).bytes("org/sonar/tests/Hello.class")).isNotNull();
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.jar(copy("other.jar")).contains("org/sonar/tests/Hello.class")).isTrue();
+    assertThat(cache.size()).isEqualTo(1);
+    // evicted JARs are opened again on next lookup
+    assertThat(cache.jar(JAR).bytes("org/sonar/tests/Hello.class")).isNotNull();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fails_on_invalid_jar() throws Exception {
+    cache = new JarCache(Long.MAX_VALUE);
+    File invalid = temp.newFile("invalid.jar");
+    FileUtils.writeStringToFile(invalid, "not a jar");
+    cache.jar(invalid).contains("org/sonar/tests/Hello.class");
+  }
+
+  private File copy(String name) throws Exception {
+    File copy = new File(temp.getRoot(), name);
+    FileUtils.copyFile(JAR, copy);
+    return copy;
+  }
+
+}
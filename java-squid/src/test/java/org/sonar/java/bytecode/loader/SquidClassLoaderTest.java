@@ -25,6 +25,7 @@ import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.util.Arrays;
@@ -37,6 +38,9 @@ public class SquidClassLoaderTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private SquidClassLoader classLoader;
 
   @After
@@ -70,6 +74,39 @@ public class SquidClassLoaderTest {
     classLoader.loadClass("foo.Unknown");
   }
 
+  @Test
+  public void createFromJarWithClassFileStore() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    File storeDirectory = temp.newFolder();
+    classLoader = new SquidClassLoader(Arrays.asList(jar), new ClassLoaderOptions().setClassFileStoreDirectory(storeDirectory));
+
+    assertThat(storeDirectory.list()).isNotEmpty();
+    assertThat(classLoader.getResource("org/sonar/tests/Hello.class")).isNotNull();
+    assertThat(IOUtils.toByteArray(classLoader.getResourceAsStream("org/sonar/tests/Hello.class"))).isNotEmpty();
+    assertThat(classLoader.getResource("META-INF/MANIFEST.MF")).isNotNull();
+    assertThat(classLoader.getResource("java/lang/Integer.class")).isNotNull();
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.loadClass("org.sonar.tests.Hello")).isNotNull();
+  }
+
+  @Test
+  public void createFromJarWithJarCache() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    JarCache jarCache = new JarCache(Long.MAX_VALUE);
+    classLoader = new SquidClassLoader(Arrays.asList(jar), new ClassLoaderOptions().setJarCache(jarCache));
+
+    assertThat(classLoader.loadClass("org.sonar.tests.Hello")).isNotNull();
+    assertThat(IOUtils.toByteArray(classLoader.getResourceAsStream("org/sonar/tests/Hello.class"))).isNotEmpty();
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    classLoader.close();
+
+    SquidClassLoader other = new SquidClassLoader(Arrays.asList(jar), new ClassLoaderOptions().setJarCache(jarCache));
+    assertThat(other.getResource("META-INF/MANIFEST.MF")).isNotNull();
+    assertThat(jarCache.size()).isEqualTo(1);
+    other.close();
+    jarCache.close();
+  }
+
   @Test
   public void unknownJarIsIgnored() throws Exception {
     File jar = new File("src/test/files/bytecode/lib/unknown.jar");
@@ -0,0 +1,120 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.cfg;
+
+import org.junit.Test;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BitVectorDataflowTest {
+
+  private static CFG buildCFG(String methodCode) {
+    CompilationUnitTree cut = (CompilationUnitTree) LiveVariablesTest.PARSER.parse("class A { " + methodCode + " }");
+    SemanticModel.createFor(cut, Collections.<File>emptyList());
+    return CFG.build((MethodTree) ((ClassTree) cut.types().get(0)).members().get(0));
+  }
+
+  private static long[][] emptySets(CFG cfg, int size) {
+    long[][] sets = new long[cfg.reversedBlocks().size()][];
+    for (int i = 0; i < sets.length; i++) {
+      sets[i] = BitVectorDataflow.newSet(size);
+    }
+    return sets;
+  }
+
+  @Test
+  public void bit_operations() {
+    long[] set = BitVectorDataflow.newSet(130);
+    assertThat(set).hasSize(3);
+    assertThat(BitVectorDataflow.isEmpty(set)).isTrue();
+    assertThat(BitVectorDataflow.nextSet(set, 0)).isEqualTo(-1);
+    BitVectorDataflow.add(set, 3);
+    BitVectorDataflow.add(set, 64);
+    BitVectorDataflow.add(set, 129);
+    assertThat(BitVectorDataflow.contains(set, 64)).isTrue();
+    assertThat(BitVectorDataflow.contains(set, 65)).isFalse();
+    assertThat(BitVectorDataflow.nextSet(set, 0)).isEqualTo(3);
+    assertThat(BitVectorDataflow.nextSet(set, 4)).isEqualTo(64);
+    assertThat(BitVectorDataflow.nextSet(set, 65)).isEqualTo(129);
+    assertThat(BitVectorDataflow.nextSet(set, 130)).isEqualTo(-1);
+    BitVectorDataflow.remove(set, 3);
+    BitVectorDataflow.remove(set, 64);
+    BitVectorDataflow.remove(set, 129);
+    assertThat(BitVectorDataflow.isEmpty(set)).isTrue();
+  }
+
+  @Test
+  public void forward_union_propagates_along_loops() {
+    CFG cfg = buildCFG("void foo(boolean b) { while (b) { foo(b); } }");
+    long[][] gen = emptySets(cfg, 1);
+    long[][] kill = emptySets(cfg, 1);
+    BitVectorDataflow.add(gen[cfg.entry().id], 0);
+    BitVectorDataflow dataflow = BitVectorDataflow.solve(cfg, BitVectorDataflow.Direction.FORWARD, BitVectorDataflow.Meet.UNION, 1, gen, kill);
+    assertThat(BitVectorDataflow.isEmpty(dataflow.in(cfg.entry()))).isTrue();
+    for (CFG.Block block : cfg.blocks()) {
+      assertThat(BitVectorDataflow.contains(dataflow.out(block), 0)).isTrue();
+    }
+  }
+
+  @Test
+  public void forward_intersection_requires_all_paths() {
+    CFG cfg = buildCFG("void foo(boolean b) { if (b) { foo(b); } else { foo(!b); } foo(true); }");
+    List<CFG.Block> blocks = cfg.reversedBlocks();
+    long[][] gen = emptySets(cfg, 2);
+    long[][] kill = emptySets(cfg, 2);
+    CFG.Block branch = cfg.entry().successors().get(0);
+    CFG.Block join = branch.successors().get(0);
+    // fact 0 is generated on a single branch, fact 1 on both branches
+    BitVectorDataflow.add(gen[branch.id], 0);
+    for (CFG.Block successor : cfg.entry().successors()) {
+      BitVectorDataflow.add(gen[successor.id], 1);
+    }
+    BitVectorDataflow dataflow = BitVectorDataflow.solve(cfg, BitVectorDataflow.Direction.FORWARD, BitVectorDataflow.Meet.INTERSECTION, 2, gen, kill);
+    assertThat(BitVectorDataflow.contains(dataflow.in(join), 0)).isFalse();
+    assertThat(BitVectorDataflow.contains(dataflow.in(join), 1)).isTrue();
+    assertThat(BitVectorDataflow.isEmpty(dataflow.in(cfg.entry()))).isTrue();
+    assertThat(BitVectorDataflow.contains(dataflow.out(blocks.get(0)), 1)).isTrue();
+  }
+
+  @Test
+  public void backward_kill_stops_propagation() {
+    CFG cfg = buildCFG("void foo(boolean b) { foo(b); if (b) ; foo(true); }");
+    long[][] gen = emptySets(cfg, 1);
+    long[][] kill = emptySets(cfg, 1);
+    CFG.Block exit = cfg.reversedBlocks().get(0);
+    CFG.Block last = exit.predecessors().get(0);
+    BitVectorDataflow.add(gen[last.id], 0);
+    BitVectorDataflow.add(kill[cfg.entry().id], 0);
+    BitVectorDataflow dataflow = BitVectorDataflow.solve(cfg, BitVectorDataflow.Direction.BACKWARD, BitVectorDataflow.Meet.UNION, 1, gen, kill);
+    assertThat(BitVectorDataflow.isEmpty(dataflow.out(exit))).isTrue();
+    assertThat(BitVectorDataflow.contains(dataflow.in(last), 0)).isTrue();
+    assertThat(BitVectorDataflow.contains(dataflow.out(cfg.entry()), 0)).isTrue();
+    assertThat(BitVectorDataflow.isEmpty(dataflow.in(cfg.entry()))).isTrue();
+  }
+
+}
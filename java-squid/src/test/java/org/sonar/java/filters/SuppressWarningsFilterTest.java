@@ -19,14 +19,15 @@
  */
 package org.sonar.java.filters;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Lists;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.batch.IssueFilterChain;
 import org.sonar.api.rule.RuleKey;
 
+import java.util.List;
+
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.isA;
@@ -50,10 +51,10 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "firstIssue"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "squid:secondIssue", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "squid:secondIssue", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on file
     when(issue.line()).thenReturn(null);
@@ -72,10 +73,10 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY + "2");
     when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "firstIssue"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "squid:secondIssue", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "squid:secondIssue", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on file
     when(issue.line()).thenReturn(null);
@@ -92,10 +93,10 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("pmd", "CloseResource"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "pmd:CloseResource", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "pmd:CloseResource", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on every line covered by @SuppressWarnings, but same as explicitly mentioned
     for (int i = 12; i <= 16; i++) {
@@ -110,10 +111,10 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("pmd", "CloseResource"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "pmd:OtherIssue", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "pmd:OtherIssue", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on line covered by @SuppressWarnings, but different from the one explicitly mentioned
     when(issue.line()).thenReturn(15);
@@ -126,10 +127,10 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "S1309"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "all", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "all", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on line covered by @SuppressWarnings
     when(issue.line()).thenReturn(12);
@@ -142,11 +143,11 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "S1309"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "unchecked", 12, 16);
-    addWarning(suppressWarningLines, "cast", 13, 15);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "unchecked", 12, 16);
+    addWarning(suppressWarningRanges, "cast", 13, 15);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     // issue on line covered by @SuppressWarnings
     when(issue.line()).thenReturn(12);
@@ -162,18 +163,58 @@ public class SuppressWarningsFilterTest {
     when(issue.componentKey()).thenReturn(COMPONENT_KEY);
     when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "firstIssue"));
 
-    Multimap<Integer, String> suppressWarningLines = HashMultimap.create();
-    addWarning(suppressWarningLines, "all", 12, 16);
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "all", 12, 16);
 
-    filter.addComponent(COMPONENT_KEY, suppressWarningLines);
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
 
     when(issue.line()).thenReturn(12);
     assertFalse(filter.accept(issue, chain));
   }
 
-  private void addWarning(Multimap<Integer, String> multimap, String warning, int startLine, int endLine) {
-    for (int i = startLine; i <= endLine; i++) {
-      multimap.put(i, warning);
+  @Test
+  public void should_ignore_issue_covered_by_any_of_overlapping_ranges() {
+    Issue issue = mock(Issue.class);
+    when(issue.componentKey()).thenReturn(COMPONENT_KEY);
+    when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "firstIssue"));
+
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "squid:firstIssue", 10, 30);
+    addWarning(suppressWarningRanges, "squid:secondIssue", 12, 14);
+    addWarning(suppressWarningRanges, "unchecked", 28, 35);
+    addWarning(suppressWarningRanges, "squid:firstIssue", 40, 40);
+
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
+
+    for (int line : new int[] {10, 13, 20, 29, 30, 40}) {
+      when(issue.line()).thenReturn(line);
+      assertFalse(filter.accept(issue, chain));
+    }
+    for (int line : new int[] {1, 9, 31, 35, 39, 41}) {
+      when(issue.line()).thenReturn(line);
+      assertTrue(filter.accept(issue, chain));
+    }
+  }
+
+  @Test
+  public void should_accept_issue_if_no_warning_is_a_rule_key() {
+    Issue issue = mock(Issue.class);
+    when(issue.componentKey()).thenReturn(COMPONENT_KEY);
+    when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "firstIssue"));
+
+    List<SuppressWarningsRange> suppressWarningRanges = Lists.newArrayList();
+    addWarning(suppressWarningRanges, "unchecked", 12, 16);
+    addWarning(suppressWarningRanges, "squid:firstIssue", 20, 18);
+
+    filter.addComponent(COMPONENT_KEY, suppressWarningRanges);
+
+    for (int line : new int[] {12, 19}) {
+      when(issue.line()).thenReturn(line);
+      assertTrue(filter.accept(issue, chain));
     }
   }
+
+  private void addWarning(List<SuppressWarningsRange> ranges, String warning, int startLine, int endLine) {
+    ranges.add(new SuppressWarningsRange(startLine, endLine, Lists.newArrayList(warning)));
+  }
 }
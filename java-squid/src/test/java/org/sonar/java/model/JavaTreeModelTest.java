@@ -2731,8 +2731,13 @@ public class JavaTreeModelTest {
   }
 
   private static void assertThatChildrenIteratorHasSize(Tree tree, int size) {
-    List<Tree> children = ImmutableList.<Tree>builder().addAll(((JavaTree) tree).childrenIterator()).build();
+    JavaTree javaTree = (JavaTree) tree;
+    List<Tree> children = ImmutableList.<Tree>builder().addAll(javaTree.childrenIterator()).build();
     assertThat(children).hasSize(size);
+    assertThat(javaTree.childCount()).isEqualTo(size);
+    for (int i = 0; i < size; i++) {
+      assertThat(javaTree.child(i)).isSameAs(children.get(i));
+    }
   }
 
   private static void assertThatArrayTypeHasBrackets(ArrayTypeTree tree, int numberAnnotations, boolean shouldHaveEllipsis) {
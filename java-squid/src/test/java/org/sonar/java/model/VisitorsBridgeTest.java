@@ -20,15 +20,25 @@
 package org.sonar.java.model;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Test;
+import org.sonar.java.ThreadConfined;
 import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.java.ast.visitors.VisitorContext;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.squidbridge.api.CheckMessage;
+import org.sonar.squidbridge.api.SourceCode;
+import org.sonar.squidbridge.api.SourceFile;
 import org.sonar.squidbridge.api.SourceProject;
 
 import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -62,6 +72,122 @@ public class VisitorsBridgeTest {
     checkFile(contstructFileName("src", "foo", "bar", "java", "lang", "someFile.java"), "package foo.bar.java.lang; class A{}", visitorsBridgeWithSemantic);
   }
 
+  @Test
+  public void rules_of_large_files_run_in_parallel_except_thread_confined_ones() {
+    String code = "class A {\n  void foo() {\n    if (true) {}\n  }\n}\n";
+    RecordingVisitorContext recordingContext = new RecordingVisitorContext();
+    VisitorsBridge sequential = new VisitorsBridge(scanners(new CountDownLatch(1)), Lists.<File>newArrayList(), null);
+    sequential.setContext(recordingContext);
+    recordingContext.setFile(new File("A.java"));
+    sequential.visitFile(parse(code));
+    List<String> expected = recordingContext.sourceFile.messages;
+
+    List<JavaFileScanner> scanners = scanners(new CountDownLatch(1));
+    VisitorsBridge parallel = new VisitorsBridge(scanners, Lists.<File>newArrayList(), null);
+    parallel.setParallelRulesThreshold(5);
+    parallel.setContext(recordingContext);
+    recordingContext.setFile(new File("A.java"));
+    parallel.visitFile(parse(code));
+
+    assertThat(expected).hasSize(9);
+    assertThat(recordingContext.sourceFile.messages).isEqualTo(expected);
+    Set<Thread> parallelThreads = Sets.newHashSet();
+    for (JavaFileScanner scanner : scanners) {
+      if (scanner instanceof ThreadRecorder) {
+        assertThat(((ThreadRecorder) scanner).threads).containsOnly(Thread.currentThread());
+      } else {
+        parallelThreads.add(((LineReporter) scanner).thread);
+      }
+    }
+    parallelThreads.remove(Thread.currentThread());
+    assertThat(parallelThreads).isNotEmpty();
+  }
+
+  private static List<JavaFileScanner> scanners(CountDownLatch parallelScanStarted) {
+    List<JavaFileScanner> scanners = Lists.newArrayList();
+    for (int i = 0; i < 8; i++) {
+      scanners.add(new LineReporter(i, parallelScanStarted));
+    }
+    scanners.add(4, new ThreadRecorder(parallelScanStarted));
+    return scanners;
+  }
+
+  private static class RecordingVisitorContext extends VisitorContext {
+    private RecordingSourceFile sourceFile;
+
+    RecordingVisitorContext() {
+      super(new SourceProject("Java project"));
+    }
+
+    @Override
+    public void setFile(File file) {
+      sourceFile = null;
+      super.setFile(file);
+      sourceFile = new RecordingSourceFile(file);
+    }
+
+    @Override
+    public SourceCode peekSourceCode() {
+      return sourceFile == null ? super.peekSourceCode() : sourceFile;
+    }
+  }
+
+  private static class RecordingSourceFile extends SourceFile {
+    private final List<String> messages = Lists.newArrayList();
+
+    RecordingSourceFile(File file) {
+      super(file.getAbsolutePath(), file.getPath());
+    }
+
+    @Override
+    public void log(CheckMessage message) {
+      messages.add(message.getLine() + ":" + message.getDefaultMessage());
+      super.log(message);
+    }
+  }
+
+  private static class LineReporter implements JavaFileScanner {
+    private final int index;
+    private final CountDownLatch parallelScanStarted;
+    private Thread thread;
+
+    LineReporter(int index, CountDownLatch parallelScanStarted) {
+      this.index = index;
+      this.parallelScanStarted = parallelScanStarted;
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      thread = Thread.currentThread();
+      parallelScanStarted.countDown();
+      context.addIssue(index % 5 + 1, this, "issue " + index + " " + context.getComplexity(context.getTree()).size());
+    }
+  }
+
+  /**
+   * Waits for a scanner of the pool to start, so that the caller thread cannot run all the parallel scanners itself when joining them.
+   */
+  @ThreadConfined
+  private static class ThreadRecorder implements JavaFileScanner {
+    private final Set<Thread> threads = Sets.newHashSet();
+    private final CountDownLatch parallelScanStarted;
+
+    ThreadRecorder(CountDownLatch parallelScanStarted) {
+      this.parallelScanStarted = parallelScanStarted;
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      threads.add(Thread.currentThread());
+      try {
+        parallelScanStarted.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      context.addIssueOnFile(this, "confined");
+    }
+  }
+
   private void checkFile(String filename, String code, VisitorsBridge visitorsBridge) {
     context.setFile(new File(filename));
     visitorsBridge.visitFile(parse(code));
@@ -296,6 +296,26 @@ public class BytecodeCompleterTest {
 
   }
 
+  @Test
+  public void members_are_created_on_lookup() {
+    JavaSymbol.TypeJavaSymbol clazz = bytecodeCompleter.getClassSymbol("org.sonar.java.resolve.targets.AnnotationsOnMembers");
+    Scope members = clazz.members();
+    assertThat(members).isInstanceOf(BytecodeScope.class);
+    assertThat(members.symbols.isEmpty()).isTrue();
+
+    assertThat(members.lookup("method")).hasSize(1);
+    assertThat(members.symbols.keySet()).containsOnly("method");
+    assertThat(members.lookup("unknown")).isEmpty();
+
+    List<JavaSymbol> scopeSymbols = members.scopeSymbols();
+    assertThat(scopeSymbols).hasSize(3);
+    // declaration order is kept regardless of lookups
+    assertThat(scopeSymbols.get(0).name).isEqualTo("field");
+    assertThat(scopeSymbols.get(1).name).isEqualTo("<init>");
+    assertThat(scopeSymbols.get(2)).isSameAs(members.lookup("method").get(0));
+    assertThat(members.lookup("field")).containsOnly(scopeSymbols.get(0));
+  }
+
   @Test
   public void annotated_enum_constructor() {
     //Test to handle difference between signature and descriptor for enum:
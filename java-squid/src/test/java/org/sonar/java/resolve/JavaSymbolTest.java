@@ -19,13 +19,17 @@
  */
 package org.sonar.java.resolve;
 
+import com.google.common.collect.Lists;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class JavaSymbolTest {
   private static final JavaSymbol.PackageJavaSymbol P_PACKAGE_JAVA_SYMBOL = new JavaSymbol.PackageJavaSymbol(null, null);
@@ -42,12 +46,39 @@ public class JavaSymbolTest {
   public void completion_should_use_completer() {
     JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
     JavaSymbol.Completer completer = mock(JavaSymbol.Completer.class);
+    when(completer.completionLock()).thenReturn(new CompletionLock());
     symbol.completer = completer;
     symbol.complete();
     verify(completer).complete(symbol);
     assertThat(symbol.completer).isNull();
   }
 
+  @Test
+  public void completion_takes_the_lock_once_shared() {
+    final CompletionLock lock = new CompletionLock();
+    final List<Boolean> locked = Lists.newArrayList();
+    JavaSymbol.Completer completer = new JavaSymbol.Completer() {
+      @Override
+      public void complete(JavaSymbol symbol) {
+        locked.add(Thread.holdsLock(lock));
+      }
+
+      @Override
+      public CompletionLock completionLock() {
+        return lock;
+      }
+    };
+    JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
+    symbol.completer = completer;
+    symbol.complete();
+    lock.share();
+    JavaSymbol other = new JavaSymbol(0, 0, null, null);
+    other.completer = completer;
+    other.complete();
+
+    assertThat(locked).containsExactly(false, true);
+  }
+
   @Test
   public void test_PackageSymbol() {
     JavaSymbol owner = mock(JavaSymbol.class);
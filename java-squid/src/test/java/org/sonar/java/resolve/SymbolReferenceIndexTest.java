@@ -0,0 +1,87 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SymbolReferenceIndexTest {
+
+  @Test
+  public void declarations_and_references_are_indexed_by_offset() {
+    String code = "class A {\n"
+      + "  int field;\n"
+      + "  void foo(int param) {\n"
+      + "    field = param + field;\n"
+      + "    String s = \"\";\n"
+      + "  }\n"
+      + "}\n";
+    SymbolReferenceIndex index = index(code);
+
+    // A, field, foo, param, s
+    assertThat(index.declarationCount()).isEqualTo(5);
+    assertThat(code.substring(index.declarationStart(1), index.declarationEnd(1))).isEqualTo("field");
+    // field, param, field, String
+    assertThat(index.referenceCount()).isEqualTo(4);
+    assertThat(declarationReferencedAt(index, code.indexOf("field = "))).isEqualTo(1);
+    assertThat(declarationReferencedAt(index, code.indexOf("param + "))).isEqualTo(3);
+    assertThat(declarationReferencedAt(index, code.lastIndexOf("field"))).isEqualTo(1);
+    // String is not declared in the file
+    assertThat(declarationReferencedAt(index, code.indexOf("String"))).isEqualTo(-1);
+    assertThat(index.referencedSymbols()).hasSize(3);
+  }
+
+  @Test
+  public void enum_constructors_are_declared_without_references() {
+    String code = "enum E {\n"
+      + "  C;\n"
+      + "  E() {}\n"
+      + "}\n";
+    SymbolReferenceIndex index = index(code);
+
+    // E, C, E()
+    assertThat(index.declarationCount()).isEqualTo(3);
+    for (int i = 0; i < index.referenceCount(); i++) {
+      assertThat(index.referenceDeclaration(i)).isNotEqualTo(2);
+    }
+  }
+
+  private static int declarationReferencedAt(SymbolReferenceIndex index, int offset) {
+    for (int i = 0; i < index.referenceCount(); i++) {
+      if (index.referenceOffset(i) == offset) {
+        return index.referenceDeclaration(i);
+      }
+    }
+    throw new IllegalArgumentException("No reference at " + offset);
+  }
+
+  private static SymbolReferenceIndex index(String code) {
+    CompilationUnitTree tree = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse(code);
+    return SemanticModel.createFor(tree, Collections.<File>emptyList()).getReferenceIndex();
+  }
+
+}
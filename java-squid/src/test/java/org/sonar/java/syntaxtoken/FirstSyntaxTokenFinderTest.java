@@ -22,6 +22,7 @@ package org.sonar.java.syntaxtoken;
 import com.google.common.base.Charsets;
 import org.junit.Test;
 import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.model.JavaTree;
 import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.ExpressionStatementTree;
@@ -607,6 +608,16 @@ public class FirstSyntaxTokenFinderTest {
     assertFirstTokenValue(firstClass.declarationKeyword(), "class");
   }
 
+  @Test
+  public void first_token_is_cached_on_tree() {
+    ClassTree firstClass = getFirstClass(getCompilationUnit("public class Foo {}"));
+    SyntaxToken firstToken = ((JavaTree) firstClass).firstToken();
+    assertThat(firstToken.text()).isEqualTo("public");
+    assertThat(getFirstSyntaxToken(firstClass)).isSameAs(firstToken);
+    assertThat(FirstSyntaxTokenFinder.computeFirstSyntaxToken(firstClass)).isSameAs(firstToken);
+    assertThat(((JavaTree) firstClass.modifiers()).firstToken()).isSameAs(firstToken);
+  }
+
   private static void assertFirstTokenValue(Tree tree, String expected) {
     assertThat(getFirstSyntaxToken(tree).text()).isEqualTo(expected);
   }
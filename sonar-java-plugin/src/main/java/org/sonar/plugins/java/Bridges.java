@@ -23,12 +23,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.checks.NoSonarFilter;
 import org.sonar.api.config.Settings;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Directory;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
+import org.sonar.java.FileAnalysisListener;
 import org.sonar.java.JavaSquid;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.bytecode.visitor.ResourceMapping;
@@ -36,11 +39,14 @@ import org.sonar.plugins.java.bridges.ChecksBridge;
 import org.sonar.plugins.java.bridges.DesignBridge;
 import org.sonar.squidbridge.api.SourceFile;
 
+import java.io.File;
+
 public class Bridges {
 
   private static final Logger LOG = LoggerFactory.getLogger(Bridges.class);
   private final JavaSquid squid;
   private final Settings settings;
+  private ChecksBridge checksBridge;
 
   public Bridges(JavaSquid squid, Settings settings) {
     this.squid = squid;
@@ -56,8 +62,37 @@ public class Bridges {
       designBridge.saveDesign(project);
     }
     // Report Issues
-    ChecksBridge checksBridge = new ChecksBridge(sonarComponents);
-    reportIssues(resourceMapping, noSonarFilter, checksBridge, project);
+    reportIssues(resourceMapping, noSonarFilter, checksBridge(sonarComponents), project);
+  }
+
+  /**
+   * Reports the issues and NOSONAR lines of each main file as soon as it has been analyzed, instead of keeping them in the squid
+   * index until {@link #save}. Only issues raised later, by bytecode checks or on parse errors, are left to the final report.
+   */
+  public FileAnalysisListener streamingIssuesReporter(final SensorContext context, SonarComponents sonarComponents, final NoSonarFilter noSonarFilter) {
+    final ChecksBridge streamingChecksBridge = checksBridge(sonarComponents);
+    final FileSystem fs = sonarComponents.getFileSystem();
+    return new FileAnalysisListener() {
+      @Override
+      public void fileAnalyzed(File file, SourceFile squidFile) {
+        InputFile inputFile = fs.inputFile(fs.predicates().is(file));
+        Resource sonarFile = context.getResource(inputFile);
+        if (sonarFile != null) {
+          noSonarFilter.addResource(sonarFile, squidFile.getNoSonarTagLines());
+          streamingChecksBridge.reportIssues(squidFile, sonarFile);
+        }
+      }
+    };
+  }
+
+  /**
+   * Same bridge for streamed and final reports, so that rule keys are resolved once.
+   */
+  private ChecksBridge checksBridge(SonarComponents sonarComponents) {
+    if (checksBridge == null) {
+      checksBridge = new ChecksBridge(sonarComponents);
+    }
+    return checksBridge;
   }
 
   private void reportIssues(ResourceMapping resourceMapping, NoSonarFilter noSonarFilter, ChecksBridge checksBridge, Project project) {
@@ -29,6 +29,8 @@ import org.sonar.java.DefaultJavaResourceLocator;
 import org.sonar.java.JavaClasspath;
 import org.sonar.java.JavaClasspathProperties;
 import org.sonar.java.JavaTestClasspath;
+import org.sonar.java.SharedJarCache;
+import org.sonar.java.SharedParsers;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.filters.SuppressWarningsFilter;
 import org.sonar.plugins.jacoco.JaCoCoExtensions;
@@ -44,6 +46,18 @@ public class JavaPlugin extends SonarPlugin {
   public static final String SQUID_ANALYSE_ACCESSORS_PROPERTY = "sonar.squid.analyse.property.accessors";
   public static final boolean SQUID_ANALYSE_ACCESSORS_DEFAULT_VALUE = true;
 
+  public static final String PROFILING_PROPERTY = "sonar.java.profiling";
+  public static final String PROFILING_ALLOCATIONS_PROPERTY = "sonar.java.profiling.allocations";
+  public static final String PROFILING_SLOW_FILE_THRESHOLD_PROPERTY = "sonar.java.profiling.slowFileThreshold";
+  public static final int PROFILING_SLOW_FILE_THRESHOLD_DEFAULT_VALUE = 10000;
+  public static final String FILE_TIME_BUDGET_PROPERTY = "sonar.java.timeBudget.file";
+  public static final String RULE_TIME_BUDGET_PROPERTY = "sonar.java.timeBudget.rule";
+  public static final String STREAM_ISSUES_PROPERTY = "sonar.java.streamIssues";
+  public static final String CLASS_FILE_STORE_PROPERTY = "sonar.java.classFileStore";
+  public static final String PIPELINED_PROPERTY = "sonar.java.pipelined";
+  public static final String PARALLEL_RULES_THRESHOLD_PROPERTY = "sonar.java.parallelRules.threshold";
+  public static final String PARALLEL_RULES_THREADS_PROPERTY = "sonar.java.parallelRules.threads";
+
   @Override
   public List getExtensions() {
     ImmutableList.Builder<Object> builder = ImmutableList.builder();
@@ -82,10 +96,111 @@ public class JavaPlugin extends SonarPlugin {
             .type(PropertyType.BOOLEAN)
             .hidden()
             .build(),
+        PropertyDefinition.builder(PROFILING_PROPERTY)
+            .defaultValue("false")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Profile analysis")
+            .description("Log the time spent in each phase of the analysis and in each rule, and write it as JSON in the working directory.")
+            .type(PropertyType.BOOLEAN)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(PROFILING_ALLOCATIONS_PROPERTY)
+            .defaultValue("false")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Profile allocations")
+            .description("When profiling, also measure the memory allocated by each phase of the analysis and by each rule.")
+            .type(PropertyType.BOOLEAN)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(PROFILING_SLOW_FILE_THRESHOLD_PROPERTY)
+            .defaultValue(Integer.toString(PROFILING_SLOW_FILE_THRESHOLD_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Slow file threshold")
+            .description("When profiling, log the files whose analysis takes more than this number of milliseconds. 0 to disable.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(FILE_TIME_BUDGET_PROPERTY)
+            .defaultValue("0")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("File time budget")
+            .description("Maximal number of milliseconds spent in semantic analysis and rules on one file. Remaining rules are skipped on the file. 0 for no limit.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(RULE_TIME_BUDGET_PROPERTY)
+            .defaultValue("0")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Rule time budget")
+            .description("Maximal number of milliseconds spent by one rule on one file. The rule is interrupted on the file when exceeded. 0 for no limit.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(STREAM_ISSUES_PROPERTY)
+            .defaultValue("false")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Stream issues")
+            .description("Report the issues of each file as soon as it has been analyzed, instead of keeping all of them in memory until the end of the analysis.")
+            .type(PropertyType.BOOLEAN)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(SharedJarCache.SIZE_PROPERTY)
+            .defaultValue(Integer.toString(SharedJarCache.DEFAULT_SIZE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("JAR cache size")
+            .description("Megabytes of opened classpath JARs and of class files read from them kept for the analysis of all the modules. 0, the default, disables the cache.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(PARALLEL_RULES_THRESHOLD_PROPERTY)
+            .defaultValue("0")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Parallel rules threshold")
+            .description("Minimal number of lines of a file for its rules to be run on several threads. 0 to always run them one after the other.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(PARALLEL_RULES_THREADS_PROPERTY)
+            .defaultValue("0")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Parallel rules threads")
+            .description("Number of threads running the rules of the files above the parallel rules threshold, shared by the modules analyzed "
+              + "in the same JVM. 0, the default, for the number of available processors.")
+            .type(PropertyType.INTEGER)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(PIPELINED_PROPERTY)
+            .defaultValue("false")
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Pipelined analysis")
+            .description("Scan the bytecode on a separate thread while the test files are analyzed, instead of one after the other.")
+            .type(PropertyType.BOOLEAN)
+            .hidden()
+            .build(),
+        PropertyDefinition.builder(CLASS_FILE_STORE_PROPERTY)
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Class file store directory")
+            .description("Local directory where the class files of the JDK and library JARs are stored, keyed by JAR path, size and modification time, "
+              + "to be memory-mapped by later analyses instead of being read from the JARs. Empty to read the JARs directly.")
+            .hidden()
+            .build(),
 
         JavaRulesDefinition.class,
         JavaSonarWayProfile.class,
         SonarComponents.class,
+        SharedJarCache.class,
+        SharedParsers.class,
         DefaultJavaResourceLocator.class,
         JavaSquidSensor.class,
         SuppressWarningsFilter.class);
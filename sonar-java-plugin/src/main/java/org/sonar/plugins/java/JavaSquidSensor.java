@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.java;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.DependedUpon;
@@ -37,10 +38,13 @@ import org.sonar.java.JavaClasspath;
 import org.sonar.java.JavaConfiguration;
 import org.sonar.java.JavaSquid;
 import org.sonar.java.Measurer;
+import org.sonar.java.SharedJarCache;
+import org.sonar.java.SharedParsers;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.api.JavaUtils;
 import org.sonar.java.checks.CheckList;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.Collections;
@@ -58,10 +62,20 @@ public class JavaSquidSensor implements Sensor {
   private final Settings settings;
   private final RulesProfile profile;
   private final NoSonarFilter noSonarFilter;
+  private final SharedJarCache jarCache;
+  private final SharedParsers parsers;
 
   public JavaSquidSensor(RulesProfile profile, JavaClasspath javaClasspath, SonarComponents sonarComponents, FileSystem fs,
     DefaultJavaResourceLocator javaResourceLocator, Settings settings, NoSonarFilter noSonarFilter) {
+    this(profile, javaClasspath, sonarComponents, fs, javaResourceLocator, settings, noSonarFilter, null, null);
+  }
+
+  public JavaSquidSensor(RulesProfile profile, JavaClasspath javaClasspath, SonarComponents sonarComponents, FileSystem fs,
+    DefaultJavaResourceLocator javaResourceLocator, Settings settings, NoSonarFilter noSonarFilter, @Nullable SharedJarCache jarCache,
+    @Nullable SharedParsers parsers) {
     this.profile = profile;
+    this.jarCache = jarCache;
+    this.parsers = parsers;
     this.noSonarFilter = noSonarFilter;
     this.javaClasspath = javaClasspath;
     this.sonarComponents = sonarComponents;
@@ -83,8 +97,12 @@ public class JavaSquidSensor implements Sensor {
     JavaConfiguration configuration = createConfiguration();
     Measurer measurer = new Measurer(fs, context, configuration.separatesAccessorsFromMethods());
     JavaSquid squid = new JavaSquid(configuration, sonarComponents, measurer, javaResourceLocator, sonarComponents.checkClasses());
+    Bridges bridges = new Bridges(squid, settings);
+    if (settings.getBoolean(JavaPlugin.STREAM_ISSUES_PROPERTY)) {
+      squid.setFileAnalysisListener(bridges.streamingIssuesReporter(context, sonarComponents, noSonarFilter));
+    }
     squid.scan(getSourceFiles(), getTestFiles(), getBytecodeFiles());
-    new Bridges(squid, settings).save(context, project, sonarComponents, javaResourceLocator.getResourceMapping(), noSonarFilter, profile);
+    bridges.save(context, project, sonarComponents, javaResourceLocator.getResourceMapping(), noSonarFilter, profile);
   }
 
   private Iterable<File> getSourceFiles() {
@@ -115,6 +133,28 @@ public class JavaSquidSensor implements Sensor {
     Charset charset = fs.encoding();
     JavaConfiguration conf = new JavaConfiguration(charset);
     conf.setSeparateAccessorsFromMethods(analyzePropertyAccessors);
+    if (settings.getBoolean(JavaPlugin.PROFILING_PROPERTY)) {
+      conf.setProfilingEnabled(true);
+      conf.setProfileAllocations(settings.getBoolean(JavaPlugin.PROFILING_ALLOCATIONS_PROPERTY));
+      conf.setSlowFileThreshold(settings.getLong(JavaPlugin.PROFILING_SLOW_FILE_THRESHOLD_PROPERTY));
+      conf.setProfilingReport(new File(fs.workDir(), "java-profiling.json"));
+    }
+    conf.setFileTimeBudget(settings.getLong(JavaPlugin.FILE_TIME_BUDGET_PROPERTY));
+    conf.setRuleTimeBudget(settings.getLong(JavaPlugin.RULE_TIME_BUDGET_PROPERTY));
+    conf.setPipelined(settings.getBoolean(JavaPlugin.PIPELINED_PROPERTY));
+    conf.setParallelRulesThreshold(settings.getInt(JavaPlugin.PARALLEL_RULES_THRESHOLD_PROPERTY));
+    conf.setParallelRulesThreads(settings.getInt(JavaPlugin.PARALLEL_RULES_THREADS_PROPERTY));
+    conf.setClassFileInventory(javaClasspath.getClassFileInventory());
+    if (parsers != null) {
+      conf.setParser(parsers.get(charset));
+    }
+    if (jarCache != null && jarCache.isEnabled()) {
+      conf.setJarCache(jarCache);
+    }
+    String classFileStore = settings.getString(JavaPlugin.CLASS_FILE_STORE_PROPERTY);
+    if (!Strings.isNullOrEmpty(classFileStore)) {
+      conf.setClassFileStoreDirectory(new File(classFileStore));
+    }
     return conf;
   }
 
@@ -21,13 +21,13 @@ package org.sonar.plugins.java.bridges;
 
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.java.AnalyzerMessage;
+import org.sonar.java.CheckRuleKeys;
 import org.sonar.java.JavaCheckMessage;
 import org.sonar.java.SonarComponents;
 import org.sonar.plugins.java.CompIssue;
@@ -35,17 +35,16 @@ import org.sonar.plugins.java.api.JavaCheck;
 import org.sonar.squidbridge.api.CheckMessage;
 import org.sonar.squidbridge.api.SourceFile;
 
-import javax.annotation.CheckForNull;
 import java.util.Set;
 
 public class ChecksBridge {
 
-  private final Iterable<Checks<JavaCheck>> checks;
+  private final CheckRuleKeys checkRuleKeys;
   private final ResourcePerspectives resourcePerspectives;
   private final FileSystem fs;
 
   public ChecksBridge(SonarComponents sonarComponents) {
-    this.checks = sonarComponents.checks();
+    this.checkRuleKeys = new CheckRuleKeys(sonarComponents.checks());
     this.resourcePerspectives = sonarComponents.getResourcePerspectives();
     fs = sonarComponents.getFileSystem();
   }
@@ -55,17 +54,21 @@ public class ChecksBridge {
       Issuable issuable = resourcePerspectives.as(Issuable.class, sonarFile);
       Set<CheckMessage> messages = squidFile.getCheckMessages();
       if (issuable != null) {
+        InputFile inputFile = null;
         for (CheckMessage checkMessage : messages) {
           Object check = checkMessage.getCheck();
 
-          RuleKey ruleKey = getRuleKey((JavaCheck) check);
+          RuleKey ruleKey = checkRuleKeys.ruleKey((JavaCheck) check);
           if (ruleKey == null) {
             throw new IllegalStateException("Cannot find rule key for instance of " + check.getClass());
           }
           if (checkMessage instanceof JavaCheckMessage) {
             AnalyzerMessage issue = ((JavaCheckMessage) checkMessage).getAnalyzerMessage();
             if (issue != null) {
-              reportIssueNew(sonarFile, issuable, issue, ruleKey);
+              if (inputFile == null) {
+                inputFile = fs.inputFile(fs.predicates().hasPath(sonarFile.getPath()));
+              }
+              reportIssueNew(inputFile, issuable, issue, ruleKey);
               continue;
             }
           }
@@ -83,8 +86,7 @@ public class ChecksBridge {
     }
   }
 
-  private void reportIssueNew(Resource sonarFile, Issuable issuable, AnalyzerMessage issue, RuleKey ruleKey) {
-    InputFile inputFile = fs.inputFile(fs.predicates().hasPath(sonarFile.getPath()));
+  private static void reportIssueNew(InputFile inputFile, Issuable issuable, AnalyzerMessage issue, RuleKey ruleKey) {
     CompIssue compIssue = CompIssue.create(inputFile, issuable, ruleKey, issue.getCost());
     AnalyzerMessage.TextSpan textSpan = issue.primaryLocation();
     if (textSpan == null) {
@@ -99,15 +101,4 @@ public class ChecksBridge {
     compIssue.save();
   }
 
-  @CheckForNull
-  private RuleKey getRuleKey(JavaCheck check) {
-    for (Checks<JavaCheck> sonarChecks : checks) {
-      RuleKey ruleKey = sonarChecks.ruleKey(check);
-      if (ruleKey != null) {
-        return ruleKey;
-      }
-    }
-    return null;
-  }
-
 }
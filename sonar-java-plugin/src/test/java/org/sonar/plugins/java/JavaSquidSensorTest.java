@@ -19,9 +19,13 @@
  */
 package org.sonar.plugins.java;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.SensorContext;
@@ -61,6 +65,9 @@ import static org.mockito.Mockito.when;
 
 public class JavaSquidSensorTest {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private final DefaultFileSystem fileSystem = new DefaultFileSystem(null);
   private JavaSquidSensor sensor;
 
@@ -114,14 +121,78 @@ public class JavaSquidSensorTest {
 
     jss.analyse(project, context);
 
-    verify(issueBuilder, times(3)).ruleKey(RuleKey.of("squid", "S00100"));
-    verify(issueBuilder, times(3)).message("Rename this method name to match the regular expression '^[a-z][a-zA-Z0-9]*$'.");
-    verify(issuable, times(3)).addIssue(issue);
+    verify(issueBuilder, times(5)).ruleKey(RuleKey.of("squid", "S00100"));
+    verify(issueBuilder, times(5)).message("Rename this method name to match the regular expression '^[a-z][a-zA-Z0-9]*$'.");
+    verify(issuable, times(5)).addIssue(issue);
 
     settings.setProperty(CoreProperties.DESIGN_SKIP_DESIGN_PROPERTY, true);
     jss.analyse(project, context);
   }
 
+  @Test
+  public void issues_are_reported_once_when_streamed() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty(JavaPlugin.STREAM_ISSUES_PROPERTY, true);
+    DefaultFileSystem fs = new DefaultFileSystem(new File("src/test/java/"));
+    File file = new File("src/test/java/org/sonar/plugins/java/JavaSquidSensorTest.java");
+    fs.add(new DefaultInputFile(file.getPath()).setFile(file).setLanguage("java"));
+    Project project = mock(Project.class);
+    JavaClasspath javaClasspath = new JavaClasspath(project, settings, fs);
+
+    SonarComponents sonarComponents = createSonarComponentsMock(fs);
+    DefaultJavaResourceLocator javaResourceLocator = new DefaultJavaResourceLocator(fs, javaClasspath, mock(SuppressWarningsFilter.class));
+    NoSonarFilter noSonarFilter = mock(NoSonarFilter.class);
+    JavaSquidSensor jss = new JavaSquidSensor(RulesProfile.create("test", Java.KEY), javaClasspath, sonarComponents, fs, javaResourceLocator, settings,
+      noSonarFilter);
+    SensorContext context = mock(SensorContext.class);
+    org.sonar.api.resources.File sonarFile = org.sonar.api.resources.File.create("src/test/java/org/sonar/plugins/java/JavaSquidSensorTest.java");
+    when(context.getResource(any(InputPath.class))).thenReturn(sonarFile);
+
+    ResourcePerspectives resourcePerspectives = mock(ResourcePerspectives.class);
+    when(sonarComponents.getResourcePerspectives()).thenReturn(resourcePerspectives);
+    Issuable issuable = mock(Issuable.class);
+    Issuable.IssueBuilder issueBuilder = mock(Issuable.IssueBuilder.class);
+    when(issuable.newIssueBuilder()).thenReturn(issueBuilder);
+    Issue issue = mock(Issue.class);
+    when(issueBuilder.ruleKey(Mockito.any(RuleKey.class))).thenReturn(issueBuilder);
+    when(issueBuilder.line(Mockito.anyInt())).thenReturn(issueBuilder);
+    when(issueBuilder.message(Mockito.anyString())).thenReturn(issueBuilder);
+    when(issueBuilder.effortToFix(Mockito.anyDouble())).thenReturn(issueBuilder);
+    when(issueBuilder.build()).thenReturn(issue);
+    when(resourcePerspectives.as(any(Issuable.class.getClass()), any(Resource.class))).thenReturn(issuable);
+
+    jss.analyse(project, context);
+
+    verify(issuable, times(5)).addIssue(issue);
+    // once when the file is analyzed, once more at the end of the analysis, where no issue is left to report
+    verify(noSonarFilter, times(2)).addResource(Mockito.eq(sonarFile), Mockito.anySet());
+  }
+
+  @Test
+  public void profiling_report_is_written_in_work_dir() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty(JavaPlugin.PROFILING_PROPERTY, true);
+    DefaultFileSystem fs = new DefaultFileSystem(new File("src/test/java/"));
+    fs.setWorkDir(temp.newFolder());
+    File file = new File("src/test/java/org/sonar/plugins/java/JavaSquidSensorTest.java");
+    fs.add(new DefaultInputFile(file.getPath()).setFile(file).setLanguage("java"));
+    Project project = mock(Project.class);
+    JavaClasspath javaClasspath = new JavaClasspath(project, settings, fs);
+    SonarComponents sonarComponents = createSonarComponentsMock(fs);
+    when(sonarComponents.getResourcePerspectives()).thenReturn(mock(ResourcePerspectives.class));
+    DefaultJavaResourceLocator javaResourceLocator = new DefaultJavaResourceLocator(fs, javaClasspath, mock(SuppressWarningsFilter.class));
+    JavaSquidSensor jss = new JavaSquidSensor(RulesProfile.create("test", Java.KEY), javaClasspath, sonarComponents, fs, javaResourceLocator, settings,
+      mock(NoSonarFilter.class));
+    SensorContext context = mock(SensorContext.class);
+    when(context.getResource(any(InputPath.class))).thenReturn(org.sonar.api.resources.File.create("src/test/java/org/sonar/plugins/java/JavaSquidSensorTest.java"));
+
+    jss.analyse(project, context);
+
+    File report = new File(fs.workDir(), "java-profiling.json");
+    assertThat(report).exists();
+    assertThat(Files.toString(report, Charsets.UTF_8)).contains(BadMethodName_S00100_Check.class.getName());
+  }
+
   private static SonarComponents createSonarComponentsMock(DefaultFileSystem fs) {
     SonarComponents sonarComponents = mock(SonarComponents.class);
     BadMethodName_S00100_Check check = new BadMethodName_S00100_Check();